@@ -0,0 +1,139 @@
+package com.example.demo.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.Test;
+import com.example.demo.benchmark.GenerateurCohorte.Cohorte;
+import com.example.demo.dto.RapportAffectation;
+import com.example.demo.repository.ChoixEtudiantRepository;
+import com.example.demo.repository.EnseignantRepository;
+import com.example.demo.repository.EtudiantRepository;
+import com.example.demo.repository.SujetRepository;
+import com.example.demo.services.AffectationService;
+import com.example.demo.services.affectation.ModeAffectation;
+import com.example.demo.services.affectation.SuiviAffectation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Banc d'essai de l'affectation automatique complète (chargement, calcul,
+ * enregistrement, notifications) sur une base H2 en mémoire remplie par le
+ * {@link GenerateurCohorte}.
+ * <p>
+ * Chaque taille de promotion est mesurée dans un contexte Spring neuf, avec
+ * sa propre base : durée totale, nombre de requêtes SQL et pic de mémoire
+ * heap pendant l'exécution. Lancement :
+ * <pre>
+ * cd ProjetWebSpring_Benchmarks
+ * mvn compile exec:java -Dexec.mainClass=com.example.demo.benchmark.BenchmarkAffectation \
+ *     -Dbenchmark.tailles=500,2000,10000 -Dbenchmark.mode=OPTIMAL
+ * </pre>
+ * Seul le chemin d'écriture actuel est mesuré. Pour référence, la même
+ * cohorte (graine 42, mode GLOUTON) demandait 1482, 5627 et 24535 requêtes
+ * pour 500, 2000 et 10000 étudiants avec les identifiants IDENTITY et les
+ * insertions une par une, contre 292, 1062 et 4723 après le passage aux
+ * séquences et aux insertions par lots.
+ */
+@Component
+@Profile("benchmark")
+@Slf4j
+@RequiredArgsConstructor
+public class BenchmarkAffectation implements ApplicationRunner {
+
+    private static final List<Mesure> MESURES = new ArrayList<>();
+
+    private final EnseignantRepository enseignantRepo;
+    private final SujetRepository sujetRepo;
+    private final EtudiantRepository etudiantRepo;
+    private final ChoixEtudiantRepository choixRepo;
+    private final AffectationService affectationService;
+
+    @Value("${spring.datasource.url}")
+    private String urlBase;
+
+    @Value("${benchmark.taille}")
+    private int taille;
+
+    @Value("${benchmark.graine:42}")
+    private long graine;
+
+    @Value("${benchmark.mode:GLOUTON}")
+    private ModeAffectation mode;
+
+    @Value("${benchmark.parallele:false}")
+    private boolean parallele;
+
+    public static void main(String[] args) {
+        String tailles = System.getProperty("benchmark.tailles", "500,2000,10000");
+        for (String t : tailles.split(",")) {
+            ConfigurableApplicationContext contexte = new SpringApplicationBuilder(Test.class)
+                    .profiles("benchmark")
+                    .web(WebApplicationType.NONE)
+                    .properties("benchmark.taille=" + t.trim(),
+                            "spring.datasource.url=jdbc:h2:mem:benchmark" + t.trim() + ";DB_CLOSE_DELAY=-1")
+                    .run(args);
+            SpringApplication.exit(contexte);
+        }
+
+        log.info(String.format("%10s %10s %12s %12s %14s %14s",
+                "etudiants", "choix", "affectations", "duree (ms)", "requetes SQL", "pic heap (Mo)"));
+        for (Mesure m : MESURES) {
+            log.info(String.format("%10d %10d %12d %12d %14d %14d",
+                    m.nbEtudiants(), m.nbChoix(), m.nbAffectations(), m.dureeMs(), m.nbRequetesSql(),
+                    m.picHeapOctets() / (1024 * 1024)));
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Le banc d'essai vide et remplit la base : jamais sur une vraie base
+        if (!urlBase.startsWith("jdbc:h2:mem:")) {
+            throw new IllegalStateException("Le banc d'essai exige une base H2 en mémoire, pas " + urlBase);
+        }
+
+        Cohorte cohorte = new GenerateurCohorte(graine).generer(taille);
+        enseignantRepo.saveAll(cohorte.enseignants());
+        sujetRepo.saveAll(cohorte.sujets());
+        etudiantRepo.saveAll(cohorte.etudiants());
+        choixRepo.saveAll(cohorte.choix());
+        log.info("Cohorte générée : {} étudiants, {} sujets, {} enseignants, {} choix",
+                cohorte.etudiants().size(), cohorte.sujets().size(),
+                cohorte.enseignants().size(), cohorte.choix().size());
+
+        List<MemoryPoolMXBean> poolsHeap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == MemoryType.HEAP)
+                .toList();
+        System.gc();
+        poolsHeap.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long debut = System.nanoTime();
+        RapportAffectation rapport = affectationService.executerAffectationAutomatique(
+                mode, parallele, new SuiviAffectation());
+        long dureeMs = (System.nanoTime() - debut) / 1_000_000;
+
+        long picHeap = poolsHeap.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+        Mesure mesure = new Mesure(taille, cohorte.choix().size(), rapport.getNbAffectations(),
+                dureeMs, rapport.getNbRequetesSql(), picHeap);
+        MESURES.add(mesure);
+        log.info("Banc d'essai {} : {}", mode, mesure);
+    }
+
+    record Mesure(int nbEtudiants, int nbChoix, int nbAffectations, long dureeMs, long nbRequetesSql,
+                  long picHeapOctets) {
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.demo.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import com.example.demo.entity.ChoixEtudiant;
+import com.example.demo.entity.Enseignant;
+import com.example.demo.entity.Etudiant;
+import com.example.demo.entity.Sujet;
+
+/**
+ * Génère une promotion synthétique reproductible (même graine, mêmes
+ * données) : enseignants, sujets, étudiants et leurs choix.
+ * <ul>
+ * <li>La popularité des sujets suit une loi de Zipf : quelques sujets
+ * concentrent une grande partie des choix.</li>
+ * <li>Une partie des étudiants forme des binômes ; le binôme est désigné dans
+ * les choix d'un des deux membres, et parfois dans ceux des deux.</li>
+ * <li>Quelques étudiants proposent leur propre sujet, choisi en premier.</li>
+ * </ul>
+ * Les entités ne sont pas persistées.
+ */
+public class GenerateurCohorte {
+
+    private static final String[] DOMAINES = {"Web", "IA", "Réseaux", "Systèmes embarqués", "Data", "Sécurité"};
+    private static final double EXPOSANT_ZIPF = 1.1;
+    private static final double PART_BINOMES = 0.3;
+    private static final double PART_BINOMES_RECIPROQUES = 0.5;
+    private static final double PART_PROPOSITIONS = 0.02;
+    private static final double PART_SUJETS_VALIDES = 0.9;
+    private static final int NB_CHOIX = 5;
+
+    private final Random random;
+
+    public GenerateurCohorte(long graine) {
+        this.random = new Random(graine);
+    }
+
+    public Cohorte generer(int nbEtudiants) {
+        int nbEnseignants = Math.max(5, nbEtudiants / 15);
+        int nbSujets = Math.max(10, nbEtudiants * 6 / 10);
+
+        List<Enseignant> enseignants = new ArrayList<>(nbEnseignants);
+        for (int i = 0; i < nbEnseignants; i++) {
+            Enseignant enseignant = new Enseignant();
+            enseignant.setPrenom("Enseignant");
+            enseignant.setNom("E" + i);
+            enseignant.setEmail("enseignant" + i + "@enicar.test");
+            enseignant.setDepartement(DOMAINES[i % DOMAINES.length]);
+            enseignants.add(enseignant);
+        }
+
+        // Certains enseignants proposent beaucoup plus de sujets que d'autres
+        double[] cumulEnseignants = cumulZipf(nbEnseignants);
+        List<Sujet> sujets = new ArrayList<>(nbSujets);
+        for (int i = 0; i < nbSujets; i++) {
+            sujets.add(nouveauSujet("Sujet " + i,
+                    enseignants.get(tirer(cumulEnseignants)),
+                    random.nextDouble() < PART_SUJETS_VALIDES,
+                    false));
+        }
+
+        List<Etudiant> etudiants = new ArrayList<>(nbEtudiants);
+        for (int i = 0; i < nbEtudiants; i++) {
+            Etudiant etudiant = new Etudiant();
+            etudiant.setPrenom("Etudiant");
+            etudiant.setNom("S" + i);
+            etudiant.setEmail("etudiant" + i + "@enicar.test");
+            etudiant.setSection(i % 2 == 0 ? "INFO" : "MECA");
+            etudiant.setGroupe("G" + (i % 6 + 1));
+            double moyenne = Math.max(0, Math.min(20, 12 + 3 * random.nextGaussian()));
+            etudiant.setMoyenne(Math.round(moyenne * 100) / 100.0);
+            etudiants.add(etudiant);
+        }
+        List<Etudiant> parMerite = new ArrayList<>(etudiants);
+        parMerite.sort(Comparator.comparing(Etudiant::getMoyenne).reversed());
+        for (int i = 0; i < parMerite.size(); i++) {
+            parMerite.get(i).setOrdreMerite(i + 1);
+        }
+
+        // Binômes : étudiants consécutifs d'un ordre aléatoire
+        List<Etudiant> melange = new ArrayList<>(etudiants);
+        Collections.shuffle(melange, random);
+        int nbBinomes = (int) (nbEtudiants * PART_BINOMES / 2);
+
+        // Popularité des sujets indépendante de leur ordre de création
+        List<Sujet> parPopularite = new ArrayList<>(sujets);
+        Collections.shuffle(parPopularite, random);
+        double[] cumulSujets = cumulZipf(nbSujets);
+
+        List<ChoixEtudiant> choix = new ArrayList<>(nbEtudiants * NB_CHOIX);
+        for (int i = 0; i < melange.size(); i++) {
+            Etudiant etudiant = melange.get(i);
+            Etudiant binome = null;
+            if (i < 2 * nbBinomes) {
+                if (i % 2 == 1) {
+                    // Le second membre ne fait des choix que si le lien est réciproque
+                    if (random.nextDouble() < PART_BINOMES_RECIPROQUES) {
+                        ajouterChoix(choix, etudiant, melange.get(i - 1), parPopularite, cumulSujets, sujets, enseignants);
+                    }
+                    continue;
+                }
+                binome = melange.get(i + 1);
+            }
+            ajouterChoix(choix, etudiant, binome, parPopularite, cumulSujets, sujets, enseignants);
+        }
+
+        return new Cohorte(enseignants, sujets, etudiants, choix);
+    }
+
+    private void ajouterChoix(List<ChoixEtudiant> choix, Etudiant etudiant, Etudiant binome,
+                              List<Sujet> parPopularite, double[] cumulSujets,
+                              List<Sujet> sujets, List<Enseignant> enseignants) {
+        int ordre = 1;
+        if (random.nextDouble() < PART_PROPOSITIONS) {
+            Sujet propose = nouveauSujet("Sujet proposé par " + etudiant.getNom(),
+                    enseignants.get(random.nextInt(enseignants.size())), true, true);
+            sujets.add(propose);
+            choix.add(nouveauChoix(etudiant, propose, ordre++, binome, true));
+        }
+        int[] dejaChoisis = new int[NB_CHOIX];
+        int nb = 0;
+        while (ordre <= NB_CHOIX) {
+            int s = tirer(cumulSujets);
+            if (contient(dejaChoisis, nb, s)) {
+                continue;
+            }
+            dejaChoisis[nb++] = s;
+            choix.add(nouveauChoix(etudiant, parPopularite.get(s), ordre++, binome, false));
+        }
+    }
+
+    private Sujet nouveauSujet(String titre, Enseignant encadrant, boolean valide, boolean propose) {
+        Sujet sujet = new Sujet();
+        sujet.setTitre(titre);
+        sujet.setDescription("Description de " + titre);
+        sujet.setDomaine(DOMAINES[random.nextInt(DOMAINES.length)]);
+        sujet.setDifficulte(random.nextBoolean() ? "Moyenne" : "Difficile");
+        sujet.setDateProposition(LocalDate.of(2024, 10, 1).plusDays(random.nextInt(60)));
+        sujet.setEstValide(valide);
+        sujet.setEstPropose(propose);
+        sujet.setEncadrant(encadrant);
+        return sujet;
+    }
+
+    private static ChoixEtudiant nouveauChoix(Etudiant etudiant, Sujet sujet, int ordre, Etudiant binome,
+                                              boolean propose) {
+        ChoixEtudiant choix = new ChoixEtudiant();
+        choix.setEtudiant(etudiant);
+        choix.setSujet(sujet);
+        choix.setOrdrePreference(ordre);
+        choix.setBinome(binome);
+        choix.setEstPropose(propose);
+        return choix;
+    }
+
+    // Fonction de répartition de la loi de Zipf sur n rangs
+    private static double[] cumulZipf(int n) {
+        double[] cumul = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            total += 1 / Math.pow(k + 1, EXPOSANT_ZIPF);
+            cumul[k] = total;
+        }
+        for (int k = 0; k < n; k++) {
+            cumul[k] /= total;
+        }
+        return cumul;
+    }
+
+    private int tirer(double[] cumul) {
+        int i = Arrays.binarySearch(cumul, random.nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, cumul.length - 1);
+    }
+
+    private static boolean contient(int[] valeurs, int taille, int valeur) {
+        for (int i = 0; i < taille; i++) {
+            if (valeurs[i] == valeur) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public record Cohorte(List<Enseignant> enseignants, List<Sujet> sujets,
+                          List<Etudiant> etudiants, List<ChoixEtudiant> choix) {
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.entity;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link StageStatus#fromLabel}, appelé pour chaque stage lu en base (via le
+ * convertisseur JPA) et pour chaque statut reçu en JSON. Les libellés
+ * reprennent les variantes rencontrées : casse, espaces, accents.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class StageStatusBenchmark {
+
+    private final String[] libelles = {
+            "En attente", "En cours", "Validé", "Annulé",
+            "en attente", " EN COURS ", "validé", "ANNULÉ"
+    };
+
+    private int i;
+
+    @Benchmark
+    public StageStatus fromLabel() {
+        i = (i + 1) % libelles.length;
+        return StageStatus.fromLabel(libelles[i]);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.services;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.dto.AffectationDTO;
+import com.example.demo.dto.EtudiantDTO;
+import com.example.demo.dto.ProjetProposeDTO;
+
+/**
+ * Conversions entité -> DTO des services. Chaque opération convertit
+ * l'élément suivant du {@link JeuDeDonnees}, pour ne pas mesurer toujours le
+ * même objet. A lancer avec {@code -prof gc} pour suivre les allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ConversionsBenchmark {
+
+    private int iAffectation;
+    private int iSujet;
+    private int iEtudiant;
+
+    @Benchmark
+    public AffectationDTO affectation(JeuDeDonnees donnees) {
+        iAffectation = (iAffectation + 1) % donnees.affectations.size();
+        return AffectationDTO.fromEntity(donnees.affectations.get(iAffectation));
+    }
+
+    @Benchmark
+    public ProjetProposeDTO sujet(JeuDeDonnees donnees) {
+        iSujet = (iSujet + 1) % donnees.sujets.size();
+        return ProjetProposeDTO.fromEntity(donnees.sujets.get(iSujet));
+    }
+
+    @Benchmark
+    public EtudiantDTO etudiant(JeuDeDonnees donnees) {
+        iEtudiant = (iEtudiant + 1) % donnees.etudiants.size();
+        return EtudiantDTO.fromEntity(donnees.etudiants.get(iEtudiant));
+    }
+}
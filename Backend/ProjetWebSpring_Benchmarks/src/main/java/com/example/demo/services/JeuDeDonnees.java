@@ -0,0 +1,89 @@
+package com.example.demo.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.demo.benchmark.GenerateurCohorte;
+import com.example.demo.benchmark.GenerateurCohorte.Cohorte;
+import com.example.demo.entity.Affectation;
+import com.example.demo.entity.ChoixEtudiant;
+import com.example.demo.entity.Etudiant;
+import com.example.demo.entity.Sujet;
+
+/**
+ * Graphe d'objets réaliste partagé par les bancs d'essai : une promotion du
+ * {@link GenerateurCohorte} (graine fixe), des technologies sur les sujets et
+ * une affectation par premier choix disponible, en solo ou en binôme, avec
+ * l'encadrant du sujet (parfois absent).
+ */
+@State(Scope.Benchmark)
+public class JeuDeDonnees {
+
+    private static final String[] TECHNOLOGIES = {"Java", "Spring", "Angular", "Python", "Docker", "MySQL", "React"};
+
+    @Param("2000")
+    public int nbEtudiants;
+
+    public List<Etudiant> etudiants;
+    public List<Sujet> sujets;
+    public List<Affectation> affectations;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        Cohorte cohorte = new GenerateurCohorte(42).generer(nbEtudiants);
+        etudiants = cohorte.etudiants();
+        sujets = cohorte.sujets();
+
+        int id = 1;
+        for (Etudiant e : etudiants) {
+            e.setIdEtudiant(id++);
+        }
+        id = 1;
+        for (Sujet s : sujets) {
+            s.setId(id);
+            List<String> technologies = new ArrayList<>();
+            for (int t = 0; t < 1 + id % 4; t++) {
+                technologies.add(TECHNOLOGIES[(id + t) % TECHNOLOGIES.length]);
+            }
+            s.setTechnologies(technologies);
+            id++;
+        }
+
+        // Par identifiant : le hashCode des entités (@Data) parcourt tout le graphe
+        Set<Integer> sujetsPris = new HashSet<>();
+        Set<Integer> etudiantsPris = new HashSet<>();
+        affectations = new ArrayList<>();
+        for (ChoixEtudiant c : cohorte.choix()) {
+            Etudiant binome = c.getBinome();
+            if (sujetsPris.contains(c.getSujet().getId())
+                    || etudiantsPris.contains(c.getEtudiant().getIdEtudiant())
+                    || (binome != null && etudiantsPris.contains(binome.getIdEtudiant()))) {
+                continue;
+            }
+            Affectation a = new Affectation();
+            a.setId(affectations.size() + 1);
+            a.setDateAffectation(LocalDate.of(2025, 1, 15));
+            a.setSujet(c.getSujet());
+            a.setEtudiant1(c.getEtudiant());
+            a.setEtudiant2(binome);
+            // Un sujet sur dix sans encadrant pour couvrir la branche "Non assigné"
+            a.setEncadrant(affectations.size() % 10 == 0 ? null : c.getSujet().getEncadrant());
+            a.getEtudiant1().setEncadrant(a.getEncadrant());
+            sujetsPris.add(c.getSujet().getId());
+            etudiantsPris.add(c.getEtudiant().getIdEtudiant());
+            if (binome != null) {
+                etudiantsPris.add(binome.getIdEtudiant());
+            }
+            affectations.add(a);
+        }
+    }
+}
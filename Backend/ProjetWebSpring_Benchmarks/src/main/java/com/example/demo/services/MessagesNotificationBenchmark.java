@@ -0,0 +1,42 @@
+package com.example.demo.services;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.services.notification.MessagesAffectation;
+
+/**
+ * Construction des messages d'email ({@link MessagesAffectation}), sur les
+ * affectations du {@link JeuDeDonnees} (solo, binôme, sans encadrant).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class MessagesNotificationBenchmark {
+
+    private int i;
+
+    @Benchmark
+    public String messageAffectation(JeuDeDonnees donnees) {
+        i = (i + 1) % donnees.affectations.size();
+        return MessagesAffectation.affectation(donnees.affectations.get(i));
+    }
+
+    @Benchmark
+    public String messageAnnulation(JeuDeDonnees donnees) {
+        i = (i + 1) % donnees.affectations.size();
+        return MessagesAffectation.annulation(donnees.affectations.get(i));
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Compte les requêtes SQL préparées par Hibernate sur le thread courant.
+ * Un lot JDBC n'est préparé qu'une fois : le compteur reflète donc le nombre
+ * d'allers-retours avec la base. Déclaré dans application.properties
+ * (hibernate.session_factory.statement_inspector).
+ */
+public class CompteurRequetesSql implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<int[]> COMPTEUR = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COMPTEUR.get()[0]++;
+        return sql;
+    }
+
+    public static void reinitialiser() {
+        COMPTEUR.get()[0] = 0;
+    }
+
+    public static int valeur() {
+        return COMPTEUR.get()[0];
+    }
+}
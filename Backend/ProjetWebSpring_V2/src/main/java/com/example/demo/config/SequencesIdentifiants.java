@@ -0,0 +1,51 @@
+package com.example.demo.config;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Les identifiants d'Affectation, de Notification et d'EmailSortant sont tirés par blocs
+ * d'une table de séquence (et non plus générés par AUTO_INCREMENT) pour que
+ * Hibernate puisse regrouper les INSERT. Au démarrage, chaque séquence est
+ * recalée au-dessus du plus grand identifiant déjà présent, ce qui couvre les
+ * bases créées avant le changement de stratégie.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SequencesIdentifiants implements ApplicationRunner {
+
+    // Doit rester égal à allocationSize des @SequenceGenerator
+    private static final int TAILLE_BLOC = 50;
+
+    private static final String[][] SEQUENCES = {
+            {"affectation", "affectation_seq"},
+            {"notification", "notification_seq"},
+            {"email_sortant", "email_sortant_seq"},
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String[] sequence : SEQUENCES) {
+            try {
+                Integer max = jdbcTemplate.queryForObject(
+                        "SELECT COALESCE(MAX(id), 0) FROM " + sequence[0], Integer.class);
+                int minimum = max + TAILLE_BLOC + 1;
+                int modifiees = jdbcTemplate.update(
+                        "UPDATE " + sequence[1] + " SET next_val = ? WHERE next_val < ?", minimum, minimum);
+                if (modifiees > 0) {
+                    log.info("Séquence {} recalée à {}", sequence[1], minimum);
+                }
+            } catch (Exception e) {
+                log.warn("Impossible de recaler la séquence {} : {}", sequence[1], e.getMessage());
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.controller;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,14 +11,18 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.demo.dto.ProjetProposeDTO;
+import com.example.demo.dto.StatistiquesEmailsDTO;
 import com.example.demo.entity.Administrateur;
 import com.example.demo.entity.Sujet;
 import com.example.demo.services.AdministrateurService;
 import com.example.demo.services.SujetService;
+import com.example.demo.services.notification.ArchivageNotifications;
+import com.example.demo.services.notification.DispatcheurEmails;
 
 /**
  * Contrleur REST pour la gestion administrative des sujets de projets.
@@ -32,6 +37,12 @@ public class AdministrateurController {
 
     @Autowired
     private AdministrateurService administrateurService;
+
+    @Autowired
+    private DispatcheurEmails dispatcheurEmails;
+
+    @Autowired
+    private ArchivageNotifications archivageNotifications;
     /**
      * Rcupre tous les sujets en attente de validation.
      */
@@ -119,6 +130,27 @@ public class AdministrateurController {
         );
     }
     
+    /**
+     * tat de l'envoi des emails : file d'attente, pool d'envoi, latence
+     * SMTP et checs.
+     */
+    @GetMapping("/emails/statistiques")
+    public ResponseEntity<StatistiquesEmailsDTO> getStatistiquesEmails() {
+        return ResponseEntity.ok(dispatcheurEmails.statistiques());
+    }
+
+    /**
+     * Lance l'archivage des notifications lues anciennes sans attendre le
+     * passage planifi : 202 si l'archivage dmarre en tche de fond, 409 si
+     * un archivage est dj en cours.
+     */
+    @PostMapping("/notifications/archivage")
+    public ResponseEntity<Map<String, Boolean>> archiverNotifications() {
+        boolean demarre = archivageNotifications.lancer();
+        return ResponseEntity.status(demarre ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(Map.of("demarre", demarre));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Administrateur> getAdminInfo(@PathVariable Integer id) {
         Optional<Administrateur> administrateur = administrateurService.getAdministrateurById(id);
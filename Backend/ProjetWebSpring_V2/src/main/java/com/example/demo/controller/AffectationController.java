@@ -6,6 +6,9 @@ import lombok.RequiredArgsConstructor;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,10 +16,19 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.demo.dto.AffectationDTO;
+import com.example.demo.dto.HistoriqueAffectationDTO;
+import com.example.demo.dto.StatutTacheAffectationDTO;
 import com.example.demo.services.AffectationService;
+import com.example.demo.services.HistoriqueAffectationService;
+import com.example.demo.services.TacheAffectationService;
+import com.example.demo.services.affectation.AffectationEnCoursException;
+import com.example.demo.services.affectation.EchangeAffectation;
+import com.example.demo.services.affectation.ModeAffectation;
 
 @RestController
 @RequestMapping("/api/affectations")
@@ -24,18 +36,92 @@ import com.example.demo.services.AffectationService;
 @CrossOrigin(origins = "http://localhost:3000", allowCredentials = "true")
 public class AffectationController {
     private final AffectationService affectationService;
+    private final TacheAffectationService tacheAffectationService;
+    private final HistoriqueAffectationService historiqueAffectationService;
 
+    /**
+     * Lance l'affectation automatique en tche de fond et renvoie la tche
+     * cre (202), ou la tche dj en cours (409).
+     */
     @PostMapping("/automatique")
-    public ResponseEntity<String> lancerAffectationAutomatique() {
+    public ResponseEntity<StatutTacheAffectationDTO> lancerAffectationAutomatique(
+            @RequestParam(defaultValue = "GLOUTON") ModeAffectation mode,
+            @RequestParam(defaultValue = "false") boolean parallele,
+            @RequestParam(required = false) String anneeUniversitaire) {
+        TacheAffectationService.Demarrage demarrage =
+                tacheAffectationService.demarrer(mode, parallele, anneeUniversitaire);
+        return ResponseEntity.status(demarrage.demarree() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(demarrage.statut());
+    }
+
+    @GetMapping("/automatique/{tacheId}")
+    public ResponseEntity<StatutTacheAffectationDTO> getStatutAffectationAutomatique(@PathVariable String tacheId) {
+        return tacheAffectationService.statut(tacheId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/automatique/{tacheId}")
+    public ResponseEntity<StatutTacheAffectationDTO> annulerAffectationAutomatique(@PathVariable String tacheId) {
+        return tacheAffectationService.annuler(tacheId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping("/simulation")
+    public ResponseEntity<?> simulerAffectation(
+            @RequestParam(defaultValue = "GLOUTON") ModeAffectation mode,
+            @RequestParam(defaultValue = "false") boolean parallele,
+            @RequestParam(required = false) Integer capaciteEncadrant,
+            @RequestParam(defaultValue = "false") boolean depuisZero,
+            @RequestParam(defaultValue = "false") boolean rafraichir) {
         try {
-            affectationService.executerAffectationAutomatique();
-            return ResponseEntity.ok("L'affectation automatique a t excute avec succs");
+            return ResponseEntity.ok(affectationService.simulerAffectation(
+                    mode, parallele, capaciteEncadrant, depuisZero, rafraichir));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
-                    .body("Erreur lors de l'affectation automatique: " + e.getMessage());
+                    .body("Erreur lors de la simulation d'affectation: " + e.getMessage());
         }
     }
     
+    /**
+     * Export en flux de la campagne (CSV ou binaire),  traiter hors ligne
+     * par AffectationHorsLigne.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exporterCampagne(
+            @RequestParam(defaultValue = "CSV") EchangeAffectation.Format format) {
+        boolean binaire = format == EchangeAffectation.Format.BINAIRE;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"campagne." + (binaire ? "bin" : "csv") + "\"")
+                .contentType(binaire ? MediaType.APPLICATION_OCTET_STREAM : MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                .body(sortie -> affectationService.exporterCampagne(sortie, format));
+    }
+
+    @GetMapping("/historique")
+    public ResponseEntity<List<HistoriqueAffectationDTO>> listerHistorique() {
+        return ResponseEntity.ok(historiqueAffectationService.lister());
+    }
+
+    /**
+     * Revient  l'tat enregistr par une excution : l'tat qui en a rsult
+     * ou, avec {@code etatAvant=true}, celui qui la prcdait (annulation).
+     * Sans {@code notifier=true}, aucune notification n'est envoye.
+     * Refuse (409) pendant une affectation automatique ou une rparation.
+     */
+    @PostMapping("/historique/{id}/restauration")
+    public ResponseEntity<?> restaurerHistorique(
+            @PathVariable Integer id,
+            @RequestParam(defaultValue = "false") boolean etatAvant,
+            @RequestParam(defaultValue = "false") boolean notifier) {
+        try {
+            return ResponseEntity.ok(affectationService.restaurerHistorique(id, etatAvant, notifier));
+        } catch (AffectationEnCoursException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
     @GetMapping
     public ResponseEntity<List<AffectationDTO>> listerToutesAffectations() {
         return ResponseEntity.ok(affectationService.listerToutesAffectations());
@@ -67,10 +153,22 @@ public class AffectationController {
     }
     
 
+    /**
+     * Supprime une affectation. Avec {@code reaffecter=true}, le sujet et les
+     * tudiants librs sont raffects localement et les affectations
+     * cres ou modifies sont renvoyes. Refuse (409) pendant une
+     * affectation automatique ou une restauration.
+     */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> supprimerAffectation(@PathVariable Long id) {
-        affectationService.supprimerAffectation(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<?> supprimerAffectation(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean reaffecter) {
+        try {
+            List<AffectationDTO> modifiees = affectationService.supprimerAffectation(id, reaffecter);
+            return reaffecter ? ResponseEntity.ok(modifiees) : ResponseEntity.noContent().build();
+        } catch (AffectationEnCoursException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
     }
     
 }
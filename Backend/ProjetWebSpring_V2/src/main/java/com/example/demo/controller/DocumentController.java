@@ -17,6 +17,8 @@ import com.example.demo.dto.DocumentDTO;
 import com.example.demo.entity.TypeDocument;
 import com.example.demo.services.DocumentService;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 @RestController
 @RequestMapping("/api/documents")
 @RequiredArgsConstructor
@@ -51,6 +53,24 @@ public class DocumentController {
         return ResponseEntity.ok(dto);
     }
 
+    /**
+     * Dépôt en flux pour les gros fichiers (rapports de stage) : le corps de
+     * la requête est le fichier lui-même (Content-Type du fichier, pas de
+     * multipart) et il est écrit directement à son emplacement final.
+     */
+    @PostMapping("/upload/flux")
+    public ResponseEntity<DocumentDTO> uploadDocumentFlux(
+            @RequestParam("nomFichier") String nomFichier,
+            @RequestParam("type") TypeDocument type,
+            @RequestParam(name = "stageId", required = false) Integer stageId,
+            @RequestParam("etudiantId") Integer etudiantId,
+            HttpServletRequest request
+    ) throws IOException {
+        DocumentDTO dto = documentService.uploadDocumentFlux(stageId, request.getInputStream(),
+                request.getContentLengthLong(), nomFichier, request.getContentType(), type, etudiantId);
+        return ResponseEntity.ok(dto);
+    }
+
     @PutMapping("/{id}/validate")
     public ResponseEntity<DocumentDTO> validateDocument(@PathVariable Integer id) {
         return ResponseEntity.ok(documentService.validateDocument(id));
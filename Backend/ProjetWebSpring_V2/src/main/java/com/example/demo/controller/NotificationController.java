@@ -0,0 +1,70 @@
+package com.example.demo.controller;
+
+import java.util.Map;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.dto.PageNotificationsDTO;
+import com.example.demo.services.NotificationService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000", allowCredentials = "true")
+public class NotificationController {
+    private final NotificationService notificationService;
+
+    /**
+     * Fil de notifications de l'utilisateur, par pages de {@code taille}.
+     * Le {@code curseurSuivant} de la réponse donne la page suivante.
+     */
+    @GetMapping("/utilisateur/{userId}")
+    public ResponseEntity<?> getNotifications(@PathVariable Integer userId,
+                                              @RequestParam(required = false) String curseur,
+                                              @RequestParam(defaultValue = "20") int taille) {
+        try {
+            PageNotificationsDTO page = notificationService.getNotifications(userId, curseur, taille);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Badge : lu en mémoire, sans COUNT à chaque rafraîchissement
+    @GetMapping("/utilisateur/{userId}/non-lues")
+    public ResponseEntity<Map<String, Integer>> getNbNonLues(@PathVariable Integer userId) {
+        return ResponseEntity.ok(Map.of("nbNonLues", notificationService.getNbNonLues(userId)));
+    }
+
+    /**
+     * Flux SSE : événement "non-lues" à la connexion, puis un événement
+     * "notification" par nouvelle notification de l'utilisateur.
+     */
+    @GetMapping(path = "/utilisateur/{userId}/flux", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter abonner(@PathVariable Integer userId) {
+        return notificationService.abonner(userId);
+    }
+
+    @PutMapping("/utilisateur/{userId}/lues")
+    public ResponseEntity<Map<String, Integer>> marquerToutesLues(@PathVariable Integer userId) {
+        return ResponseEntity.ok(Map.of("nbMarquees", notificationService.marquerToutesLues(userId)));
+    }
+
+    @PutMapping("/utilisateur/{userId}/{notificationId}/lue")
+    public ResponseEntity<Void> marquerLue(@PathVariable Integer userId, @PathVariable Integer notificationId) {
+        return notificationService.marquerLue(userId, notificationId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
@@ -26,7 +26,11 @@ public class AffectationDTO {
             dto.setEtudiant2(affectation.getEtudiant2().getPrenom() + " " + affectation.getEtudiant2().getNom());
         }
         dto.setSujet(affectation.getSujet().getTitre());
-        dto.setEnseignant(affectation.getEncadrant().getPrenom() + " " + affectation.getEncadrant().getNom());
+        if (affectation.getEncadrant() != null) {
+            dto.setEnseignant(affectation.getEncadrant().getPrenom() + " " + affectation.getEncadrant().getNom());
+        } else {
+            dto.setEnseignant("Non assign");
+        }
         dto.setDateAffectation(affectation.getDateAffectation());
         return dto;
     }
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangementAffectationDTO {
+    private String etudiant;
+    private String sujetActuel; // null si l'étudiant n'est pas encore affecté
+    private String sujetPropose; // null si l'étudiant perdrait son affectation
+    private String type; // NOUVELLE, CHANGEMENT, RETRAIT
+}
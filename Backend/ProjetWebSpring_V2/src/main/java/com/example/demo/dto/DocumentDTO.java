@@ -14,5 +14,7 @@ public class DocumentDTO {
     private Integer etudiantId;
     private Integer stageId;
     private String nomFichier;
+    private Long taille;
+    private String empreinteSha256;
     
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.example.demo.dto;
 
+import com.example.demo.entity.Etudiant;
+
 import lombok.Data;
 
 @Data
@@ -19,4 +21,27 @@ public class EtudiantDTO {
     public String getNomComplet() {
         return prenom + " " + nom;
     }
+
+    public static EtudiantDTO fromEntity(Etudiant etudiant) {
+        if (etudiant == null) {
+            return null;
+        }
+        
+        EtudiantDTO dto = new EtudiantDTO();
+        dto.setId(etudiant.getIdEtudiant());
+        dto.setPrenom(etudiant.getPrenom());
+        dto.setNom(etudiant.getNom());
+        dto.setEmail(etudiant.getEmail());
+        dto.setSection(etudiant.getSection());
+        dto.setGroupe(etudiant.getGroupe());
+        dto.setMoyenne(etudiant.getMoyenne());
+        dto.setOrdreMerite(etudiant.getOrdreMerite());
+        // Ne pas remplir le mot de passe dans la rponse pour des raisons de scurit
+        
+        if (etudiant.getEncadrant() != null) {
+            dto.setEncadrantId(etudiant.getEncadrant().getIdEnseignant());
+            dto.setEncadrantNom(etudiant.getEncadrant().getNomComplet());
+        }
+        return dto;
+    }
 }
\ No newline at end of file
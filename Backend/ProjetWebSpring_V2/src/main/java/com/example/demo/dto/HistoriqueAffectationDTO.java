@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoriqueAffectationDTO {
+    private Integer id;
+    private LocalDateTime dateExecution;
+    private String mode;
+    private int nbAffectationsAvant;
+    private int nbAffectationsApres;
+}
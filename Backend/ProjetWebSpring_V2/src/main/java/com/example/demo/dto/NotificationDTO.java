@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDTO {
+    private Integer id;
+    private String titre;
+    private String message;
+    private String lien;
+    private LocalDateTime dateCreation;
+    private boolean lue;
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageNotificationsDTO {
+    private List<NotificationDTO> notifications;
+    // À renvoyer pour obtenir la page suivante ; null s'il n'y en a plus
+    private String curseurSuivant;
+}
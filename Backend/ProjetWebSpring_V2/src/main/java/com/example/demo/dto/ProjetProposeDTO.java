@@ -5,6 +5,8 @@ package com.example.demo.dto;
 import java.time.LocalDate;
 import java.util.List;
 
+import com.example.demo.entity.Sujet;
+
 import lombok.Data;
 
 @Data
@@ -34,6 +36,27 @@ public class ProjetProposeDTO {
         this.dateProposition = dateProposition;
     }
 
+    public static ProjetProposeDTO fromEntity(Sujet sujet) {
+        String status;
+        if (sujet.getEstValide() == null) {
+            status = "En attente";
+        } else if (sujet.getEstValide()) {
+            status = "Valid";
+        } else {
+            status = "Rejet";
+        }
+        return new ProjetProposeDTO(
+                sujet.getId(),
+                sujet.getTitre(),
+                sujet.getDescription(),
+                sujet.getDomaine(),
+                sujet.getDifficulte(),
+                sujet.getTechnologies(),
+                status,
+                sujet.getDateProposition()
+        );
+    }
+
     // Getters et setters
     // ... ( gnrer avec Lombok ou manuellement)
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class RapportAffectation {
+    private String mode;
+    // Ligne d'historique permettant de revenir sur cette exécution
+    private Integer historiqueId;
+    private int nbAffectations;
+    private int nbPremierChoix;
+    private double valeurObjectif;
+    private long dureeCalculMs;
+    // Choix ignorés car incompatibles avec les binômes retenus
+    private int nbChoixEcartes;
+    // Requêtes SQL préparées pendant l'exécution (chargement, écriture, notifications)
+    private int nbRequetesSql;
+    // Étudiants encadrés par enseignant à la fin de l'exécution (id enseignant -> charge)
+    private Map<Integer, Integer> chargeParEncadrant;
+    // Nombre d'enseignants par charge (charge -> nombre d'enseignants)
+    private Map<Integer, Integer> histogrammeCharges;
+}
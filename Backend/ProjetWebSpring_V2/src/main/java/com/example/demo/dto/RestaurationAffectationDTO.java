@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class RestaurationAffectationDTO {
+    private Integer historiqueId; // ligne d'historique créée par la restauration
+    private int nbSupprimees;
+    private int nbCreees;
+    private int nbInchangees;
+    private int nbIgnorees; // tuples dont le sujet ou un étudiant n'existe plus
+    private int nbHorsCapacite; // tuples non restaurés : l'encadrant aurait dépassé sa capacité (STRICTE)
+    private List<Integer> encadrantsEnDepassement; // encadrants au-delà de leur capacité après restauration
+}
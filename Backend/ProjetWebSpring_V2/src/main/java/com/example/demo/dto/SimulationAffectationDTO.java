@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class SimulationAffectationDTO {
+    private RapportAffectation rapport;
+    private boolean depuisZero;
+    private List<AffectationDTO> affectations;
+    private List<ChangementAffectationDTO> changements;
+    private int nbNouvelles;
+    private int nbChangements;
+    private int nbRetraits;
+    private int nbInchangees;
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class StatistiquesEmailsDTO {
+    // Table email_sortant
+    private long nbEnAttente;
+    // Événements en attente du prochain récapitulatif
+    private long nbARegrouper;
+    private long nbAbandonnes;
+    // Pool d'envoi (depuis le démarrage)
+    private int nbThreads;
+    private int tailleFile;
+    private int nbEnCours;
+    private long nbSessions;
+    private long nbEnvoyes;
+    private long nbEchecs;
+    // Durée d'une session SMTP (une connexion, plusieurs emails)
+    private double latenceMoyenneMs;
+    private double latenceMaxMs;
+}
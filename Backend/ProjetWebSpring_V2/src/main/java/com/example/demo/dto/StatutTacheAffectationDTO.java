@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class StatutTacheAffectationDTO {
+    private String id;
+    private String anneeUniversitaire;
+    private String mode;
+    // EN_ATTENTE, EN_COURS, TERMINEE, ANNULEE, ECHOUEE
+    private String etat;
+    private String etape;
+    private int sujetsTraites;
+    private int nbSujets;
+    private int affectationsCreees;
+    private long dureeMs;
+    private RapportAffectation rapport;
+    private String erreur;
+}
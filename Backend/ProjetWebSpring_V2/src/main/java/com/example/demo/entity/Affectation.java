@@ -10,8 +10,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @Data
 public class Affectation {
 
+    // ids tirés par blocs pour permettre les INSERT groupés (voir SequencesIdentifiants)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "affectation_seq")
+    @SequenceGenerator(name = "affectation_seq", sequenceName = "affectation_seq", allocationSize = 50)
     private Integer id;
 
     // correspond à la colonne `dateAffectation` (type DATE)
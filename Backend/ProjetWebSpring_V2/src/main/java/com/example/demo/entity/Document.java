@@ -1,5 +1,6 @@
 package com.example.demo.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -31,6 +32,10 @@ public class Document {
     private TypeDocument type; // RAPPORT, POSTER, ATTESTATION
     
     private String status; // Valid, En attente, Rejet
+
+    private Long taille; // octets
+    @Column(length = 64)
+    private String empreinteSha256; // calcule au dpt, en hexadcimal
     
     @ManyToOne
     @JoinColumn(name = "id_etudiant")
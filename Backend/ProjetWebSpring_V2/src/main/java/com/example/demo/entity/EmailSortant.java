@@ -0,0 +1,56 @@
+package com.example.demo.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Email en attente d'envoi (outbox) : écrit dans la même transaction que
+ * l'opération qui le déclenche, puis envoyé par le DispatcheurEmails une
+ * fois la transaction validée.
+ */
+@Entity
+@Table(name = "email_sortant", indexes = @Index(name = "idx_email_sortant_envoi", columnList = "statut, prochaineTentative"))
+@Data
+public class EmailSortant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_sortant_seq")
+    @SequenceGenerator(name = "email_sortant_seq", sequenceName = "email_sortant_seq", allocationSize = 50)
+    private Integer id;
+
+    // Adresses séparées par des virgules
+    @Column(length = 2000, nullable = false)
+    private String destinataires;
+
+    private String titre;
+
+    @Lob
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatutEmail statut;
+
+    private int tentatives;
+    private LocalDateTime prochaineTentative;
+    private LocalDateTime dateCreation;
+    private LocalDateTime dateEnvoi;
+
+    @Column(length = 500)
+    private String derniereErreur;
+
+    // Événement d'un récapitulatif : clé de fusion avec les événements rapprochés (FusionNotifications)
+    private String cleFusion;
+}
@@ -0,0 +1,45 @@
+package com.example.demo.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Une exécution de l'affectation automatique (ou une restauration) : état
+ * complet des affectations avant et après, encodés par
+ * InstantaneAffectations dans une seule ligne.
+ */
+@Entity
+@Table(name = "historique_affectation")
+@Data
+public class HistoriqueAffectation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false)
+    private LocalDateTime dateExecution;
+
+    // Mode du moteur, ou RESTAURATION
+    @Column(nullable = false, length = 20)
+    private String mode;
+
+    private int nbAffectationsAvant;
+    private int nbAffectationsApres;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] etatAvant;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] etatApres;
+}
@@ -8,13 +8,25 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity
+// Fil d'un utilisateur parcouru par curseur (dateCreation, id) dcroissant ;
+// comptage des non lues sans lecture de la table
+@Table(indexes = {
+        @Index(name = "idx_notification_fil", columnList = "userId, dateCreation, id"),
+        @Index(name = "idx_notification_non_lues", columnList = "userId, lue")
+})
 @Data
 public class Notification {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // ids tirs par blocs pour permettre les INSERT groups (voir SequencesIdentifiants)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_seq")
+    @SequenceGenerator(name = "notification_seq", sequenceName = "notification_seq", allocationSize = 50)
     private Integer id;
     
     private Integer userId; // ID de l'utilisateur (tudiant/enseignant)
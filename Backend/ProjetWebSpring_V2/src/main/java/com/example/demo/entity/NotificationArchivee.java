@@ -0,0 +1,34 @@
+package com.example.demo.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Notification lue et ancienne, sortie de la table notification par
+ * l'ArchivageNotifications. L'id est celui de la notification d'origine ;
+ * {@code periode} (aaaamm de la création) regroupe les lignes par mois pour
+ * les consultations et les purges par plage.
+ */
+@Entity
+@Table(name = "notification_archive", indexes = {
+        @Index(name = "idx_notification_archive_periode", columnList = "periode"),
+        @Index(name = "idx_notification_archive_fil", columnList = "userId, dateCreation")
+})
+@Data
+public class NotificationArchivee {
+    @Id
+    private Integer id;
+
+    private Integer userId;
+    private String titre;
+    private String message;
+    private String lien;
+    private LocalDateTime dateCreation;
+    private boolean lue;
+    private int periode;
+}
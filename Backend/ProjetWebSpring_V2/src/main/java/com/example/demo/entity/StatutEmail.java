@@ -0,0 +1,9 @@
+package com.example.demo.entity;
+
+public enum StatutEmail {
+    // Événement retenu pour le prochain récapitulatif de son destinataire
+    A_REGROUPER,
+    EN_ATTENTE,
+    ENVOYE,
+    ECHEC
+}
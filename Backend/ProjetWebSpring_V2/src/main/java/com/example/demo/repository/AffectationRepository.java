@@ -1,8 +1,10 @@
 package com.example.demo.repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -36,4 +38,23 @@ public interface AffectationRepository extends JpaRepository<Affectation, Long>
     
     @Query("select count(distinct a.encadrant.idEnseignant) from Affectation a")
     	int countNbProjet(@Param("idEnseignant") Long idEnseignant);
+
+    // Tuples (id, sujet, tudiant 1, tudiant 2, encadrant) de toutes les affectations, sans charger les entits
+    @Query("SELECT a.id, s.id, e1.idEtudiant, e2.idEtudiant, enc.idEnseignant FROM Affectation a "
+            + "JOIN a.sujet s LEFT JOIN a.etudiant1 e1 LEFT JOIN a.etudiant2 e2 LEFT JOIN a.encadrant enc")
+    List<Object[]> listerTuples();
+
+    @Query("SELECT a FROM Affectation a JOIN FETCH a.sujet LEFT JOIN FETCH a.etudiant1 "
+            + "LEFT JOIN FETCH a.etudiant2 LEFT JOIN FETCH a.encadrant WHERE a.id IN :ids")
+    List<Affectation> findAllAvecRelations(@Param("ids") Collection<Integer> ids);
+
+    // tudiants encadrs par enseignant d'aprs les affectations existantes : (id enseignant, nombre)
+    @Query("SELECT enc.idEnseignant, COUNT(e1) + COUNT(e2) FROM Affectation a JOIN a.encadrant enc "
+            + "LEFT JOIN a.etudiant1 e1 LEFT JOIN a.etudiant2 e2 GROUP BY enc.idEnseignant")
+    List<Object[]> compterEtudiantsParEncadrant();
+
+    // Suppression ensembliste : un seul DELETE ... WHERE id IN (...)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Affectation a WHERE a.id IN :ids")
+    int supprimerParIds(@Param("ids") Collection<Integer> ids);
 }
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.demo.entity.ChoixEtudiant;
 import com.example.demo.entity.Etudiant;
@@ -25,4 +27,31 @@ public interface ChoixEtudiantRepository extends JpaRepository<ChoixEtudiant, In
     
     @Query("select count(DISTINCT c.etudiant) from ChoixEtudiant c WHERE c.etudiant IS NOT NULL")
     int nbEtudiantsAyantChoisis();
+    
+    // Charger tous les choix en une requte pour l'affectation automatique
+    @Query("""
+            SELECT c
+              FROM ChoixEtudiant c
+              JOIN FETCH c.etudiant
+              JOIN FETCH c.sujet
+              LEFT JOIN FETCH c.binome
+             ORDER BY c.id
+            """)
+    List<ChoixEtudiant> findAllPourAffectation();
+
+    // Mmes jointures, pour les choix d'un ensemble d'tudiants
+    @Query("""
+            SELECT c
+              FROM ChoixEtudiant c
+              JOIN FETCH c.etudiant e
+              JOIN FETCH c.sujet
+              LEFT JOIN FETCH c.binome
+             WHERE e.idEtudiant IN :ids
+             ORDER BY c.id
+            """)
+    List<ChoixEtudiant> findAllPourAffectationParEtudiants(@Param("ids") Collection<Integer> ids);
+
+    // Choix rduits  leurs identifiants : (id tudiant, id sujet, id binme)
+    @Query("SELECT e.idEtudiant, s.id, b.idEtudiant FROM ChoixEtudiant c JOIN c.etudiant e JOIN c.sujet s LEFT JOIN c.binome b")
+    List<Object[]> listerTuples();
 }
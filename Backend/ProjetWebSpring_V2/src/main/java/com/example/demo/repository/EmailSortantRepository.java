@@ -0,0 +1,33 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import com.example.demo.entity.EmailSortant;
+import com.example.demo.entity.StatutEmail;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+public interface EmailSortantRepository extends JpaRepository<EmailSortant, Integer> {
+    List<EmailSortant> findByStatutAndProchaineTentativeLessThanEqualOrderByIdAsc(
+            StatutEmail statut, LocalDateTime date, Pageable pageable);
+
+    long countByStatut(StatutEmail statut);
+
+    // SELECT ... FOR UPDATE SKIP LOCKED (délai -2) : les lignes verrouillées par une autre transaction sont ignorées
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<EmailSortant> findByStatutOrderByDestinatairesAscIdAsc(StatutEmail statut);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<EmailSortant> findByStatutAndCleFusionInAndDateCreationGreaterThanEqualOrderByIdAsc(
+            StatutEmail statut, Collection<String> clesFusion, LocalDateTime depuis);
+}
@@ -1,10 +1,12 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.demo.dto.ProjetEncadreDTO;
 import com.example.demo.entity.Enseignant;
@@ -37,6 +39,10 @@ public interface EnseignantRepository extends JpaRepository<Enseignant, Integer>
 
     @Query("SELECT e FROM Etudiant e WHERE e.encadrant.idEnseignant = :enseignantId")
     List<Etudiant> findEtudiantsEncadres(Integer enseignantId);
+
+    // Destinataires des notifications : [idEnseignant, email]
+    @Query("SELECT e.idEnseignant, e.email FROM Enseignant e WHERE e.idEnseignant IN :ids")
+    List<Object[]> findEmails(@Param("ids") Collection<Integer> ids);
     
     
 }
@@ -1,8 +1,10 @@
 package com.example.demo.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.example.demo.entity.Etudiant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +25,13 @@ public interface EtudiantRepository extends JpaRepository<Etudiant, Integer> {
     @Query("select count(e) from Etudiant e")
     int nbEtd();
     
+    @Query("select e from Etudiant e left join fetch e.encadrant order by e.idEtudiant")
+    List<Etudiant> findAllAvecEncadrant();
+
+    // Destinataires des notifications : [idEtudiant, email]
+    @Query("select e.idEtudiant, e.email from Etudiant e where e.idEtudiant in :ids")
+    List<Object[]> findEmails(@Param("ids") Collection<Integer> ids);
+    
     
 
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.example.demo.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import com.example.demo.dto.HistoriqueAffectationDTO;
+import com.example.demo.entity.HistoriqueAffectation;
+
+public interface HistoriqueAffectationRepository extends JpaRepository<HistoriqueAffectation, Integer> {
+
+    // Sans les instantanés
+    @Query("SELECT new com.example.demo.dto.HistoriqueAffectationDTO(h.id, h.dateExecution, h.mode, "
+            + "h.nbAffectationsAvant, h.nbAffectationsApres) FROM HistoriqueAffectation h ORDER BY h.id DESC")
+    List<HistoriqueAffectationDTO> listerSansInstantanes();
+}
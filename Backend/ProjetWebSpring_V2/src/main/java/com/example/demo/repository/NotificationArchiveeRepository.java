@@ -0,0 +1,21 @@
+package com.example.demo.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.entity.NotificationArchivee;
+
+public interface NotificationArchiveeRepository extends JpaRepository<NotificationArchivee, Integer> {
+
+    // Copie en une requête (INSERT ... SELECT), sans charger les notifications
+    @Modifying
+    @Query("INSERT INTO NotificationArchivee (id, userId, titre, message, lien, dateCreation, lue, periode) "
+            + "SELECT n.id, n.userId, n.titre, n.message, n.lien, n.dateCreation, n.lue, "
+            + "year(n.dateCreation) * 100 + month(n.dateCreation) "
+            + "FROM Notification n WHERE n.id IN :ids")
+    int copier(@Param("ids") Collection<Integer> ids);
+}
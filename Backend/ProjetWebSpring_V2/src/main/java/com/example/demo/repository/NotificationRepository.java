@@ -1,12 +1,62 @@
 package com.example.demo.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.demo.dto.NotificationDTO;
 import com.example.demo.entity.Notification;
 
 public interface NotificationRepository extends JpaRepository<Notification, Integer> {
     List<Notification> findByUserIdOrderByDateCreationDesc(Integer userId);
     int countByUserIdAndLueFalse(Integer userId);
-}
\ No newline at end of file
+    boolean existsByIdAndUserId(Integer id, Integer userId);
+
+    // Candidates  la fusion (FusionNotifications), via idx_notification_fil
+    @Query("SELECT n FROM Notification n WHERE n.userId IN :userIds AND n.dateCreation >= :depuis "
+            + "AND n.lue = false ORDER BY n.dateCreation, n.id")
+    List<Notification> findRecentesNonLues(@Param("userIds") Collection<Integer> userIds,
+                                           @Param("depuis") LocalDateTime depuis);
+
+    // Rconciliation des compteurs de non lues : [userId, nombre]
+    @Query("SELECT n.userId, COUNT(n) FROM Notification n "
+            + "WHERE n.lue = false AND n.userId IN :userIds GROUP BY n.userId")
+    List<Object[]> compterNonLues(@Param("userIds") Collection<Integer> userIds);
+
+    // Fil par curseur (dateCreation, id) : parcourt l'index idx_notification_fil sans OFFSET
+    @Query("SELECT new com.example.demo.dto.NotificationDTO(n.id, n.titre, n.message, n.lien, n.dateCreation, n.lue) "
+            + "FROM Notification n WHERE n.userId = :userId "
+            + "ORDER BY n.dateCreation DESC, n.id DESC")
+    List<NotificationDTO> premierePage(@Param("userId") Integer userId, Pageable pageable);
+
+    @Query("SELECT new com.example.demo.dto.NotificationDTO(n.id, n.titre, n.message, n.lien, n.dateCreation, n.lue) "
+            + "FROM Notification n WHERE n.userId = :userId "
+            + "AND (n.dateCreation < :date OR (n.dateCreation = :date AND n.id < :id)) "
+            + "ORDER BY n.dateCreation DESC, n.id DESC")
+    List<NotificationDTO> pageApres(@Param("userId") Integer userId, @Param("date") LocalDateTime date,
+                                    @Param("id") Integer id, Pageable pageable);
+
+    // Lot suivant  archiver, par curseur sur l'id : les lignes anciennes ont les plus petits id
+    @Query("SELECT n.id FROM Notification n WHERE n.id > :apres AND n.lue = true "
+            + "AND n.dateCreation < :limite ORDER BY n.id")
+    List<Integer> idsAArchiver(@Param("apres") Integer apres, @Param("limite") LocalDateTime limite,
+                               Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int supprimerParIds(@Param("ids") Collection<Integer> ids);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.lue = true WHERE n.userId = :userId AND n.lue = false")
+    int marquerToutesLues(@Param("userId") Integer userId);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.lue = true WHERE n.id = :id AND n.userId = :userId AND n.lue = false")
+    int marquerLue(@Param("userId") Integer userId, @Param("id") Integer id);
+}
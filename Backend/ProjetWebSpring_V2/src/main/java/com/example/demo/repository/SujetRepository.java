@@ -1,5 +1,6 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 
@@ -37,6 +38,26 @@ public interface SujetRepository extends JpaRepository<Sujet, Integer> {
                )
             """)      List<Sujet> findSujetsValidesNonAffectes();
     
+      // Charger tous les sujets avec leur encadrant et leur affectation en une requte
+      @Query("""
+              SELECT s
+                FROM Sujet s
+                LEFT JOIN FETCH s.encadrant
+                LEFT JOIN FETCH s.affectation
+               ORDER BY s.id
+              """)
+      List<Sujet> findAllPourAffectation();
+
+      // Mmes jointures, pour un ensemble de sujets (vite un SELECT par affectation inverse)
+      @Query("""
+              SELECT s
+                FROM Sujet s
+                LEFT JOIN FETCH s.encadrant
+                LEFT JOIN FETCH s.affectation
+               WHERE s.id IN :ids
+              """)
+      List<Sujet> findAllByIdPourAffectation(@Param("ids") Collection<Integer> ids);
+    
       List<Sujet> findByEncadrant_IdEnseignantAndAffectationIsNotNull(Integer enseignantId);
       List<Sujet> findByEstValideIsNull();
       
@@ -1,104 +1,396 @@
 package com.example.demo.services;
 
-import java.util.Comparator;
-
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.demo.config.CompteurRequetesSql;
 import com.example.demo.dto.AffectationDTO;
+import com.example.demo.dto.ChangementAffectationDTO;
+import com.example.demo.dto.RapportAffectation;
+import com.example.demo.dto.RestaurationAffectationDTO;
+import com.example.demo.dto.SimulationAffectationDTO;
 import com.example.demo.entity.Affectation;
 import com.example.demo.entity.ChoixEtudiant;
 import com.example.demo.entity.Enseignant;
 import com.example.demo.entity.Etudiant;
+import com.example.demo.entity.HistoriqueAffectation;
 import com.example.demo.entity.Sujet;
 import com.example.demo.repository.AffectationRepository;
 import com.example.demo.repository.ChoixEtudiantRepository;
+import com.example.demo.repository.EnseignantRepository;
+import com.example.demo.repository.EtudiantRepository;
 import com.example.demo.repository.SujetRepository;
+import com.example.demo.services.affectation.AffectationEnCoursException;
+import com.example.demo.services.affectation.DonneesAffectation;
+import com.example.demo.services.affectation.EchangeAffectation;
+import com.example.demo.services.affectation.InstanceAffectation;
+import com.example.demo.services.affectation.InstantaneAffectations;
+import com.example.demo.services.affectation.ModeAffectation;
+import com.example.demo.services.affectation.MoteurAffectation;
+import com.example.demo.services.affectation.ParametresAffectation;
+import com.example.demo.services.affectation.PolitiqueCapacite;
+import com.example.demo.services.affectation.ReparationAffectation;
+import com.example.demo.services.affectation.ResultatAffectation;
+import com.example.demo.services.affectation.Satisfaction;
+import com.example.demo.services.affectation.SuiviAffectation;
+import com.example.demo.services.affectation.VoisinageReparation;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import java.time.LocalDate;
 
 @Service
+@Slf4j
 @Transactional
 @RequiredArgsConstructor
 public class AffectationService {
+    private static final int TAILLE_LOT_ENREGISTREMENT = 500;
+
     private final ChoixEtudiantRepository choixRepo;
     private final AffectationRepository affectationRepo;
     private final SujetRepository sujetRepo;
+    private final EtudiantRepository etudiantRepo;
+    private final EnseignantRepository enseignantRepo;
     private final NotificationService notificationService;
+    private final HistoriqueAffectationService historiqueService;
+    private final PlatformTransactionManager transactionManager;
+
+    // Nombre maximal d'tudiants par encadrant (0 = illimit)
+    @Value("${affectation.capacite-encadrant:0}")
+    private int capaciteEncadrant;
+
+    // STRICTE : capacit jamais dpasse ; PENALITE : dpassement pnalis dans le mode OPTIMAL
+    @Value("${affectation.politique-capacite:STRICTE}")
+    private PolitiqueCapacite politiqueCapacite;
 
-    public void executerAffectationAutomatique() {
-        // 1. Traiter d'abord les sujets proposs par les tudiants
-        List<ChoixEtudiant> propositionsEtudiants = choixRepo.findByEstProposeTrue();
-        traiterPropositionsEtudiants(propositionsEtudiants);
+    @Value("${affectation.penalite-depassement:1000}")
+    private long penaliteDepassement;
 
-        // 2. Affecter les sujets standard selon le mrite
-        //List<Sujet> sujetsStandard = sujetRepo.findByEstValideTrueAndEstProposeFalse();
-       // sujetsStandard.forEach(this::affecterSujetSelonMerite);
-        sujetRepo.findSujetsValidesNonAffectes().forEach(this::affecterSujetSelonMerite);
+    // Instantan rutilis par les simulations, invalid  chaque modification des
+    // affectations : chaque invalidation passe  une nouvelle gnration
+    private final AtomicReference<Instantane> snapshot = new AtomicReference<>(new Instantane(0, null));
+
+    // Le moteur lit et rcrit tous les sujets et affectations : une seule
+    // excution, rparation ou restauration  la fois, transaction comprise
+    private final ReentrantLock verrouAffectations = new ReentrantLock();
+
+    /**
+     * Calcule et enregistre les affectations et leurs notifications dans une
+     * seule transaction. Les emails sont seulement mis en file (outbox) et
+     * partent aprs validation : aucun appel SMTP ne retient de verrou et un
+     * chec SMTP n'annule plus l'affectation. Une annulation demande via le
+     * {@link SuiviAffectation} avant la validation annule toute la transaction.
+     * Si une rparation ou une restauration est en cours, l'excution attend
+     * qu'elle soit valide.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public RapportAffectation executerAffectationAutomatique(ModeAffectation mode, boolean parallele,
+                                                             SuiviAffectation suivi) {
+        try {
+            verrouAffectations.lockInterruptibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Affectation interrompue");
+        }
+        try {
+            return executerSousVerrou(mode, parallele, suivi);
+        } finally {
+            verrouAffectations.unlock();
+        }
     }
 
-    private void traiterPropositionsEtudiants(List<ChoixEtudiant> propositions) {
-        propositions.forEach(choix -> {
-            if (choix.getSujet().getEstValide()) {
-                creerAffectation(
-                    choix.getSujet(),
-                    choix.getEtudiant(),
-                    choix.getBinome(),
-                    choix.getSujet().getEncadrant()
-                );
-            }
+    private RapportAffectation executerSousVerrou(ModeAffectation mode, boolean parallele, SuiviAffectation suivi) {
+        invaliderInstantane();
+        CompteurRequetesSql.reinitialiser();
+
+        RapportAffectation rapport = new TransactionTemplate(transactionManager).execute(status -> {
+            // 1. Charger tudiants, sujets et choix en quelques requtes groupes
+            suivi.demarrerEtape("CHARGEMENT");
+            DonneesAffectation donnees = chargerDonnees();
+            InstantaneAffectations avant = historiqueService.capturer();
+            suivi.setNbSujets(donnees.getInstance().getNbSujetsDisponibles());
+
+            // 2. Calculer toute l'affectation en mmoire
+            suivi.demarrerEtape("CALCUL");
+            ParametresAffectation parametres = ParametresAffectation.builder()
+                    .mode(mode)
+                    .capaciteEncadrant(capaciteEncadrant)
+                    .politiqueCapacite(politiqueCapacite)
+                    .penaliteDepassement(penaliteDepassement)
+                    .parallele(parallele)
+                    .build();
+            ResultatAffectation resultat = MoteurAffectation.pour(parametres).executer(donnees.getInstance(), suivi);
+
+            // 3. Enregistrer le rsultat par lots
+            suivi.demarrerEtape("ENREGISTREMENT");
+            List<Affectation> affectations = enregistrerAffectations(donnees, resultat, suivi);
+
+            // 4. Notifications et emails en file, dans la mme transaction
+            suivi.demarrerEtape("NOTIFICATION");
+            notificationService.notifierAffectations(affectations);
+
+            // 5. Instantans avant/aprs pour pouvoir revenir sur l'excution
+            HistoriqueAffectation historique = historiqueService.enregistrer(
+                    mode.name(), avant, historiqueService.completer(avant, affectations));
+            suivi.verifierAnnulation();
+
+            RapportAffectation r = construireRapport(mode, donnees.getInstance(), resultat);
+            r.setHistoriqueId(historique.getId());
+            return r;
         });
+        invaliderInstantane();
+        suivi.demarrerEtape("TERMINE");
+
+        rapport.setNbRequetesSql(CompteurRequetesSql.valeur());
+        log.info("Affectation {} : {} affectations, {} requtes SQL",
+                mode, rapport.getNbAffectations(), rapport.getNbRequetesSql());
+        return rapport;
     }
 
-    private void affecterSujetSelonMerite(Sujet sujet) {
-        List<ChoixEtudiant> choix = choixRepo.findBySujetOrderByOrdrePreference(sujet);
-        
-        choix.stream()
-            .filter(c -> !etudiantDejaAffecte(c.getEtudiant()))
-            .sorted(Comparator.comparing(
-                c -> c.getEtudiant().getMoyenne(), 
-                Comparator.reverseOrder()
-            ))
-            .findFirst()
-            .ifPresent(meilleurChoix -> {
-                creerAffectation(
-                    sujet,
-                    meilleurChoix.getEtudiant(),
-                    meilleurChoix.getBinome(),
-                    sujet.getEncadrant()
-                );
-            });
-    }
-
-    private void creerAffectation(Sujet sujet, Etudiant etudiant1, Etudiant etudiant2, Enseignant encadrant) {
-        Affectation affectation = new Affectation();
-        affectation.setSujet(sujet);
-        affectation.setEtudiant1(etudiant1);
-        affectation.setEtudiant2(etudiant2);
-        affectation.setEncadrant(encadrant);
-        affectation.setDateAffectation(LocalDate.now());
-        
-        //affectationRepo.save(affectation);
-        
-         // 2. Lier le sujet  l'affectation (relation bidirectionnelle)
-        sujet.setAffectation(affectation);
+    private RapportAffectation construireRapport(ModeAffectation mode, InstanceAffectation instance,
+                                                 ResultatAffectation resultat) {
+        return RapportAffectation.builder()
+                .mode(mode.name())
+                .nbAffectations(resultat.taille())
+                .nbPremierChoix(Satisfaction.nbPremierChoix(instance, resultat))
+                .valeurObjectif(Satisfaction.totale(instance, resultat))
+                .dureeCalculMs(TimeUnit.NANOSECONDS.toMillis(resultat.getDureeNanos()))
+                .nbChoixEcartes(instance.getNbChoixEcartes())
+                .chargeParEncadrant(chargeParEncadrant(instance, resultat))
+                .histogrammeCharges(histogrammeCharges(instance, resultat))
+                .build();
+    }
 
-        // 3. Sauvegarder
-        affectationRepo.save(affectation);
-        sujetRepo.save(sujet);
-        
-        // Notifications
-        notificationService.notifierAffectation(affectation);
+    // Charge finale (tudiants encadrs) de chaque encadrant, par identifiant
+    private Map<Integer, Integer> chargeParEncadrant(InstanceAffectation instance, ResultatAffectation resultat) {
+        Map<Integer, Integer> charges = new TreeMap<>();
+        for (int enc = 0; enc < instance.getNbEncadrants(); enc++) {
+            charges.put(instance.encadrantId(enc), resultat.chargeEncadrant(enc));
+        }
+        return charges;
+    }
+
+    // Nombre d'encadrants par charge finale
+    private Map<Integer, Integer> histogrammeCharges(InstanceAffectation instance, ResultatAffectation resultat) {
+        Map<Integer, Integer> histogramme = new TreeMap<>();
+        for (int enc = 0; enc < instance.getNbEncadrants(); enc++) {
+            histogramme.merge(resultat.chargeEncadrant(enc), 1, Integer::sum);
+        }
+        return histogramme;
+    }
+
+    /**
+     * crit la campagne actuelle (tudiants, sujets, choix) au format
+     * d'change, pour l'excuter hors ligne avec AffectationHorsLigne.
+     * Mmes requtes que le chargement d'une excution.
+     */
+    public void exporterCampagne(OutputStream sortie, EchangeAffectation.Format format) throws IOException {
+        List<Sujet> sujets = sujetRepo.findAllPourAffectation();
+        // tudiant affect -> encadrant de son affectation (0 si aucun), d'o les charges hors ligne
+        Map<Integer, Integer> encadrantsActuels = new HashMap<>();
+        for (Object[] t : affectationRepo.listerTuples()) {
+            int encadrant = t[4] != null ? (Integer) t[4] : 0;
+            if (t[2] != null) {
+                encadrantsActuels.put((Integer) t[2], encadrant);
+            }
+            if (t[3] != null) {
+                encadrantsActuels.put((Integer) t[3], encadrant);
+            }
+        }
+
+        try (EchangeAffectation.Ecrivain ecrivain = EchangeAffectation.ecrivain(sortie, format)) {
+            for (Etudiant e : etudiantRepo.findAllAvecEncadrant()) {
+                Integer encadrant = encadrantsActuels.get(e.getIdEtudiant());
+                ecrivain.etudiant(e.getIdEtudiant(), e.getMoyenne(), e.getOrdreMerite(),
+                        encadrant != null && encadrant != 0 ? encadrant : null,
+                        encadrant != null);
+            }
+            for (Sujet s : sujets) {
+                ecrivain.sujet(s.getId(), s.getEncadrant() != null ? s.getEncadrant().getIdEnseignant() : null,
+                        Boolean.TRUE.equals(s.getEstValide()), s.getAffectation() != null);
+            }
+            for (ChoixEtudiant c : choixRepo.findAllPourAffectation()) {
+                if (c.getEtudiant() == null || c.getSujet() == null) {
+                    continue;
+                }
+                ecrivain.choix(c.getEtudiant().getIdEtudiant(), c.getSujet().getId(), c.getOrdrePreference(),
+                        c.getBinome() != null ? c.getBinome().getIdEtudiant() : null, c.isEstPropose());
+            }
+        }
+    }
+
+    private void invaliderInstantane() {
+        snapshot.updateAndGet(i -> new Instantane(i.generation() + 1, null));
+    }
+
+    private DonneesAffectation chargerDonnees() {
+        List<Etudiant> etudiants = etudiantRepo.findAllAvecEncadrant();
+        List<Sujet> sujets = sujetRepo.findAllPourAffectation();
+        List<ChoixEtudiant> choix = choixRepo.findAllPourAffectation();
+        return DonneesAffectation.depuis(etudiants, sujets, choix, chargesEncadrants());
+    }
+
+    /**
+     * Seuls les tudiants, sujets et choix que la rparation peut toucher sont
+     * chargs ; les charges des encadrants restent celles de toute la campagne.
+     */
+    private DonneesAffectation chargerVoisinage(Integer sujetLibere, List<Integer> etudiantsLiberes) {
+        VoisinageReparation voisinage = new VoisinageReparation(choixRepo.listerTuples(), affectationRepo.listerTuples())
+                .explorer(sujetLibere, etudiantsLiberes);
+        Set<Integer> ids = voisinage.getEtudiants();
+        List<ChoixEtudiant> choix = ids.isEmpty() ? List.of() : choixRepo.findAllPourAffectationParEtudiants(ids);
+        return DonneesAffectation.depuis(etudiantRepo.findAllById(ids),
+                sujetRepo.findAllByIdPourAffectation(voisinage.getSujets()), choix, chargesEncadrants());
+    }
+
+    // tudiants dj encadrs par enseignant, d'aprs les affectations existantes
+    private Map<Integer, Integer> chargesEncadrants() {
+        Map<Integer, Integer> charges = new HashMap<>();
+        for (Object[] t : affectationRepo.compterEtudiantsParEncadrant()) {
+            charges.put((Integer) t[0], ((Number) t[1]).intValue());
+        }
+        return charges;
+    }
+
+    private List<Affectation> enregistrerAffectations(DonneesAffectation donnees, ResultatAffectation resultat,
+                                                      SuiviAffectation suivi) {
+        List<Affectation> affectations = construireAffectations(donnees, resultat);
+        // Lier chaque sujet  son affectation (relation bidirectionnelle)
+        affectations.forEach(a -> a.getSujet().setAffectation(a));
+
+        for (int debut = 0; debut < affectations.size(); debut += TAILLE_LOT_ENREGISTREMENT) {
+            suivi.verifierAnnulation();
+            List<Affectation> lot = affectations.subList(debut, Math.min(debut + TAILLE_LOT_ENREGISTREMENT, affectations.size()));
+            // Les ids sont tirs par blocs : les INSERT partent en lots JDBC au flush
+            affectationRepo.saveAll(lot);
+            affectationRepo.flush();
+            suivi.affectationsCreees(lot.size());
+        }
+        return affectations;
+    }
+
+    // Affectations non persistes correspondant au rsultat du moteur
+    private List<Affectation> construireAffectations(DonneesAffectation donnees, ResultatAffectation resultat) {
+        LocalDate aujourdhui = LocalDate.now();
+        List<Affectation> affectations = new ArrayList<>(resultat.taille());
+        for (int i = 0; i < resultat.taille(); i++) {
+            Sujet sujet = donnees.sujet(resultat.sujet(i));
+            Affectation affectation = new Affectation();
+            affectation.setSujet(sujet);
+            affectation.setEtudiant1(donnees.etudiant(resultat.etudiant1(i)));
+            affectation.setEtudiant2(donnees.etudiant(resultat.etudiant2(i)));
+            affectation.setEncadrant(sujet.getEncadrant());
+            affectation.setDateAffectation(aujourdhui);
+            affectations.add(affectation);
+        }
+        return affectations;
+    }
+
+    /**
+     * Excute le moteur sur un instantan en mmoire sans rien crire ni
+     * notifier, et compare le rsultat aux affectations actuelles.
+     * L'instantan est charg au premier appel puis rutilis jusqu'
+     * {@code rafraichir} ou jusqu' la prochaine modification des affectations.
+     *
+     * @param depuisZero recalculer toutes les affectations au lieu de
+     *                   complter les affectations existantes
+     */
+    public SimulationAffectationDTO simulerAffectation(ModeAffectation mode, boolean parallele,
+                                                       Integer capacite, boolean depuisZero, boolean rafraichir) {
+        Instantane lu = snapshot.get();
+        DonneesAffectation donnees = rafraichir ? null : lu.donnees();
+        if (donnees == null) {
+            donnees = chargerDonnees();
+            // Sans effet si une modification a invalid l'instantan pendant le chargement
+            snapshot.compareAndSet(lu, new Instantane(lu.generation(), donnees));
+        }
+
+        InstanceAffectation instance = depuisZero ? donnees.getInstanceVierge() : donnees.getInstance();
+        ParametresAffectation parametres = ParametresAffectation.builder()
+                .mode(mode)
+                .capaciteEncadrant(capacite != null ? capacite : capaciteEncadrant)
+                .politiqueCapacite(politiqueCapacite)
+                .penaliteDepassement(penaliteDepassement)
+                .parallele(parallele)
+                .build();
+        ResultatAffectation resultat = MoteurAffectation.pour(parametres).executer(instance);
+
+        SimulationAffectationDTO simulation = SimulationAffectationDTO.builder()
+                .rapport(construireRapport(mode, instance, resultat))
+                .depuisZero(depuisZero)
+                .affectations(construireAffectations(donnees, resultat).stream()
+                        .map(this::convertToDTO)
+                        .collect(Collectors.toList()))
+                .changements(new ArrayList<>())
+                .build();
+        comparerAuxAffectationsActuelles(donnees, resultat, depuisZero, simulation);
+        return simulation;
     }
 
-    private boolean etudiantDejaAffecte(Etudiant etudiant) {
-        return affectationRepo.existsByEtudiant1OrEtudiant2(etudiant, etudiant);
+    private void comparerAuxAffectationsActuelles(DonneesAffectation donnees, ResultatAffectation resultat,
+                                                  boolean depuisZero, SimulationAffectationDTO simulation) {
+        int nbEtudiants = donnees.getInstance().getNbEtudiants();
+        int[] proposes = new int[nbEtudiants];
+        for (int e = 0; e < nbEtudiants; e++) {
+            // Sans recalcul complet, les affectations existantes sont conserves
+            proposes[e] = depuisZero ? InstanceAffectation.AUCUN : donnees.sujetActuel(e);
+        }
+        for (int i = 0; i < resultat.taille(); i++) {
+            proposes[resultat.etudiant1(i)] = resultat.sujet(i);
+            if (resultat.etudiant2(i) != InstanceAffectation.AUCUN) {
+                proposes[resultat.etudiant2(i)] = resultat.sujet(i);
+            }
+        }
+
+        for (int e = 0; e < nbEtudiants; e++) {
+            int actuel = donnees.sujetActuel(e);
+            int propose = proposes[e];
+            if (actuel == propose) {
+                if (actuel != InstanceAffectation.AUCUN) {
+                    simulation.setNbInchangees(simulation.getNbInchangees() + 1);
+                }
+                continue;
+            }
+            String type;
+            if (actuel == InstanceAffectation.AUCUN) {
+                type = "NOUVELLE";
+                simulation.setNbNouvelles(simulation.getNbNouvelles() + 1);
+            } else if (propose == InstanceAffectation.AUCUN) {
+                type = "RETRAIT";
+                simulation.setNbRetraits(simulation.getNbRetraits() + 1);
+            } else {
+                type = "CHANGEMENT";
+                simulation.setNbChangements(simulation.getNbChangements() + 1);
+            }
+            simulation.getChangements().add(new ChangementAffectationDTO(
+                    donnees.etudiant(e).getNomComplet(),
+                    actuel != InstanceAffectation.AUCUN ? donnees.sujet(actuel).getTitre() : null,
+                    propose != InstanceAffectation.AUCUN ? donnees.sujet(propose).getTitre() : null,
+                    type));
+        }
     }
 
     public List<AffectationDTO> listerToutesAffectations() {
@@ -112,42 +404,275 @@ public class AffectationService {
                 .map(this::convertToDTO);
     }
 
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public void supprimerAffectation(Long affectationId) {
+        supprimerAffectation(affectationId, false);
+    }
+
+    /**
+     * Supprime l'affectation et, si {@code reaffecter} est vrai, rpare
+     * localement l'affectation : le sujet libr est rattribu et les
+     * tudiants librs replacs sans relancer tout le calcul.
+     *
+     * @return les affectations cres ou modifies par la rparation
+     * @throws AffectationEnCoursException si une affectation automatique ou une
+     *                                     restauration est en cours
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public List<AffectationDTO> supprimerAffectation(Long affectationId, boolean reaffecter) {
+        return sousVerrou(status -> supprimer(affectationId, reaffecter));
+    }
+
+    private List<AffectationDTO> supprimer(Long affectationId, boolean reaffecter) {
         // 1. Trouver l'affectation
         Affectation affectation = affectationRepo.findById(affectationId)
                 .orElseThrow(() -> new EntityNotFoundException("Affectation non trouve"));
         
         // 2. Supprimer la rfrence dans le sujet
+        invaliderInstantane();
         Sujet sujet = affectation.getSujet();
         sujet.setAffectation(null);
-        sujetRepo.save(sujet);
         
         // 3. Supprimer l'affectation
         affectationRepo.delete(affectation);
         
         // 4. Notifier si ncessaire
         notificationService.notifierSuppressionAffectation(affectation);
+
+        if (!reaffecter) {
+            return List.of();
+        }
+        affectationRepo.flush();
+        return reparerApresSuppression(sujet, affectation.getEtudiant1(), affectation.getEtudiant2());
+    }
+
+    private List<AffectationDTO> reparerApresSuppression(Sujet sujetLibere, Etudiant... etudiantsLiberes) {
+        List<Integer> idsLiberes = Arrays.stream(etudiantsLiberes)
+                .filter(Objects::nonNull)
+                .map(Etudiant::getIdEtudiant)
+                .collect(Collectors.toList());
+        DonneesAffectation donnees = chargerVoisinage(sujetLibere.getId(), idsLiberes);
+        int[] etudiants = idsLiberes.stream().mapToInt(donnees::indexEtudiant).toArray();
+        ResultatAffectation mouvements = new ReparationAffectation(donnees, capaciteEncadrant,
+                politiqueCapacite == PolitiqueCapacite.STRICTE)
+                .reparer(donnees.indexSujet(sujetLibere.getId()), etudiants);
+
+        // Rejouer les mouvements dans l'ordre : chacun vise un sujet libre  ce moment-l
+        LocalDate aujourdhui = LocalDate.now();
+        Map<Integer, Affectation> parEtudiant = new HashMap<>();
+        List<Affectation> modifiees = new ArrayList<>();
+        for (int i = 0; i < mouvements.taille(); i++) {
+            int e1 = mouvements.etudiant1(i);
+            int e2 = mouvements.etudiant2(i);
+            Affectation affectation = parEtudiant.get(e1);
+            if (affectation == null) {
+                int actuel = donnees.sujetActuel(e1);
+                affectation = actuel != InstanceAffectation.AUCUN
+                        ? donnees.sujet(actuel).getAffectation()
+                        : new Affectation();
+            }
+            if (affectation.getSujet() != null) {
+                affectation.getSujet().setAffectation(null);
+            }
+            Sujet sujet = donnees.sujet(mouvements.sujet(i));
+            affectation.setSujet(sujet);
+            affectation.setEtudiant1(donnees.etudiant(e1));
+            affectation.setEtudiant2(donnees.etudiant(e2));
+            affectation.setEncadrant(sujet.getEncadrant());
+            affectation.setDateAffectation(aujourdhui);
+            sujet.setAffectation(affectation);
+
+            parEtudiant.put(e1, affectation);
+            if (e2 != InstanceAffectation.AUCUN) {
+                parEtudiant.put(e2, affectation);
+            }
+            Affectation courante = affectation;
+            if (modifiees.stream().noneMatch(a -> a == courante)) {
+                modifiees.add(affectation);
+            }
+        }
+        // Aucune contrainte d'unicit sur le sujet : l'ordre des UPDATE au flush est indiffrent
+        affectationRepo.saveAll(modifiees);
+        affectationRepo.flush();
+        invaliderInstantane();
+
+        notificationService.notifierAffectations(modifiees);
+        return modifiees.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
     }
     
+    /**
+     * Restaure l'tat enregistr dans une ligne d'historique, par diffrence
+     * avec l'tat actuel : les affectations identiques sont conserves, les
+     * autres supprimes par lots (DELETE ... WHERE id IN) et les manquantes
+     * insres par lots JDBC. Les tuples dont le sujet ou un tudiant n'existe
+     * plus sont ignors. Avec une capacit STRICTE, un tuple qui ferait
+     * dpasser la capacit de son encadrant n'est pas restaur ; les encadrants
+     * qui restent au-del sont signals. La restauration est elle-mme historise.
+     *
+     * @param etatAvant revenir  l'tat prcdant l'excution (l'annuler)
+     *                  plutt qu' l'tat qui en a rsult
+     * @param notifier  notifier les tudiants et encadrants concerns, par
+     *                  lots ; sinon la restauration est silencieuse
+     * @throws AffectationEnCoursException si une affectation automatique ou une
+     *                                     rparation est en cours
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public RestaurationAffectationDTO restaurerHistorique(Integer historiqueId, boolean etatAvant, boolean notifier) {
+        return sousVerrou(status -> restaurer(historiqueId, etatAvant, notifier));
+    }
+
+    private RestaurationAffectationDTO restaurer(Integer historiqueId, boolean etatAvant, boolean notifier) {
+        InstantaneAffectations cible = historiqueService.charger(historiqueId, etatAvant);
+        invaliderInstantane();
+
+        // 1. Comparer l'tat actuel  l'instantan, sans charger les entits
+        InstantaneAffectations.Builder actuel = InstantaneAffectations.builder();
+        InstantaneAffectations.Builder apres = InstantaneAffectations.builder();
+        List<Integer> aSupprimer = new ArrayList<>();
+        Set<Integer> sujetsConserves = new HashSet<>();
+        // Charges des encadrants aprs restauration, affectations conserves d'abord
+        Map<Integer, Integer> charges = new HashMap<>();
+        for (Object[] t : affectationRepo.listerTuples()) {
+            Integer sujetId = (Integer) t[1];
+            actuel.ajouter(sujetId, (Integer) t[2], (Integer) t[3], (Integer) t[4]);
+            if (cible.contient(sujetId, valeur(t[2]), valeur(t[3]), valeur(t[4]))) {
+                apres.ajouter(sujetId, (Integer) t[2], (Integer) t[3], (Integer) t[4]);
+                sujetsConserves.add(sujetId);
+                if (t[4] != null) {
+                    charges.merge((Integer) t[4], (t[2] != null ? 1 : 0) + (t[3] != null ? 1 : 0), Integer::sum);
+                }
+            } else {
+                aSupprimer.add((Integer) t[0]);
+            }
+        }
+
+        // 2. Suppression ensembliste (les entits ne sont charges que pour notifier)
+        List<Affectation> supprimees = new ArrayList<>();
+        for (int debut = 0; debut < aSupprimer.size(); debut += TAILLE_LOT_ENREGISTREMENT) {
+            List<Integer> lot = aSupprimer.subList(debut, Math.min(debut + TAILLE_LOT_ENREGISTREMENT, aSupprimer.size()));
+            if (notifier) {
+                supprimees.addAll(affectationRepo.findAllAvecRelations(lot));
+            }
+            affectationRepo.supprimerParIds(lot);
+        }
+
+        // 3. Recrer les affectations manquantes, rfrences charges en trois requtes
+        Set<Integer> idsSujets = new HashSet<>();
+        Set<Integer> idsEtudiants = new HashSet<>();
+        Set<Integer> idsEnseignants = new HashSet<>();
+        for (int i = 0; i < cible.taille(); i++) {
+            if (!sujetsConserves.contains(cible.sujet(i))) {
+                idsSujets.add(cible.sujet(i));
+                idsEtudiants.add(cible.etudiant1(i));
+                idsEtudiants.add(cible.etudiant2(i));
+                idsEnseignants.add(cible.encadrant(i));
+            }
+        }
+        idsEtudiants.remove(InstantaneAffectations.AUCUN);
+        idsEnseignants.remove(InstantaneAffectations.AUCUN);
+        Map<Integer, Sujet> sujets = new HashMap<>();
+        if (!idsSujets.isEmpty()) {
+            sujetRepo.findAllByIdPourAffectation(idsSujets).forEach(sujet -> sujets.put(sujet.getId(), sujet));
+        }
+        Map<Integer, Etudiant> etudiants = etudiantRepo.findAllById(idsEtudiants).stream()
+                .collect(Collectors.toMap(Etudiant::getIdEtudiant, etudiant -> etudiant));
+        Map<Integer, Enseignant> enseignants = enseignantRepo.findAllById(idsEnseignants).stream()
+                .collect(Collectors.toMap(Enseignant::getIdEnseignant, enseignant -> enseignant));
+
+        // Capacit vrifie dans l'ordre de l'instantan, comme lors d'une excution
+        LocalDate aujourdhui = LocalDate.now();
+        List<Affectation> creees = new ArrayList<>();
+        int nbIgnorees = 0;
+        int nbHorsCapacite = 0;
+        for (int i = 0; i < cible.taille(); i++) {
+            if (sujetsConserves.contains(cible.sujet(i))) {
+                continue;
+            }
+            Sujet sujet = sujets.get(cible.sujet(i));
+            Etudiant etudiant1 = etudiants.get(cible.etudiant1(i));
+            Etudiant etudiant2 = etudiants.get(cible.etudiant2(i));
+            if (sujet == null || etudiant1 == null
+                    || (cible.etudiant2(i) != InstantaneAffectations.AUCUN && etudiant2 == null)) {
+                nbIgnorees++;
+                continue;
+            }
+            int encadrantId = cible.encadrant(i);
+            if (capaciteEncadrant > 0 && encadrantId != InstantaneAffectations.AUCUN) {
+                int charge = charges.getOrDefault(encadrantId, 0) + (etudiant2 != null ? 2 : 1);
+                if (charge > capaciteEncadrant && politiqueCapacite == PolitiqueCapacite.STRICTE) {
+                    nbHorsCapacite++;
+                    continue;
+                }
+                charges.put(encadrantId, charge);
+            }
+            Affectation affectation = new Affectation();
+            affectation.setSujet(sujet);
+            affectation.setEtudiant1(etudiant1);
+            affectation.setEtudiant2(etudiant2);
+            affectation.setEncadrant(enseignants.get(cible.encadrant(i)));
+            affectation.setDateAffectation(aujourdhui);
+            sujet.setAffectation(affectation);
+            creees.add(affectation);
+            apres.ajouter(sujet.getId(), etudiant1.getIdEtudiant(),
+                    etudiant2 != null ? etudiant2.getIdEtudiant() : null,
+                    affectation.getEncadrant() != null ? affectation.getEncadrant().getIdEnseignant() : null);
+        }
+        for (int debut = 0; debut < creees.size(); debut += TAILLE_LOT_ENREGISTREMENT) {
+            affectationRepo.saveAll(creees.subList(debut, Math.min(debut + TAILLE_LOT_ENREGISTREMENT, creees.size())));
+            affectationRepo.flush();
+        }
+
+        // 4. Notifications groupes, ou aucune
+        if (notifier) {
+            notificationService.notifierSuppressionsAffectations(supprimees);
+            notificationService.notifierAffectations(creees);
+        }
+
+        HistoriqueAffectation historique = historiqueService.enregistrer("RESTAURATION", actuel.build(), apres.build());
+        invaliderInstantane();
+        List<Integer> enDepassement = capaciteEncadrant <= 0 ? List.of() : charges.entrySet().stream()
+                .filter(charge -> charge.getValue() > capaciteEncadrant)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .collect(Collectors.toList());
+        log.info("Restauration de l'historique {} : {} supprimes, {} cres, {} ignores, {} hors capacit",
+                historiqueId, aSupprimer.size(), creees.size(), nbIgnorees, nbHorsCapacite);
+        return RestaurationAffectationDTO.builder()
+                .historiqueId(historique.getId())
+                .nbSupprimees(aSupprimer.size())
+                .nbCreees(creees.size())
+                .nbInchangees(sujetsConserves.size())
+                .nbIgnorees(nbIgnorees)
+                .nbHorsCapacite(nbHorsCapacite)
+                .encadrantsEnDepassement(enDepassement)
+                .build();
+    }
+
+    /**
+     * Excute l'action dans une transaction, sous le verrou des affectations ;
+     * le verrou n'est rendu qu'aprs la validation. choue immdiatement si
+     * une autre criture d'ensemble est en cours.
+     */
+    private <T> T sousVerrou(TransactionCallback<T> action) {
+        if (!verrouAffectations.tryLock()) {
+            throw new AffectationEnCoursException();
+        }
+        try {
+            return new TransactionTemplate(transactionManager).execute(action);
+        } finally {
+            verrouAffectations.unlock();
+        }
+    }
+
+    private static int valeur(Object id) {
+        return id != null ? (Integer) id : InstantaneAffectations.AUCUN;
+    }
+
  // Mthode utilitaire de conversion
     private AffectationDTO convertToDTO(Affectation a) {
-        String enseignantName;
-        if (a.getEncadrant() != null) {
-            enseignantName = a.getEncadrant().getPrenom() + " " + a.getEncadrant().getNom();
-        } else {
-            enseignantName = "Non assign";
-        }
-
-        return AffectationDTO.builder()
-                .id(a.getId())
-                .etudiant1(a.getEtudiant1().getPrenom() + " " + a.getEtudiant1().getNom())
-                .etudiant2(a.getEtudiant2() != null
-                          ? a.getEtudiant2().getPrenom() + " " + a.getEtudiant2().getNom()
-                          : null)
-                .sujet(a.getSujet().getTitre())
-                .enseignant(enseignantName)
-                .dateAffectation(a.getDateAffectation())
-                .build();
+        return AffectationDTO.fromEntity(a);
     }
 
     
@@ -159,4 +684,7 @@ public class AffectationService {
     	return affectationRepo.countNbProjet(idEns);
     }
    
+    /** Donnes charges pour les simulations, ou null, tiquetes par leur gnration. */
+    private record Instantane(long generation, DonneesAffectation donnees) {
+    }
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.example.demo.services;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
@@ -19,11 +22,22 @@ import com.example.demo.repository.StageRepository;
 import jakarta.persistence.EntityNotFoundException;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -36,36 +50,111 @@ public class DocumentService {
     private final EtudiantService etudiantService;
 
     private final Path rootLocation = Paths.get("uploads/documents");
+    // Taille des blocs copiés ou relus (mémoire constante quelle que soit la taille du fichier)
+    private static final long TAILLE_TRANSFERT = 64 * 1024;
+
     private final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(getClass());
 
+    @Value("${document.upload.taille-max:50MB}")
+    private DataSize tailleMax;
+
+    /**
+     * Dépôt multipart. Le fichier temporaire du multipart est déplacé vers
+     * son emplacement final (simple renommage sur le même disque) au lieu
+     * d'être recopié à travers un tampon ; l'empreinte est calculée en
+     * relisant le fichier par blocs. L'étudiant et le stage sont résolus avant
+     * l'écriture, et le fichier est supprimé si le document ne peut pas être
+     * enregistré.
+     */
     public DocumentDTO uploadDocument(
             Integer stageId,
             MultipartFile file,
             TypeDocument type,
             Integer etudiantId) throws IOException {
 
-        // 1) Prépare le dossier
-        if (!Files.exists(rootLocation)) {
-            Files.createDirectories(rootLocation);
+        if (file.getSize() > tailleMax.toBytes()) {
+            throw new MaxUploadSizeExceededException(tailleMax.toBytes());
         }
 
-        // 2) Sauvegarde physique
+        Document doc = nouveauDocument(stageId, etudiantId);
+
+        // Prépare le dossier et sauvegarde physique ; avec un File absolu, le conteneur
+        // renomme son fichier temporaire (transferTo(Path) recopierait le flux)
         String originalFilename = file.getOriginalFilename();
-        String extension        = originalFilename.substring(originalFilename.lastIndexOf('.'));
-        String newFilename      = UUID.randomUUID() + extension;
-        Path dest               = rootLocation.resolve(newFilename);
-        Files.copy(file.getInputStream(), dest);
+        Path dest = nouveauChemin(originalFilename);
+        file.transferTo(dest.toAbsolutePath().toFile());
+        try {
+            return enregistrer(doc, originalFilename, dest, file.getContentType(), type,
+                    file.getSize(), empreinteSha256(dest));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(dest);
+            throw e;
+        }
+    }
+
+    /**
+     * Dépôt en flux : le corps de la requête est écrit directement à son
+     * emplacement final par FileChannel.transferFrom, en une seule écriture
+     * disque et avec une mémoire constante. La taille est contrôlée et
+     * l'empreinte SHA-256 calculée pendant la copie ; un dépôt interrompu ou
+     * trop gros ne laisse aucun fichier, pas plus qu'un document qui ne peut
+     * pas être enregistré.
+     *
+     * @param tailleAnnoncee Content-Length de la requête, ou -1 s'il est inconnu
+     */
+    public DocumentDTO uploadDocumentFlux(
+            Integer stageId,
+            InputStream corps,
+            long tailleAnnoncee,
+            String nomFichier,
+            String typeFichier,
+            TypeDocument type,
+            Integer etudiantId) throws IOException {
 
-        // 3) Construction de l'entité Document
+        long max = tailleMax.toBytes();
+        if (tailleAnnoncee > max) {
+            throw new MaxUploadSizeExceededException(max);
+        }
+
+        Document doc = nouveauDocument(stageId, etudiantId);
+        Path dest = nouveauChemin(nomFichier);
+        // Écrit sous un nom provisoire, renommé une fois complet
+        Path partiel = dest.resolveSibling(dest.getFileName() + ".part");
+        MessageDigest sha256 = nouveauSha256();
+        long taille = 0;
+        try (ReadableByteChannel source = Channels.newChannel(new DigestInputStream(corps, sha256));
+             FileChannel cible = FileChannel.open(partiel, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long n;
+            // Un octet au-delà de la limite suffit à détecter le dépassement
+            while ((n = cible.transferFrom(source, taille, Math.min(TAILLE_TRANSFERT, max + 1 - taille))) > 0) {
+                taille += n;
+                if (taille > max) {
+                    throw new MaxUploadSizeExceededException(max);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partiel);
+            throw e;
+        }
+        Files.move(partiel, dest, StandardCopyOption.ATOMIC_MOVE);
+
+        try {
+            return enregistrer(doc, nomFichier, dest, typeFichier, type,
+                    taille, HexFormat.of().formatHex(sha256.digest()));
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(dest);
+            throw e;
+        }
+    }
+
+    /**
+     * Document rattaché à l'étudiant et au stage éventuel, résolus avant toute
+     * écriture sur disque : un étudiant inconnu ne laisse aucun fichier.
+     */
+    private Document nouveauDocument(Integer stageId, Integer etudiantId) {
         Document doc = new Document();
-        doc.setNom(originalFilename);
-        doc.setCheminFichier(dest.toString());
-        doc.setTypeFichier(file.getContentType());
-        doc.setType(type);
-        doc.setDateUpload(LocalDate.now());
-        doc.setStatus("En attente");
 
-        // 4) Association Etudiant
+        // 1) Association Etudiant
         EtudiantDTO etuDto = etudiantService.getEtudiantById(etudiantId);
         Etudiant etu = new Etudiant();
         etu.setIdEtudiant(etuDto.getId());
@@ -73,7 +162,7 @@ public class DocumentService {
         etu.setNom(etuDto.getNom());
         doc.setEtudiant(etu);
 
-        // 5) Association facultative du Stage
+        // 2) Association facultative du Stage
         if (stageId != null) {
             stageRepository.findById(stageId)
                 .ifPresentOrElse(
@@ -81,17 +170,74 @@ public class DocumentService {
                     () -> logger.warn("Stage {} non trouvé, on l’ignore", stageId)
                 );
         }
+        return doc;
+    }
+
+    private DocumentDTO enregistrer(
+            Document doc,
+            String originalFilename,
+            Path dest,
+            String typeFichier,
+            TypeDocument type,
+            long taille,
+            String empreinte) {
 
-        // 6) Persistance et MAJ du statut de stage
+        // 3) Fichier déposé
+        doc.setNom(originalFilename);
+        doc.setCheminFichier(dest.toString());
+        doc.setTypeFichier(typeFichier);
+        doc.setType(type);
+        doc.setDateUpload(LocalDate.now());
+        doc.setStatus("En attente");
+        doc.setTaille(taille);
+        doc.setEmpreinteSha256(empreinte);
+
+        // 4) Persistance et MAJ du statut de stage
         Document saved = documentRepository.save(doc);
         if (saved.getStage() != null) {
             updateStageStatusBasedOnDocuments(saved.getStage());
         }
 
-        // 7) Conversion en DTO
+        // 5) Conversion en DTO
         return convertToDTO(saved);
     }
 
+    // Nom unique dans le dossier de dépôt ; seule une extension simple est reprise du nom d'origine
+    private Path nouveauChemin(String originalFilename) throws IOException {
+        if (!Files.exists(rootLocation)) {
+            Files.createDirectories(rootLocation);
+        }
+        String extension = "";
+        if (originalFilename != null) {
+            String suffixe = originalFilename.substring(originalFilename.lastIndexOf('.') + 1);
+            if (originalFilename.contains(".") && suffixe.matches("[A-Za-z0-9]{1,10}")) {
+                extension = "." + suffixe;
+            }
+        }
+        return rootLocation.resolve(UUID.randomUUID() + extension);
+    }
+
+    private static String empreinteSha256(Path fichier) throws IOException {
+        MessageDigest sha256 = nouveauSha256();
+        ByteBuffer tampon = ByteBuffer.allocateDirect((int) TAILLE_TRANSFERT);
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            while (canal.read(tampon) >= 0) {
+                tampon.flip();
+                sha256.update(tampon);
+                tampon.clear();
+            }
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    private static MessageDigest nouveauSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private DocumentDTO convertToDTO(Document document) {
         DocumentDTO dto = new DocumentDTO();
         dto.setId(document.getIdDocument());
@@ -104,6 +250,8 @@ public class DocumentService {
             ? document.getStage().getId()
             : null);
         dto.setNomFichier(document.getCheminFichier());
+        dto.setTaille(document.getTaille());
+        dto.setEmpreinteSha256(document.getEmpreinteSha256());
         return dto;
     }
 
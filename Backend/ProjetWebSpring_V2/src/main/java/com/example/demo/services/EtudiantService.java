@@ -115,27 +115,7 @@ public class EtudiantService {
     }
 
     private EtudiantDTO convertToDTO(Etudiant etudiant) {
-        if (etudiant == null) {
-            return null;
-        }
-        
-        EtudiantDTO dto = new EtudiantDTO();
-        dto.setId(etudiant.getIdEtudiant());
-        dto.setPrenom(etudiant.getPrenom());
-        dto.setNom(etudiant.getNom());
-        dto.setEmail(etudiant.getEmail());
-        dto.setSection(etudiant.getSection());
-        dto.setGroupe(etudiant.getGroupe());
-        dto.setMoyenne(etudiant.getMoyenne());
-        dto.setOrdreMerite(etudiant.getOrdreMerite());
-        // Ne pas remplir le mot de passe dans la rponse pour des raisons de scurit
-        // dto.setMotDePasse(etudiant.getMotDePasse());
-        
-        if (etudiant.getEncadrant() != null) {
-            dto.setEncadrantId(etudiant.getEncadrant().getIdEnseignant());
-            dto.setEncadrantNom(etudiant.getEncadrant().getNomComplet());
-        }
-        return dto;
+        return EtudiantDTO.fromEntity(etudiant);
     }
 
     private Etudiant convertToEntity(EtudiantDTO dto) {
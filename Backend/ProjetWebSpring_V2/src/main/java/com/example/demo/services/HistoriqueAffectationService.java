@@ -0,0 +1,77 @@
+package com.example.demo.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.HistoriqueAffectationDTO;
+import com.example.demo.entity.Affectation;
+import com.example.demo.entity.HistoriqueAffectation;
+import com.example.demo.repository.AffectationRepository;
+import com.example.demo.repository.HistoriqueAffectationRepository;
+import com.example.demo.services.affectation.InstantaneAffectations;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Historique des exécutions de l'affectation automatique : chaque exécution
+ * enregistre l'état complet des affectations avant et après, sous forme
+ * d'instantanés compacts, pour pouvoir y revenir
+ * (voir {@link AffectationService#restaurerHistorique}).
+ */
+@Service
+@RequiredArgsConstructor
+public class HistoriqueAffectationService {
+
+    private final HistoriqueAffectationRepository historiqueRepo;
+    private final AffectationRepository affectationRepo;
+
+    /** État actuel des affectations, lu en une requête sans charger les entités. */
+    public InstantaneAffectations capturer() {
+        InstantaneAffectations.Builder builder = InstantaneAffectations.builder();
+        for (Object[] t : affectationRepo.listerTuples()) {
+            builder.ajouter((Integer) t[1], (Integer) t[2], (Integer) t[3], (Integer) t[4]);
+        }
+        return builder.build();
+    }
+
+    /** L'état de départ complété des affectations créées, sans relire la base. */
+    public InstantaneAffectations completer(InstantaneAffectations avant, List<Affectation> creees) {
+        InstantaneAffectations.Builder builder = InstantaneAffectations.builder().ajouterTout(avant);
+        for (Affectation a : creees) {
+            builder.ajouter(a.getSujet().getId(),
+                    a.getEtudiant1() != null ? a.getEtudiant1().getIdEtudiant() : null,
+                    a.getEtudiant2() != null ? a.getEtudiant2().getIdEtudiant() : null,
+                    a.getEncadrant() != null ? a.getEncadrant().getIdEnseignant() : null);
+        }
+        return builder.build();
+    }
+
+    public HistoriqueAffectation enregistrer(String mode, InstantaneAffectations avant,
+                                             InstantaneAffectations apres) {
+        HistoriqueAffectation historique = new HistoriqueAffectation();
+        historique.setDateExecution(LocalDateTime.now());
+        historique.setMode(mode);
+        historique.setNbAffectationsAvant(avant.taille());
+        historique.setNbAffectationsApres(apres.taille());
+        historique.setEtatAvant(avant.encoder());
+        historique.setEtatApres(apres.encoder());
+        return historiqueRepo.save(historique);
+    }
+
+    public List<HistoriqueAffectationDTO> lister() {
+        return historiqueRepo.listerSansInstantanes();
+    }
+
+    /**
+     * @param etatAvant l'état précédant l'exécution (pour l'annuler) plutôt
+     *                  que l'état qui en a résulté
+     */
+    public InstantaneAffectations charger(Integer historiqueId, boolean etatAvant) {
+        HistoriqueAffectation historique = historiqueRepo.findById(historiqueId)
+                .orElseThrow(() -> new EntityNotFoundException("Historique d'affectation non trouvé"));
+        return InstantaneAffectations.decoder(etatAvant ? historique.getEtatAvant() : historique.getEtatApres());
+    }
+}
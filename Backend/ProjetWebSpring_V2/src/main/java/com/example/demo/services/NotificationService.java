@@ -1,19 +1,37 @@
 package com.example.demo.services;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.example.demo.dto.NotificationDTO;
+import com.example.demo.dto.PageNotificationsDTO;
 import com.example.demo.entity.Affectation;
-import com.example.demo.entity.Etudiant;
+import com.example.demo.entity.EmailSortant;
 import com.example.demo.entity.Notification;
+import com.example.demo.entity.StatutEmail;
+import com.example.demo.repository.EmailSortantRepository;
 import com.example.demo.repository.NotificationRepository;
 import com.example.demo.repository.EnseignantRepository; // Assurez-vous d'avoir ce repository
 import com.example.demo.repository.EtudiantRepository; // Assurez-vous d'avoir ce repository
+import com.example.demo.services.notification.CompteursNonLues;
+import com.example.demo.services.notification.DiffuseurNotifications;
+import com.example.demo.services.notification.EvenementNotification;
+import com.example.demo.services.notification.FusionNotifications;
+import com.example.demo.services.notification.MessagesAffectation;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,81 +41,222 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class NotificationService {
 
-    private final JavaMailSender mailSender;
     private final NotificationRepository notificationRepo;
+    private final EmailSortantRepository emailRepo;
     private final EnseignantRepository enseignantRepo; // Pour rcuprer l'email de l'enseignant
     private final EtudiantRepository etudiantRepo; // Pour rcuprer l'email de l'tudiant
+    private final CompteursNonLues compteursNonLues;
+    private final DiffuseurNotifications diffuseurNotifications;
+    private final FusionNotifications fusionNotifications;
+
+    // Mode rcapitulatif : un email par destinataire et par fentre (RegroupeurEmails)
+    @Value("${notification.email.resume.actif:false}")
+    private boolean modeResume;
+
+    // vnements accumuls avant chaque criture groupe
+    @Value("${notification.lot.taille:500}")
+    private int tailleLot;
+
+    private static final int TAILLE_PAGE_MAX = 100;
+
+    /**
+     * Page du fil de notifications, des plus rcentes aux plus anciennes.
+     * La page suivante reprend aprs le curseur (dateCreation, id) de la
+     * dernire notification renvoye : le cot d'une page ne dpend pas de la
+     * taille de l'historique, contrairement  une pagination par OFFSET.
+     *
+     * @param curseur curseur renvoy par la page prcdente, null pour la premire
+     */
+    @Transactional(readOnly = true)
+    public PageNotificationsDTO getNotifications(Integer userId, String curseur, int taille) {
+        int limite = Math.max(1, Math.min(taille, TAILLE_PAGE_MAX));
+        // Une ligne de plus pour savoir s'il reste des notifications
+        PageRequest page = PageRequest.of(0, limite + 1);
+        List<NotificationDTO> notifications;
+        if (curseur == null || curseur.isBlank()) {
+            notifications = notificationRepo.premierePage(userId, page);
+        } else {
+            int separateur = curseur.lastIndexOf('_');
+            LocalDateTime date;
+            int id;
+            try {
+                date = LocalDateTime.parse(curseur.substring(0, Math.max(separateur, 0)));
+                id = Integer.parseInt(curseur.substring(separateur + 1));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Curseur invalide : " + curseur);
+            }
+            notifications = notificationRepo.pageApres(userId, date, id, page);
+        }
+
+        String curseurSuivant = null;
+        if (notifications.size() > limite) {
+            notifications = notifications.subList(0, limite);
+            NotificationDTO derniere = notifications.get(limite - 1);
+            curseurSuivant = derniere.getDateCreation() + "_" + derniere.getId();
+        }
+        return new PageNotificationsDTO(new ArrayList<>(notifications), curseurSuivant);
+    }
+
+    /** Nombre de notifications non lues, servi par le cache {@link CompteursNonLues}. */
+    public int getNbNonLues(Integer userId) {
+        return compteursNonLues.lire(userId);
+    }
+
+    /** Flux SSE des nouvelles notifications de l'utilisateur. */
+    public SseEmitter abonner(Integer userId) {
+        return diffuseurNotifications.abonner(userId, compteursNonLues.lire(userId));
+    }
+
+    /** Marque lues toutes les notifications de l'utilisateur en un seul UPDATE. */
+    @Transactional
+    public int marquerToutesLues(Integer userId) {
+        int nbMarquees = notificationRepo.marquerToutesLues(userId);
+        compteursNonLues.remettreAZero(userId);
+        return nbMarquees;
+    }
+
+    /** Faux si la notification n'existe pas pour cet utilisateur. */
+    @Transactional
+    public boolean marquerLue(Integer userId, Integer notificationId) {
+        if (notificationRepo.marquerLue(userId, notificationId) > 0) {
+            compteursNonLues.ajuster(userId, -1);
+            return true;
+        }
+        // Dj lue, ou inexistante
+        return notificationRepo.existsByIdAndUserId(notificationId, userId);
+    }
+
+    /**
+     * Fusion avec les notifications rcentes de mme cl, puis enregistrement
+     * group (INSERT par lots JDBC) ; seules les lignes ajoutes comptent
+     * comme non lues en plus.
+     */
+    private void enregistrer(List<Notification> notifications) {
+        FusionNotifications.Resultat fusion = fusionNotifications.fusionner(notifications);
+        notificationRepo.saveAll(fusion.aEnregistrer());
+        compterCreees(fusion.nouvelles());
+        diffuseurNotifications.publier(fusion.aEnregistrer());
+    }
+
+    private void compterCreees(List<Notification> notifications) {
+        Map<Integer, Integer> parUtilisateur = new HashMap<>();
+        for (Notification notification : notifications) {
+            parUtilisateur.merge(notification.getUserId(), 1, Integer::sum);
+        }
+        compteursNonLues.ajuster(parUtilisateur);
+    }
 
     public void notifierAffectation(Affectation affectation) {
-        List<String> destinataires = new ArrayList<>();
-
-        // Rcuprer l'email de l'tudiant principal
-        etudiantRepo.findById(affectation.getEtudiant1().getIdEtudiant())
-                .ifPresent(etudiant -> {
-                    destinataires.add(etudiant.getEmail());
-                    creerNotification(
-                            affectation.getEtudiant1().getIdEtudiant(),
-                            "Affectation de projet",
-                            "Vous avez t affect au projet: " + affectation.getSujet().getTitre(),
-                            "/projets/" + affectation.getSujet().getId()
-                    );
-                });
-
-        // Rcuprer l'email du binme (si existe)
-        if (affectation.getEtudiant2() != null) {
-            etudiantRepo.findById(affectation.getEtudiant2().getIdEtudiant())
-                    .ifPresent(etudiant -> {
-                        destinataires.add(etudiant.getEmail());
-                        creerNotification(
-                                affectation.getEtudiant2().getIdEtudiant(),
-                                "Affectation de projet en binme",
-                                "Vous avez t affect au projet " + affectation.getSujet().getTitre() +
-                                        " avec " + affectation.getEtudiant1().getPrenom(),
-                                "/projets/" + affectation.getSujet().getId()
-                        );
-                    });
+        notifierAffectations(List.of(affectation));
+    }
+
+    /**
+     * Notifie un lot d'affectations : un vnement par affectation (tudiants
+     * et encadrant), dans la transaction courante.
+     */
+    public void notifierAffectations(List<Affectation> affectations) {
+        notifier(affectations, this::evenementAffectation);
+    }
+
+    /**
+     * Seul chemin d'criture des notifications. Les affectations sont
+     * traites par paquets de {@code tailleLot} vnements : les emails des
+     * destinataires sont rsolus en une requte IN par type (tudiants,
+     * enseignants), les notifications et les emails sont enregistrs en
+     * critures groupes puis envoys  la base avant le paquet suivant.
+     */
+    private void notifier(List<Affectation> affectations, Function<Affectation, EvenementNotification> evenement) {
+        for (int debut = 0; debut < affectations.size(); debut += tailleLot) {
+            List<EvenementNotification> evenements = affectations
+                    .subList(debut, Math.min(debut + tailleLot, affectations.size())).stream()
+                    .map(evenement)
+                    .collect(Collectors.toList());
+            enregistrerEvenements(evenements);
         }
+    }
 
-        // Rcuprer l'email de l'encadrant
-        if (affectation.getEncadrant() != null) {
-            enseignantRepo.findById(affectation.getEncadrant().getIdEnseignant())
-                    .ifPresent(enseignant -> {
-                        destinataires.add(enseignant.getEmail());
-                        creerNotification(
-                                affectation.getEncadrant().getIdEnseignant(),
-                                "Nouvelle affectation",
-                                "Nouveaux tudiants affects  votre projet: " + affectation.getSujet().getTitre(),
-                                "/encadrement/" + affectation.getSujet().getId()
-                        );
-                    });
+    private void enregistrerEvenements(List<EvenementNotification> evenements) {
+        Set<Integer> idsEtudiants = new HashSet<>();
+        Set<Integer> idsEnseignants = new HashSet<>();
+        for (EvenementNotification evenement : evenements) {
+            for (EvenementNotification.Destinataire destinataire : evenement.destinataires()) {
+                (destinataire.enseignant() ? idsEnseignants : idsEtudiants).add(destinataire.id());
+            }
+        }
+        Map<Integer, String> emailsEtudiants = idsEtudiants.isEmpty()
+                ? Map.of() : emailsParId(etudiantRepo.findEmails(idsEtudiants));
+        Map<Integer, String> emailsEnseignants = idsEnseignants.isEmpty()
+                ? Map.of() : emailsParId(enseignantRepo.findEmails(idsEnseignants));
+
+        List<Notification> notifications = new ArrayList<>();
+        List<EmailSortant> emails = new ArrayList<>();
+        for (EvenementNotification evenement : evenements) {
+            List<String> adresses = new ArrayList<>();
+            for (EvenementNotification.Destinataire destinataire : evenement.destinataires()) {
+                notifications.add(nouvelleNotification(destinataire.id(), destinataire.titre(),
+                        destinataire.message(), destinataire.lien()));
+                String adresse = (destinataire.enseignant() ? emailsEnseignants : emailsEtudiants)
+                        .get(destinataire.id());
+                if (adresse != null) {
+                    adresses.add(adresse);
+                }
+            }
+            if (modeResume) {
+                for (String adresse : adresses) {
+                    emails.add(nouvelEvenement(adresse, evenement.titreEmail(), evenement.detailEmail(),
+                            evenement.cleFusion()));
+                }
+            } else if (!adresses.isEmpty()) {
+                // Un email unique  tous les destinataires de l'vnement
+                emails.add(nouvelEmail(adresses, evenement.titreEmail(), evenement.messageEmail()));
+            }
         }
+        enregistrer(notifications);
+        emailRepo.saveAll(modeResume ? fusionNotifications.fusionnerEvenements(emails) : emails);
+        // INSERT par lots JDBC envoys maintenant plutt qu'accumuls jusqu' la validation
+        notificationRepo.flush();
+    }
 
-        // Envoyer un email unique  tous les destinataires
-        if (!destinataires.isEmpty()) {
-            envoyerEmail(destinataires, "Nouvelle affectation de projet", construireMessageAffectation(affectation));
+    private static Map<Integer, String> emailsParId(List<Object[]> lignes) {
+        Map<Integer, String> emails = new HashMap<>();
+        for (Object[] ligne : lignes) {
+            if (ligne[1] != null) {
+                emails.put((Integer) ligne[0], (String) ligne[1]);
+            }
         }
+        return emails;
     }
 
-    private String construireMessageAffectation(Affectation affectation) {
-        StringBuilder message = new StringBuilder("Bonjour,\n\n");
-        message.append("Vous tes concern par l'affectation suivante :\n\n");
-        message.append("Projet : ").append(affectation.getSujet().getTitre()).append("\n");
-        message.append("Description : ").append(affectation.getSujet().getDescription()).append("\n\n");
-        message.append("tudiant principal : ").append(affectation.getEtudiant1().getPrenom()).append(" ").append(affectation.getEtudiant1().getNom()).append("\n");
+    private EvenementNotification evenementAffectation(Affectation affectation) {
+        String projetTitre = affectation.getSujet().getTitre();
+        List<EvenementNotification.Destinataire> destinataires = new ArrayList<>(3);
+        destinataires.add(new EvenementNotification.Destinataire(
+                affectation.getEtudiant1().getIdEtudiant(), false,
+                "Affectation de projet",
+                "Vous avez t affect au projet: " + projetTitre,
+                "/projets/" + affectation.getSujet().getId()));
         if (affectation.getEtudiant2() != null) {
-            message.append("Binme : ").append(affectation.getEtudiant2().getPrenom()).append(" ").append(affectation.getEtudiant2().getNom()).append("\n");
+            destinataires.add(new EvenementNotification.Destinataire(
+                    affectation.getEtudiant2().getIdEtudiant(), false,
+                    "Affectation de projet en binme",
+                    "Vous avez t affect au projet " + projetTitre +
+                            " avec " + affectation.getEtudiant1().getPrenom(),
+                    "/projets/" + affectation.getSujet().getId()));
         }
         if (affectation.getEncadrant() != null) {
-            message.append("Encadrant : Dr. ").append(affectation.getEncadrant().getPrenom()).append(" ").append(affectation.getEncadrant().getNom()).append("\n");
-        } else {
-            message.append("Encadrant : Non assign\n");
+            destinataires.add(new EvenementNotification.Destinataire(
+                    affectation.getEncadrant().getIdEnseignant(), true,
+                    "Nouvelle affectation",
+                    "Nouveaux tudiants affects  votre projet: " + projetTitre,
+                    "/encadrement/" + affectation.getSujet().getId()));
         }
-        message.append("\nCordialement,\nL'quipe de gestion des projets");
-        return message.toString();
+        return new EvenementNotification("Nouvelle affectation de projet",
+                modeResume ? null : MessagesAffectation.affectation(affectation),
+                modeResume ? MessagesAffectation.detail(affectation, true) : null,
+                cleFusion(affectation), destinataires);
     }
 
-    private void creerNotification(Integer userId, String titre, String message, String lien) {
-        // Enregistrement en base
+    private Notification nouvelleNotification(Integer userId, String titre, String message, String lien) {
         Notification notification = new Notification();
         notification.setUserId(userId);
         notification.setTitre(titre);
@@ -105,86 +264,78 @@ public class NotificationService {
         notification.setLien(lien);
         notification.setDateCreation(LocalDateTime.now());
         notification.setLue(false);
-        notificationRepo.save(notification);
+        return notification;
     }
 
-    private void envoyerEmail(List<String> destinataires, String titre, String message) {
-    	log.info("Envoi d'email  : {}", destinataires);
-    	SimpleMailMessage mail = new SimpleMailMessage();
-        mail.setTo(destinataires.toArray(new String[0])); // Convertir la liste en tableau de Strings
-        mail.setSubject(titre);
-        mail.setText(message);
-        mailSender.send(mail);
+    /**
+     * Email mis en file (table email_sortant),  enregistrer dans la
+     * transaction courante ; il est envoy par le DispatcheurEmails une fois
+     * la transaction valide.
+     */
+    private EmailSortant nouvelEmail(List<String> destinataires, String titre, String message) {
+        log.info("Email mis en file pour : {}", destinataires);
+        EmailSortant email = new EmailSortant();
+        email.setDestinataires(String.join(",", destinataires));
+        email.setTitre(titre);
+        email.setMessage(message);
+        email.setStatut(StatutEmail.EN_ATTENTE);
+        email.setDateCreation(LocalDateTime.now());
+        email.setProchaineTentative(email.getDateCreation());
+        return email;
     }
 
-    public void notifierSuppressionAffectation(Affectation affectation) {
-        List<String> destinataires = new ArrayList<>();
-        String projetTitre = affectation.getSujet().getTitre();
-        String messageEtudiant = "Votre affectation au projet '" + projetTitre + "' a t annule.";
-        String messageBinome = "Votre affectation au projet '" + projetTitre + "' avec "
-                + affectation.getEtudiant1().getPrenom() + " a t annule.";
-        String messageEncadrant = "L'affectation des tudiants au projet '" + projetTitre + "' a t annule.";
-
-        // Notification et ajout email tudiant principal
-        etudiantRepo.findById(affectation.getEtudiant1().getIdEtudiant())
-                .ifPresent(etudiant -> {
-                    destinataires.add(etudiant.getEmail());
-                    creerNotification(
-                            affectation.getEtudiant1().getIdEtudiant(),
-                            "Annulation d'affectation",
-                            messageEtudiant,
-                            "/projets/" + affectation.getSujet().getId()
-                    );
-                });
-
-        // Notification et ajout email binme (si existe)
-        if (affectation.getEtudiant2() != null) {
-            etudiantRepo.findById(affectation.getEtudiant2().getIdEtudiant())
-                    .ifPresent(etudiant -> {
-                        destinataires.add(etudiant.getEmail());
-                        creerNotification(
-                                affectation.getEtudiant2().getIdEtudiant(),
-                                "Annulation d'affectation en binme",
-                                messageBinome,
-                                "/projets/" + affectation.getSujet().getId()
-                        );
-                    });
-        }
+    /** vnement d'un seul destinataire, fusionn dans son prochain rcapitulatif. */
+    private EmailSortant nouvelEvenement(String destinataire, String titre, String detail, String cleFusion) {
+        EmailSortant email = new EmailSortant();
+        email.setDestinataires(destinataire);
+        email.setTitre(titre);
+        email.setMessage(detail);
+        email.setStatut(StatutEmail.A_REGROUPER);
+        email.setDateCreation(LocalDateTime.now());
+        email.setCleFusion(cleFusion);
+        return email;
+    }
 
-        // Notification et ajout email encadrant
-        if (affectation.getEncadrant() != null) {
-            enseignantRepo.findById(affectation.getEncadrant().getIdEnseignant())
-                    .ifPresent(enseignant -> {
-                        destinataires.add(enseignant.getEmail());
-                        creerNotification(
-                                affectation.getEncadrant().getIdEnseignant(),
-                                "Annulation d'affectation",
-                                messageEncadrant,
-                                "/encadrement/" + affectation.getSujet().getId()
-                        );
-                    });
-        }
+    // Affectation et annulation d'un mme sujet se fusionnent
+    private static String cleFusion(Affectation affectation) {
+        return "sujet-" + affectation.getSujet().getId();
+    }
 
-        // Envoyer un email unique  tous les destinataires concerns par l'annulation
-        if (!destinataires.isEmpty()) {
-            envoyerEmail(destinataires, "Annulation d'affectation de projet", construireMessageAnnulation(affectation));
-        }
+    public void notifierSuppressionAffectation(Affectation affectation) {
+        notifierSuppressionsAffectations(List.of(affectation));
+    }
+
+    /** Notifie l'annulation d'un lot d'affectations, comme {@link #notifierAffectations}. */
+    public void notifierSuppressionsAffectations(List<Affectation> affectations) {
+        notifier(affectations, this::evenementAnnulation);
     }
 
-    private String construireMessageAnnulation(Affectation affectation) {
-        StringBuilder message = new StringBuilder("Bonjour,\n\n");
-        message.append("L'affectation suivante a t annule :\n\n");
-        message.append("Projet : ").append(affectation.getSujet().getTitre()).append("\n");
-        message.append("tudiant principal : ").append(affectation.getEtudiant1().getPrenom()).append(" ").append(affectation.getEtudiant1().getNom()).append("\n");
+    private EvenementNotification evenementAnnulation(Affectation affectation) {
+        String projetTitre = affectation.getSujet().getTitre();
+        List<EvenementNotification.Destinataire> destinataires = new ArrayList<>(3);
+        destinataires.add(new EvenementNotification.Destinataire(
+                affectation.getEtudiant1().getIdEtudiant(), false,
+                "Annulation d'affectation",
+                "Votre affectation au projet '" + projetTitre + "' a t annule.",
+                "/projets/" + affectation.getSujet().getId()));
         if (affectation.getEtudiant2() != null) {
-            message.append("Binme : ").append(affectation.getEtudiant2().getPrenom()).append(" ").append(affectation.getEtudiant2().getNom()).append("\n");
+            destinataires.add(new EvenementNotification.Destinataire(
+                    affectation.getEtudiant2().getIdEtudiant(), false,
+                    "Annulation d'affectation en binme",
+                    "Votre affectation au projet '" + projetTitre + "' avec "
+                            + affectation.getEtudiant1().getPrenom() + " a t annule.",
+                    "/projets/" + affectation.getSujet().getId()));
         }
         if (affectation.getEncadrant() != null) {
-            message.append("Encadrant : Dr. ").append(affectation.getEncadrant().getPrenom()).append(" ").append(affectation.getEncadrant().getNom()).append("\n");
-        } else {
-            message.append("Encadrant : Non assign\n");
+            destinataires.add(new EvenementNotification.Destinataire(
+                    affectation.getEncadrant().getIdEnseignant(), true,
+                    "Annulation d'affectation",
+                    "L'affectation des tudiants au projet '" + projetTitre + "' a t annule.",
+                    "/encadrement/" + affectation.getSujet().getId()));
         }
-        message.append("\nCordialement,\nL'quipe de gestion des projets");
-        return message.toString();
+        return new EvenementNotification("Annulation d'affectation de projet",
+                modeResume ? null : MessagesAffectation.annulation(affectation),
+                modeResume ? MessagesAffectation.detail(affectation, false) : null,
+                cleFusion(affectation), destinataires);
     }
 }
\ No newline at end of file
@@ -158,24 +158,7 @@ public class SujetService {
      * Convertit une entité Sujet en ProjetProposeDTO.
      */
     private ProjetProposeDTO convertToDTO(Sujet sujet) {
-        String status;
-        if (sujet.getEstValide() == null) {
-            status = "En attente";
-        } else if (sujet.getEstValide()) {
-            status = "Validé";
-        } else {
-            status = "Rejeté";
-        }
-        return new ProjetProposeDTO(
-                sujet.getId(),
-                sujet.getTitre(),
-                sujet.getDescription(),
-                sujet.getDomaine(),
-                sujet.getDifficulte(),
-                sujet.getTechnologies(),
-                status,
-                sujet.getDateProposition()
-        );
+        return ProjetProposeDTO.fromEntity(sujet);
     }
     
     //Nombre total de sujet
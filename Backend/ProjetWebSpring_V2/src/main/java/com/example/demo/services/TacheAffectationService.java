@@ -0,0 +1,172 @@
+package com.example.demo.services;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.RapportAffectation;
+import com.example.demo.dto.StatutTacheAffectationDTO;
+import com.example.demo.services.affectation.ModeAffectation;
+import com.example.demo.services.affectation.SuiviAffectation;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exécute l'affectation automatique en tâche de fond : la requête HTTP rend
+ * la main immédiatement et le client suit l'avancement par l'identifiant de
+ * la tâche. Une seule tâche peut tourner à la fois : le moteur lit et écrit
+ * tous les sujets et affectations, quelle que soit l'année indiquée, qui ne
+ * sert que d'étiquette.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TacheAffectationService {
+
+    // Nombre de tâches terminées conservées pour consultation
+    private static final int HISTORIQUE_MAX = 50;
+
+    private final AffectationService affectationService;
+
+    private final Map<String, Tache> taches = new ConcurrentHashMap<>();
+    private final AtomicReference<Tache> enCours = new AtomicReference<>();
+    private final AtomicInteger compteurThreads = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "affectation-" + compteurThreads.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Démarre une tâche d'affectation. Si une tâche est déjà en cours, quelle
+     * que soit son année, elle est renvoyée telle quelle et {@code demarree}
+     * vaut false.
+     */
+    public Demarrage demarrer(ModeAffectation mode, boolean parallele, String anneeUniversitaire) {
+        String annee = anneeUniversitaire != null && !anneeUniversitaire.isBlank()
+                ? anneeUniversitaire
+                : anneeUniversitaireCourante();
+        Tache tache = new Tache(UUID.randomUUID().toString(), annee, mode);
+
+        if (!enCours.compareAndSet(null, tache)) {
+            Tache existante = enCours.get();
+            if (existante != null) {
+                return new Demarrage(existante.statut(), false);
+            }
+            // La tâche en cours vient de se terminer
+            return demarrer(mode, parallele, annee);
+        }
+        purgerHistorique();
+        taches.put(tache.id, tache);
+        executor.submit(() -> executer(tache, parallele));
+        return new Demarrage(tache.statut(), true);
+    }
+
+    public Optional<StatutTacheAffectationDTO> statut(String id) {
+        return Optional.ofNullable(taches.get(id)).map(Tache::statut);
+    }
+
+    /**
+     * Demande l'annulation de la tâche. L'arrêt est effectif au prochain point
+     * de contrôle du moteur et annule toute la transaction ; une fois les
+     * affectations validées en base, l'annulation est sans effet.
+     */
+    public Optional<StatutTacheAffectationDTO> annuler(String id) {
+        Tache tache = taches.get(id);
+        if (tache == null) {
+            return Optional.empty();
+        }
+        tache.suivi.annuler();
+        return Optional.of(tache.statut());
+    }
+
+    private void executer(Tache tache, boolean parallele) {
+        tache.etat = "EN_COURS";
+        try {
+            tache.rapport = affectationService.executerAffectationAutomatique(tache.mode, parallele, tache.suivi);
+            tache.etat = "TERMINEE";
+        } catch (CancellationException e) {
+            tache.etat = "ANNULEE";
+            tache.erreur = e.getMessage();
+        } catch (Exception e) {
+            log.error("Échec de la tâche d'affectation {}", tache.id, e);
+            tache.etat = "ECHOUEE";
+            tache.erreur = e.getMessage();
+        } finally {
+            tache.fin = System.currentTimeMillis();
+            enCours.compareAndSet(tache, null);
+        }
+    }
+
+    private void purgerHistorique() {
+        if (taches.size() < HISTORIQUE_MAX) {
+            return;
+        }
+        taches.values().stream()
+                .filter(t -> t.fin > 0)
+                .sorted((a, b) -> Long.compare(a.fin, b.fin))
+                .limit(taches.size() - HISTORIQUE_MAX + 1L)
+                .forEach(t -> taches.remove(t.id));
+    }
+
+    /** Année universitaire en cours, de septembre à août (ex. "2024-2025"). */
+    static String anneeUniversitaireCourante() {
+        LocalDate aujourdhui = LocalDate.now();
+        int debut = aujourdhui.getMonthValue() >= 9 ? aujourdhui.getYear() : aujourdhui.getYear() - 1;
+        return debut + "-" + (debut + 1);
+    }
+
+    @PreDestroy
+    public void arreter() {
+        taches.values().forEach(t -> t.suivi.annuler());
+        executor.shutdownNow();
+    }
+
+    public record Demarrage(StatutTacheAffectationDTO statut, boolean demarree) {
+    }
+
+    private static final class Tache {
+        private final String id;
+        private final String anneeUniversitaire;
+        private final ModeAffectation mode;
+        private final SuiviAffectation suivi = new SuiviAffectation();
+        private volatile String etat = "EN_ATTENTE";
+        private volatile RapportAffectation rapport;
+        private volatile String erreur;
+        private final long debut = System.currentTimeMillis();
+        private volatile long fin;
+
+        private Tache(String id, String anneeUniversitaire, ModeAffectation mode) {
+            this.id = id;
+            this.anneeUniversitaire = anneeUniversitaire;
+            this.mode = mode;
+        }
+
+        private StatutTacheAffectationDTO statut() {
+            return StatutTacheAffectationDTO.builder()
+                    .id(id)
+                    .anneeUniversitaire(anneeUniversitaire)
+                    .mode(mode.name())
+                    .etat(etat)
+                    .etape(suivi.getEtape())
+                    .sujetsTraites(suivi.getSujetsTraites())
+                    .nbSujets(suivi.getNbSujets())
+                    .affectationsCreees(suivi.getAffectationsCreees())
+                    .dureeMs((fin > 0 ? fin : System.currentTimeMillis()) - debut)
+                    .rapport(rapport)
+                    .erreur(erreur)
+                    .build();
+        }
+    }
+}
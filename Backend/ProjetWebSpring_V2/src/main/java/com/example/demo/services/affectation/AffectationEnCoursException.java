@@ -0,0 +1,14 @@
+package com.example.demo.services.affectation;
+
+/**
+ * Levée quand une affectation automatique, une réparation ou une restauration
+ * est déjà en cours : l'écriture d'ensemble demandée est refusée (409).
+ */
+public class AffectationEnCoursException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public AffectationEnCoursException() {
+        super("Une affectation automatique, une réparation ou une restauration est déjà en cours");
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.services.affectation;
+
+/**
+ * Affectation selon le mérite : les sujets sont parcourus dans l'ordre de
+ * chargement et chacun est attribué au candidat libre ayant la meilleure
+ * moyenne (à égalité, celui qui l'a classé le plus haut). Avec une capacité
+ * stricte, un candidat n'est retenu que s'il reste de la place chez l'encadrant.
+ */
+public class AffectationGloutonne implements StrategieAffectation {
+
+    @Override
+    public void affecter(InstanceAffectation instance, EtatAffectation etat) {
+        for (int s = 0; s < instance.nbSujets; s++) {
+            if (!etat.estDisponible(s)) {
+                continue;
+            }
+            etat.sujetTraite();
+            int meilleur = InstanceAffectation.AUCUN;
+            double meilleureMoyenne = 0;
+            for (int k = instance.sujetChoixDebut[s]; k < instance.sujetChoixDebut[s + 1]; k++) {
+                int c = instance.sujetChoix[k];
+                int e = instance.choixEtudiant[c];
+                if (!etat.groupeLibre(c) || !etat.peutAccueillirChoix(c)) {
+                    continue;
+                }
+                if (meilleur == InstanceAffectation.AUCUN || instance.moyennes[e] > meilleureMoyenne) {
+                    meilleur = c;
+                    meilleureMoyenne = instance.moyennes[e];
+                }
+            }
+            if (meilleur != InstanceAffectation.AUCUN) {
+                etat.affecterChoix(meilleur);
+            }
+        }
+    }
+}
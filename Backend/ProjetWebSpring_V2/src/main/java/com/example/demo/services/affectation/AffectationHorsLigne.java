@@ -0,0 +1,82 @@
+package com.example.demo.services.affectation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exécution du moteur d'affectation sans serveur ni base de données, sur un
+ * export de campagne (voir {@link EchangeAffectation} et
+ * {@code GET /api/affectations/export}). Mêmes algorithmes et mêmes réglages
+ * que le serveur ; le résultat est écrit dans le même format.
+ * <pre>
+ * java -cp ProjetWebSpring-0.0.1.jar com.example.demo.services.affectation.AffectationHorsLigne \
+ *     [--mode GLOUTON|STABLE|OPTIMAL] [--capacite N] [--politique STRICTE|PENALITE]
+ *     [--penalite P] [--parallele] campagne.csv|campagne.bin resultat.csv|resultat.bin
+ * </pre>
+ * Le moteur ne dépend que du JDK : aucune autre bibliothèque n'est requise
+ * sur le classpath.
+ */
+public final class AffectationHorsLigne {
+
+    private AffectationHorsLigne() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        ParametresAffectation.ParametresAffectationBuilder parametres = ParametresAffectation.builder();
+        Path entree = null;
+        Path sortie = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--mode" -> parametres.mode(ModeAffectation.valueOf(args[++i]));
+                case "--capacite" -> parametres.capaciteEncadrant(Integer.parseInt(args[++i]));
+                case "--politique" -> parametres.politiqueCapacite(PolitiqueCapacite.valueOf(args[++i]));
+                case "--penalite" -> parametres.penaliteDepassement(Long.parseLong(args[++i]));
+                case "--parallele" -> parametres.parallele(true);
+                default -> {
+                    if (entree == null) {
+                        entree = Path.of(args[i]);
+                    } else {
+                        sortie = Path.of(args[i]);
+                    }
+                }
+            }
+        }
+        if (entree == null || sortie == null) {
+            System.err.println("Usage : AffectationHorsLigne [--mode GLOUTON|STABLE|OPTIMAL] [--capacite N] "
+                    + "[--politique STRICTE|PENALITE] [--penalite P] [--parallele] entree.(csv|bin) sortie.(csv|bin)");
+            System.exit(2);
+        }
+
+        ParametresAffectation p = parametres.build();
+        long debut = System.nanoTime();
+        InstanceAffectation instance;
+        try (InputStream in = Files.newInputStream(entree)) {
+            instance = EchangeAffectation.lire(in, EchangeAffectation.Format.depuisNomFichier(entree.toString()));
+        }
+        long lecture = System.nanoTime();
+
+        ResultatAffectation resultat = MoteurAffectation.pour(p).executer(instance);
+
+        try (OutputStream out = Files.newOutputStream(sortie);
+             EchangeAffectation.Ecrivain ecrivain = EchangeAffectation.ecrivain(
+                     out, EchangeAffectation.Format.depuisNomFichier(sortie.toString()))) {
+            EchangeAffectation.ecrireResultat(ecrivain, instance, resultat);
+        }
+        long fin = System.nanoTime();
+
+        System.out.printf("Mode %s : %d étudiants, %d sujets, %d choix (%d écartés)%n",
+                p.getMode(), instance.getNbEtudiants(), instance.getNbSujets(),
+                instance.getNbChoix(), instance.getNbChoixEcartes());
+        System.out.printf("%d affectations, %d premiers choix, satisfaction %.1f%n",
+                resultat.taille(), Satisfaction.nbPremierChoix(instance, resultat),
+                Satisfaction.totale(instance, resultat));
+        System.out.printf("Lecture %d ms, calcul %d ms, écriture %d ms%n",
+                TimeUnit.NANOSECONDS.toMillis(lecture - debut),
+                TimeUnit.NANOSECONDS.toMillis(resultat.getDureeNanos()),
+                TimeUnit.NANOSECONDS.toMillis(fin - lecture - resultat.getDureeNanos()));
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.demo.services.affectation;
+
+import java.util.Arrays;
+
+/**
+ * Affectation maximisant la satisfaction totale ({@link Satisfaction}) sous
+ * contrainte de capacité des encadrants, par un flot de coût minimum :
+ * source -> étudiant (1) -> sujet choisi (1, coût = -satisfaction)
+ * -> encadrant (1) -> puits (places restantes).
+ * Un flot unitaire représente une affectation, alors qu'un binôme occupe deux
+ * places chez l'encadrant. Avec une capacité stricte, le flot est donc résolu
+ * à nouveau en ajoutant aux choix en binôme un surcoût par encadrant, relevé
+ * tant que les binômes retenus dépassent sa capacité ; les dépassements qui
+ * subsistent sont retirés en commençant par les binômes les moins
+ * satisfaisants, puis les places libérées sont proposées par une nouvelle
+ * résolution aux étudiants encore libres.
+ * <p>
+ * Avec une capacité non stricte ({@link PolitiqueCapacite#PENALITE}), chaque
+ * encadrant reçoit en plus un arc vers le puits sans limite, de coût
+ * {@code penaliteDepassement} : un dépassement n'est retenu que s'il rapporte
+ * plus de satisfaction qu'il ne coûte.
+ */
+public class AffectationOptimale implements StrategieAffectation {
+
+    // Résolutions au plus pour ajuster le surcoût des binômes
+    private static final int TOURS_SURCOUT = 16;
+    // Surcoût ajouté par place dépassée, en millièmes de point de satisfaction
+    private static final long PAS_SURCOUT = Satisfaction.ECHELLE / 4;
+
+    private final long penaliteDepassement;
+
+    public AffectationOptimale() {
+        this(Satisfaction.ECHELLE);
+    }
+
+    public AffectationOptimale(long penaliteDepassement) {
+        this.penaliteDepassement = penaliteDepassement;
+    }
+
+    @Override
+    public void affecter(InstanceAffectation instance, EtatAffectation etat) {
+        int nbDisponibles = 0;
+        for (int s = 0; s < instance.nbSujets; s++) {
+            if (etat.estDisponible(s)) {
+                nbDisponibles++;
+            }
+        }
+        boolean stricte = etat.isCapaciteStricte() || etat.getCapaciteEncadrant() <= 0;
+        long[] surcout = new long[instance.nbEncadrants];
+        int[] retenus = resoudre(instance, etat, stricte, surcout);
+        if (stricte && etat.getCapaciteEncadrant() > 0 && depasse(instance, etat, retenus)) {
+            retenus = meilleureCompletion(instance, etat, retenus, surcout);
+        }
+        affecterRetenus(etat, retenus);
+        for (int s = 0; s < nbDisponibles; s++) {
+            etat.sujetTraite();
+        }
+    }
+
+    /**
+     * Solutions successives obtenues en relevant le surcoût des binômes chez
+     * les encadrants en dépassement, chacune rendue admissible puis complétée ;
+     * retourne les choix de la plus satisfaisante.
+     */
+    private int[] meilleureCompletion(InstanceAffectation instance, EtatAffectation etat,
+                                      int[] retenus, long[] surcout) {
+        ResultatAffectation meilleure = null;
+        long meilleureSatisfaction = -1;
+        for (int tour = 0; ; tour++) {
+            EtatAffectation essai = etat.copie();
+            completer(instance, essai, retenus.clone(), surcout);
+            long satisfaction = 0;
+            for (int i = 0; i < essai.getResultat().taille(); i++) {
+                satisfaction += Satisfaction.choix(instance, essai.getResultat().choix(i));
+            }
+            if (satisfaction > meilleureSatisfaction) {
+                meilleure = essai.getResultat();
+                meilleureSatisfaction = satisfaction;
+            }
+            if (tour == TOURS_SURCOUT || !augmenterSurcouts(instance, etat, retenus, surcout)) {
+                break;
+            }
+            retenus = resoudre(instance, etat, true, surcout);
+        }
+        int[] choix = new int[meilleure.taille()];
+        for (int i = 0; i < choix.length; i++) {
+            choix[i] = meilleure.choix(i);
+        }
+        return choix;
+    }
+
+    // Retire les dépassements, affecte le reste et propose les places libérées jusqu'à stabilité
+    private void completer(InstanceAffectation instance, EtatAffectation essai, int[] retenus, long[] surcout) {
+        while (retirerDepassements(instance, essai, retenus)) {
+            affecterRetenus(essai, retenus);
+            retenus = resoudre(instance, essai, true, surcout);
+        }
+        affecterRetenus(essai, retenus);
+    }
+
+    /** Résout le flot sur les étudiants et sujets encore libres et retourne les choix retenus. */
+    private int[] resoudre(InstanceAffectation instance, EtatAffectation etat, boolean stricte, long[] surcout) {
+        int n = instance.nbEtudiants;
+        int m = instance.nbSujets;
+        int k = instance.nbEncadrants;
+        int[] places = new int[k];
+        for (int enc = 0; enc < k; enc++) {
+            // Sans contrainte stricte, tous les sujets restent accessibles
+            places[enc] = stricte ? etat.placesRestantes(enc) : Math.max(etat.placesRestantes(enc), 0);
+        }
+
+        // Numérotation topologique : source, étudiants, sujets, encadrants, puits
+        int source = 0;
+        int premierSujet = 1 + n;
+        int premierEncadrant = premierSujet + m;
+        int puits = premierEncadrant + k;
+        FluxCoutMinimum flot = new FluxCoutMinimum(puits + 1, n + instance.nbChoix + m + 2 * k);
+
+        for (int e = 0; e < n; e++) {
+            if (!etat.estAffecte(e) && instance.etudiantChoixDebut[e] < instance.etudiantChoixDebut[e + 1]) {
+                flot.ajouterArc(source, 1 + e, 1, 0);
+            }
+        }
+        int[] arcChoix = new int[instance.nbChoix];
+        Arrays.fill(arcChoix, -1);
+        for (int c = 0; c < instance.nbChoix; c++) {
+            int e = instance.choixEtudiant[c];
+            int s = instance.choixSujet[c];
+            if (!etat.groupeLibre(c) || !etat.estDisponible(s)) {
+                continue;
+            }
+            int enc = instance.sujetEncadrant[s];
+            long cout = -Satisfaction.choix(instance, c);
+            if (enc != InstanceAffectation.AUCUN) {
+                if (stricte && places[enc] < instance.tailleGroupe(c)) {
+                    continue;
+                }
+                if (instance.choixBinome[c] != InstanceAffectation.AUCUN) {
+                    cout += surcout[enc];
+                }
+            }
+            arcChoix[c] = flot.ajouterArc(1 + e, premierSujet + s, 1, cout);
+        }
+        for (int s = 0; s < m; s++) {
+            if (!etat.estDisponible(s)) {
+                continue;
+            }
+            int enc = instance.sujetEncadrant[s];
+            if (enc == InstanceAffectation.AUCUN) {
+                flot.ajouterArc(premierSujet + s, puits, 1, 0);
+            } else if (!stricte || places[enc] > 0) {
+                flot.ajouterArc(premierSujet + s, premierEncadrant + enc, 1, 0);
+            }
+        }
+        for (int enc = 0; enc < k; enc++) {
+            if (places[enc] > 0) {
+                flot.ajouterArc(premierEncadrant + enc, puits, places[enc], 0);
+            }
+            if (!stricte) {
+                flot.ajouterArc(premierEncadrant + enc, puits, n, penaliteDepassement);
+            }
+        }
+
+        flot.resoudre(source, puits, etat::verifierAnnulation);
+
+        int nbRetenus = 0;
+        int[] retenus = new int[Math.min(n, m)];
+        for (int c = 0; c < instance.nbChoix; c++) {
+            if (arcChoix[c] >= 0 && flot.flux(arcChoix[c]) > 0) {
+                retenus[nbRetenus++] = c;
+            }
+        }
+        return Arrays.copyOf(retenus, nbRetenus);
+    }
+
+    private static void affecterRetenus(EtatAffectation etat, int[] retenus) {
+        for (int c : retenus) {
+            if (c != InstanceAffectation.AUCUN) {
+                etat.affecterChoix(c);
+            }
+        }
+    }
+
+    // Places occupées par les choix retenus au-delà des places restantes de chaque encadrant
+    private static int[] depassements(InstanceAffectation instance, EtatAffectation etat, int[] retenus) {
+        int[] depassement = new int[instance.nbEncadrants];
+        for (int enc = 0; enc < instance.nbEncadrants; enc++) {
+            depassement[enc] = -etat.placesRestantes(enc);
+        }
+        for (int c : retenus) {
+            int enc = instance.sujetEncadrant[instance.choixSujet[c]];
+            if (enc != InstanceAffectation.AUCUN) {
+                depassement[enc] += instance.tailleGroupe(c);
+            }
+        }
+        return depassement;
+    }
+
+    private static boolean depasse(InstanceAffectation instance, EtatAffectation etat, int[] retenus) {
+        return Arrays.stream(depassements(instance, etat, retenus)).anyMatch(d -> d > 0);
+    }
+
+    // Relève le surcoût des binômes chez les encadrants en dépassement ; faux s'il n'y en a aucun
+    private static boolean augmenterSurcouts(InstanceAffectation instance, EtatAffectation etat,
+                                             int[] retenus, long[] surcout) {
+        int[] depassement = depassements(instance, etat, retenus);
+        boolean depasse = false;
+        for (int enc = 0; enc < instance.nbEncadrants; enc++) {
+            if (depassement[enc] > 0) {
+                surcout[enc] += PAS_SURCOUT * depassement[enc];
+                depasse = true;
+            }
+        }
+        return depasse;
+    }
+
+    // Les binômes comptent pour deux places : on retire les moins satisfaisants en cas de dépassement
+    private static boolean retirerDepassements(InstanceAffectation instance, EtatAffectation etat, int[] retenus) {
+        int[] depassement = depassements(instance, etat, retenus);
+        Integer[] ordre = new Integer[retenus.length];
+        for (int i = 0; i < retenus.length; i++) {
+            ordre[i] = i;
+        }
+        Arrays.sort(ordre, (a, b) -> Long.compare(
+                Satisfaction.choix(instance, retenus[a]), Satisfaction.choix(instance, retenus[b])));
+        boolean retires = false;
+        for (int i : ordre) {
+            int c = retenus[i];
+            int enc = instance.sujetEncadrant[instance.choixSujet[c]];
+            if (enc != InstanceAffectation.AUCUN && depassement[enc] > 0
+                    && instance.choixBinome[c] != InstanceAffectation.AUCUN) {
+                depassement[enc] -= 2;
+                retenus[i] = InstanceAffectation.AUCUN;
+                retires = true;
+            }
+        }
+        return retires;
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.demo.services.affectation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Découpe le graphe des choix (étudiants, binômes, sujets et, si la capacité
+ * des encadrants est limitée, encadrants) en composantes connexes, puis
+ * résout chaque composante indépendamment avec la stratégie déléguée dans
+ * un {@link ForkJoinPool}. En pratique les composantes suivent les domaines :
+ * les étudiants choisissent rarement hors de leur département.
+ * Les composantes n'ayant aucun étudiant, sujet ni encadrant en commun, le
+ * résultat équivaut à une résolution globale, au départage des égalités
+ * près. Avec des binômes et une capacité stricte, le mode optimal garde sa
+ * meilleure solution par composante et peut donc retenir d'autres
+ * affectations qu'une résolution globale.
+ */
+public class AffectationPartitionnee implements StrategieAffectation {
+
+    // Nombre de choix minimal d'un lot de petites composantes traité par une tâche
+    private static final int TAILLE_LOT = 2_000;
+
+    private final StrategieAffectation strategie;
+    private final boolean lierEncadrants;
+    private final ForkJoinPool pool;
+
+    public AffectationPartitionnee(StrategieAffectation strategie, boolean lierEncadrants, ForkJoinPool pool) {
+        this.strategie = strategie;
+        this.lierEncadrants = lierEncadrants;
+        this.pool = pool;
+    }
+
+    @Override
+    public void affecter(InstanceAffectation instance, EtatAffectation etat) {
+        List<Composante> composantes = decouper(instance, etat);
+        if (composantes.isEmpty()) {
+            return;
+        }
+        int[] chargesEnCours = chargesEnCours(instance, etat.getResultat());
+        int[] debuts = lots(composantes);
+        // Renumérotation partagée : les composantes n'ont aucun étudiant ni sujet en commun
+        Renumerotation renumerotation = new Renumerotation(
+                new int[instance.nbEtudiants], new int[instance.nbSujets], chargesEnCours);
+        pool.invoke(new Lot(composantes, debuts, 0, debuts.length - 1, instance, etat, renumerotation));
+
+        // Fusion dans l'ordre des composantes, pour un résultat déterministe
+        for (Composante composante : composantes) {
+            ResultatAffectation partiel = composante.resultat;
+            for (int i = 0; i < partiel.taille(); i++) {
+                int e2 = partiel.etudiant2(i);
+                int c = partiel.choix(i);
+                etat.affecter(
+                        composante.sujets[partiel.sujet(i)],
+                        composante.etudiants[partiel.etudiant1(i)],
+                        e2 != InstanceAffectation.AUCUN ? composante.etudiants[e2] : InstanceAffectation.AUCUN,
+                        c != InstanceAffectation.AUCUN ? composante.choix[c] : InstanceAffectation.AUCUN);
+            }
+        }
+    }
+
+    private List<Composante> decouper(InstanceAffectation instance, EtatAffectation etat) {
+        int n = instance.nbEtudiants;
+        int m = instance.nbSujets;
+        int[] parent = new int[n + m + instance.nbEncadrants];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        BitSet utiles = new BitSet(instance.nbChoix);
+        for (int c = 0; c < instance.nbChoix; c++) {
+            int e = instance.choixEtudiant[c];
+            int s = instance.choixSujet[c];
+            if (!etat.groupeLibre(c) || !etat.estDisponible(s)) {
+                continue;
+            }
+            utiles.set(c);
+            unir(parent, e, n + s);
+            if (instance.choixBinome[c] != InstanceAffectation.AUCUN) {
+                unir(parent, e, instance.choixBinome[c]);
+            }
+            if (lierEncadrants && instance.sujetEncadrant[s] != InstanceAffectation.AUCUN) {
+                unir(parent, n + s, n + m + instance.sujetEncadrant[s]);
+            }
+        }
+
+        // Numérotation des composantes par leur premier choix utile
+        int[] numero = new int[parent.length];
+        Arrays.fill(numero, -1);
+        int nb = 0;
+        int[] nbChoix = new int[instance.nbChoix];
+        for (int c = utiles.nextSetBit(0); c >= 0; c = utiles.nextSetBit(c + 1)) {
+            int r = trouver(parent, instance.choixEtudiant[c]);
+            if (numero[r] < 0) {
+                numero[r] = nb++;
+            }
+            nbChoix[numero[r]]++;
+        }
+        int[] nbEtudiants = new int[nb];
+        int[] nbSujets = new int[nb];
+        for (int e = 0; e < n; e++) {
+            int r = numero[trouver(parent, e)];
+            if (r >= 0) {
+                nbEtudiants[r]++;
+            }
+        }
+        for (int s = 0; s < m; s++) {
+            int r = numero[trouver(parent, n + s)];
+            if (r >= 0) {
+                nbSujets[r]++;
+            }
+        }
+
+        List<Composante> composantes = new ArrayList<>(nb);
+        for (int i = 0; i < nb; i++) {
+            composantes.add(new Composante(nbEtudiants[i], nbSujets[i], nbChoix[i]));
+        }
+        for (int e = 0; e < n; e++) {
+            int r = numero[trouver(parent, e)];
+            if (r >= 0) {
+                Composante composante = composantes.get(r);
+                composante.etudiants[composante.nbEtudiants++] = e;
+            }
+        }
+        for (int s = 0; s < m; s++) {
+            int r = numero[trouver(parent, n + s)];
+            if (r >= 0) {
+                Composante composante = composantes.get(r);
+                composante.sujets[composante.nbSujets++] = s;
+            }
+        }
+        for (int c = utiles.nextSetBit(0); c >= 0; c = utiles.nextSetBit(c + 1)) {
+            Composante composante = composantes.get(numero[trouver(parent, instance.choixEtudiant[c])]);
+            composante.choix[composante.nbChoix++] = c;
+        }
+        return composantes;
+    }
+
+    private static int trouver(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private static void unir(int[] parent, int a, int b) {
+        int ra = trouver(parent, a);
+        int rb = trouver(parent, b);
+        if (ra != rb) {
+            parent[Math.max(ra, rb)] = Math.min(ra, rb);
+        }
+    }
+
+    // Étudiants déjà placés pendant l'exécution (propositions), par encadrant
+    private static int[] chargesEnCours(InstanceAffectation instance, ResultatAffectation resultat) {
+        int[] charges = new int[instance.nbEncadrants];
+        for (int i = 0; i < resultat.taille(); i++) {
+            int enc = instance.sujetEncadrant[resultat.sujet(i)];
+            if (enc != InstanceAffectation.AUCUN) {
+                charges[enc] += resultat.etudiant2(i) != InstanceAffectation.AUCUN ? 2 : 1;
+            }
+        }
+        return charges;
+    }
+
+    /**
+     * Regroupe les composantes en lots d'au moins {@link #TAILLE_LOT} choix :
+     * retourne, pour chaque lot, l'index de sa première composante.
+     */
+    private static int[] lots(List<Composante> composantes) {
+        int[] debuts = new int[composantes.size() + 1];
+        int nb = 0;
+        int taille = TAILLE_LOT;
+        for (int i = 0; i < composantes.size(); i++) {
+            if (taille >= TAILLE_LOT) {
+                debuts[nb++] = i;
+                taille = 0;
+            }
+            taille += composantes.get(i).choix.length;
+        }
+        debuts[nb] = composantes.size();
+        return Arrays.copyOf(debuts, nb + 1);
+    }
+
+    /** Tableaux de travail de la taille de l'instance, partagés par toutes les sous-instances. */
+    private record Renumerotation(int[] indexEtudiant, int[] indexSujet, int[] chargesEnCours) {
+    }
+
+    private static final class Composante {
+        final int[] etudiants;
+        final int[] sujets;
+        final int[] choix;
+        int nbEtudiants;
+        int nbSujets;
+        int nbChoix;
+        ResultatAffectation resultat;
+
+        Composante(int nbEtudiants, int nbSujets, int nbChoix) {
+            this.etudiants = new int[nbEtudiants];
+            this.sujets = new int[nbSujets];
+            this.choix = new int[nbChoix];
+        }
+    }
+
+    /** Tâche résolvant les lots [premier, dernier) par division récursive. */
+    private final class Lot extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Composante> composantes;
+        private final int[] debuts;
+        private final int premier;
+        private final int dernier;
+        private final InstanceAffectation instance;
+        private final EtatAffectation etat;
+        private final Renumerotation renumerotation;
+
+        Lot(List<Composante> composantes, int[] debuts, int premier, int dernier,
+            InstanceAffectation instance, EtatAffectation etat, Renumerotation renumerotation) {
+            this.composantes = composantes;
+            this.debuts = debuts;
+            this.premier = premier;
+            this.dernier = dernier;
+            this.instance = instance;
+            this.etat = etat;
+            this.renumerotation = renumerotation;
+        }
+
+        @Override
+        protected void compute() {
+            if (dernier - premier > 1) {
+                int milieu = (premier + dernier) >>> 1;
+                invokeAll(
+                        new Lot(composantes, debuts, premier, milieu, instance, etat, renumerotation),
+                        new Lot(composantes, debuts, milieu, dernier, instance, etat, renumerotation));
+                return;
+            }
+            for (int i = debuts[premier]; i < debuts[dernier]; i++) {
+                Composante composante = composantes.get(i);
+                InstanceAffectation sousInstance = instance.extraire(
+                        etat, composante.etudiants, composante.sujets, composante.choix,
+                        renumerotation.chargesEnCours(), renumerotation.indexEtudiant(), renumerotation.indexSujet());
+                EtatAffectation sousEtat = new EtatAffectation(
+                        sousInstance, etat.getSuivi(), etat.getCapaciteEncadrant(), etat.isCapaciteStricte());
+                strategie.affecter(sousInstance, sousEtat);
+                composante.resultat = sousEtat.getResultat();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.demo.services.affectation;
+
+import java.util.Arrays;
+
+/**
+ * Mariage stable de Gale-Shapley, version « les étudiants proposent » :
+ * chaque étudiant libre propose au sujet suivant de sa liste (ordre de
+ * préférence), et un sujet garde le candidat le mieux classé (moyenne puis
+ * ordre de mérite). Le résultat est stable et optimal pour les étudiants,
+ * et ne dépend pas de l'ordre de chargement des sujets.
+ * Avec une capacité stricte, un encadrant plein renvoie le candidat le moins
+ * bien classé parmi ceux retenus sur ses sujets (variante « hôpitaux /
+ * résidents ») ; le résultat reste stable.
+ * Complexité : O(choix) après un tri initial des étudiants par mérite, plus
+ * un parcours des sujets de l'encadrant à chaque renvoi pour capacité.
+ */
+public class AffectationStable implements StrategieAffectation {
+
+    @Override
+    public void affecter(InstanceAffectation instance, EtatAffectation etat) {
+        int[] rang = instance.rangsMerite;
+        int[] retenu = new int[instance.nbSujets];
+        Arrays.fill(retenu, InstanceAffectation.AUCUN);
+
+        // Position courante de chaque étudiant dans sa liste de choix
+        int[] prochain = Arrays.copyOf(instance.etudiantChoixDebut, instance.nbEtudiants);
+        int[] libres = new int[instance.nbEtudiants];
+        int nbLibres = 0;
+        for (int e = instance.nbEtudiants - 1; e >= 0; e--) {
+            if (!etat.estAffecte(e) && prochain[e] < instance.etudiantChoixDebut[e + 1]) {
+                libres[nbLibres++] = e;
+            }
+        }
+
+        Capacites capacites = etat.isCapaciteStricte() && etat.getCapaciteEncadrant() > 0
+                ? new Capacites(instance, etat)
+                : null;
+
+        int iterations = 0;
+        while (nbLibres > 0) {
+            if ((++iterations & 0x3FF) == 0) {
+                etat.verifierAnnulation();
+            }
+            int e = libres[--nbLibres];
+            int fin = instance.etudiantChoixDebut[e + 1];
+            while (prochain[e] < fin) {
+                int c = instance.etudiantChoix[prochain[e]++];
+                int s = instance.choixSujet[c];
+                if (!etat.estDisponible(s) || !etat.groupeLibre(c)) {
+                    continue;
+                }
+                int actuel = retenu[s];
+                if (actuel != InstanceAffectation.AUCUN && rang[e] >= rang[instance.choixEtudiant[actuel]]) {
+                    continue;
+                }
+                retenu[s] = c;
+                if (actuel != InstanceAffectation.AUCUN) {
+                    libres[nbLibres++] = instance.choixEtudiant[actuel];
+                }
+                if (capacites == null) {
+                    break;
+                }
+                capacites.retenir(c, actuel);
+                // Renvoyer les moins bien classés tant que l'encadrant dépasse sa capacité
+                int renvoye;
+                while ((renvoye = capacites.renvoyer(s, retenu, rang)) != InstanceAffectation.AUCUN) {
+                    retenu[instance.choixSujet[renvoye]] = InstanceAffectation.AUCUN;
+                    if (renvoye != c) {
+                        libres[nbLibres++] = instance.choixEtudiant[renvoye];
+                    }
+                }
+                if (retenu[s] == c) {
+                    break;
+                }
+            }
+        }
+
+        for (int s = 0; s < instance.nbSujets; s++) {
+            if (etat.estDisponible(s)) {
+                etat.sujetTraite();
+            }
+            int c = retenu[s];
+            if (c != InstanceAffectation.AUCUN) {
+                etat.affecterChoix(c);
+            }
+        }
+    }
+
+    /** Charges provisoires des encadrants pendant les propositions. */
+    private static final class Capacites {
+        private final InstanceAffectation instance;
+        private final int capacite;
+        private final int[] charges;
+        // Sujets disponibles de chaque encadrant (index CSR)
+        private final int[] debut;
+        private final int[] sujets;
+
+        Capacites(InstanceAffectation instance, EtatAffectation etat) {
+            this.instance = instance;
+            this.capacite = etat.getCapaciteEncadrant();
+            this.charges = etat.getCharges();
+            this.debut = new int[instance.nbEncadrants + 1];
+            for (int s = 0; s < instance.nbSujets; s++) {
+                int enc = instance.sujetEncadrant[s];
+                if (enc != InstanceAffectation.AUCUN && etat.estDisponible(s)) {
+                    debut[enc + 1]++;
+                }
+            }
+            for (int enc = 0; enc < instance.nbEncadrants; enc++) {
+                debut[enc + 1] += debut[enc];
+            }
+            this.sujets = new int[debut[instance.nbEncadrants]];
+            int[] position = Arrays.copyOf(debut, instance.nbEncadrants);
+            for (int s = 0; s < instance.nbSujets; s++) {
+                int enc = instance.sujetEncadrant[s];
+                if (enc != InstanceAffectation.AUCUN && etat.estDisponible(s)) {
+                    sujets[position[enc]++] = s;
+                }
+            }
+        }
+
+        /** Le choix {@code c} remplace {@code remplace} (ou AUCUN) sur son sujet. */
+        void retenir(int c, int remplace) {
+            int enc = instance.sujetEncadrant[instance.choixSujet[c]];
+            if (enc == InstanceAffectation.AUCUN) {
+                return;
+            }
+            charges[enc] += instance.tailleGroupe(c);
+            if (remplace != InstanceAffectation.AUCUN) {
+                charges[enc] -= instance.tailleGroupe(remplace);
+            }
+        }
+
+        /**
+         * Si l'encadrant du sujet dépasse sa capacité, retire de sa charge le
+         * choix retenu le moins bien classé et le retourne ; sinon AUCUN.
+         */
+        int renvoyer(int sujet, int[] retenu, int[] rang) {
+            int enc = instance.sujetEncadrant[sujet];
+            if (enc == InstanceAffectation.AUCUN || charges[enc] <= capacite) {
+                return InstanceAffectation.AUCUN;
+            }
+            int pire = InstanceAffectation.AUCUN;
+            for (int k = debut[enc]; k < debut[enc + 1]; k++) {
+                int c = retenu[sujets[k]];
+                if (c != InstanceAffectation.AUCUN
+                        && (pire == InstanceAffectation.AUCUN
+                        || rang[instance.choixEtudiant[c]] > rang[instance.choixEtudiant[pire]])) {
+                    pire = c;
+                }
+            }
+            if (pire != InstanceAffectation.AUCUN) {
+                charges[enc] -= instance.tailleGroupe(pire);
+            }
+            return pire;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.services.affectation;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Regroupement des binômes avant exécution : chaque binôme devient une unité
+ * représentée par son membre le mieux classé, qui porte tous les choix du
+ * binôme. L'autre membre n'a plus de choix propre et ne peut donc plus être
+ * placé ailleurs pendant la même exécution.
+ * <p>
+ * Les liens de binôme (étudiant -> binôme désigné dans un choix) sont réunis
+ * par union-find. Une composante de deux étudiants forme un binôme. Une
+ * composante plus grande signale des choix contradictoires (A désigne B, B
+ * désigne C...) : les binômes y sont retenus de façon déterministe, liens
+ * réciproques d'abord puis par ordre de saisie des choix, chaque étudiant
+ * n'appartenant qu'à un binôme. Sont écartés les choix d'un étudiant en
+ * binôme qui ne désignent pas son binôme (y compris ses choix en solo) et
+ * ceux qui désignent un étudiant retenu dans un autre binôme.
+ */
+final class Binomes {
+
+    int nbChoix;
+    int[] choixEtudiant;
+    int[] choixSujet;
+    int[] choixBinome;
+    int[] choixOrdre;
+    BitSet choixProposes;
+    int nbChoixEcartes;
+
+    Binomes(int nbEtudiants, int nbChoix, int[] etudiants, int[] sujets, int[] binomes, int[] ordres,
+            BitSet proposes, int[] rangsMerite) {
+        int[] partenaire = former(nbEtudiants, nbChoix, etudiants, binomes);
+
+        choixEtudiant = new int[nbChoix];
+        choixSujet = new int[nbChoix];
+        choixBinome = new int[nbChoix];
+        choixOrdre = new int[nbChoix];
+        choixProposes = new BitSet(nbChoix);
+        for (int c = 0; c < nbChoix; c++) {
+            int e = etudiants[c];
+            int b = binomes[c];
+            if (b != partenaire[e]) {
+                nbChoixEcartes++;
+                continue;
+            }
+            int i = this.nbChoix++;
+            // Le membre le mieux classé représente le binôme
+            boolean inverser = b != InstanceAffectation.AUCUN && rangsMerite[b] < rangsMerite[e];
+            choixEtudiant[i] = inverser ? b : e;
+            choixBinome[i] = inverser ? e : b;
+            choixSujet[i] = sujets[c];
+            choixOrdre[i] = ordres[c];
+            choixProposes.set(i, proposes.get(c));
+        }
+    }
+
+    /** Binôme retenu de chaque étudiant, ou {@link InstanceAffectation#AUCUN}. */
+    private static int[] former(int nbEtudiants, int nbChoix, int[] etudiants, int[] binomes) {
+        int[] parent = new int[nbEtudiants];
+        int[] taille = new int[nbEtudiants];
+        for (int e = 0; e < nbEtudiants; e++) {
+            parent[e] = e;
+            taille[e] = 1;
+        }
+        // Choix désignant un binôme, dans l'ordre de saisie
+        int[] liens = new int[nbChoix];
+        int nbLiens = 0;
+        for (int c = 0; c < nbChoix; c++) {
+            if (binomes[c] == InstanceAffectation.AUCUN) {
+                continue;
+            }
+            int ra = trouver(parent, etudiants[c]);
+            int rb = trouver(parent, binomes[c]);
+            if (ra != rb) {
+                if (taille[ra] < taille[rb]) {
+                    int t = ra;
+                    ra = rb;
+                    rb = t;
+                }
+                parent[rb] = ra;
+                taille[ra] += taille[rb];
+            }
+            liens[nbLiens++] = c;
+        }
+
+        int[] partenaire = new int[nbEtudiants];
+        Arrays.fill(partenaire, InstanceAffectation.AUCUN);
+
+        // Composantes de deux étudiants : binôme sans ambiguïté
+        Map<Long, Integer> premierLien = new HashMap<>();
+        BitSet reciproque = new BitSet(nbChoix);
+        int[] candidats = new int[nbLiens];
+        int nbCandidats = 0;
+        for (int i = 0; i < nbLiens; i++) {
+            int c = liens[i];
+            int e = etudiants[c];
+            int b = binomes[c];
+            if (taille[trouver(parent, e)] == 2) {
+                partenaire[e] = b;
+                partenaire[b] = e;
+                continue;
+            }
+            // Composante contradictoire : un candidat par paire, marqué s'il est réciproque
+            long paire = (long) Math.min(e, b) * nbEtudiants + Math.max(e, b);
+            Integer premier = premierLien.putIfAbsent(paire, c);
+            if (premier == null) {
+                candidats[nbCandidats++] = c;
+            } else if (etudiants[premier] != e) {
+                reciproque.set(premier);
+            }
+        }
+
+        // Liens réciproques d'abord, puis ordre de saisie ; chaque étudiant dans un seul binôme
+        long[] ordre = new long[nbCandidats];
+        for (int i = 0; i < nbCandidats; i++) {
+            int c = candidats[i];
+            ordre[i] = (reciproque.get(c) ? 0L : 1L << 32) | c;
+        }
+        Arrays.sort(ordre);
+        for (long cle : ordre) {
+            int c = (int) cle;
+            int e = etudiants[c];
+            int b = binomes[c];
+            if (partenaire[e] == InstanceAffectation.AUCUN && partenaire[b] == InstanceAffectation.AUCUN) {
+                partenaire[e] = b;
+                partenaire[b] = e;
+            }
+        }
+        return partenaire;
+    }
+
+    private static int trouver(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.services.affectation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.demo.entity.ChoixEtudiant;
+import com.example.demo.entity.Etudiant;
+import com.example.demo.entity.Sujet;
+
+/**
+ * Entités chargées pour une campagne, alignées sur les index de
+ * l'{@link InstanceAffectation} construite à partir d'elles. Permet de
+ * retrouver les entités à persister à partir d'un {@link ResultatAffectation}.
+ * Une fois construit, l'objet n'est plus modifié et peut servir d'instantané
+ * pour plusieurs simulations.
+ */
+public final class DonneesAffectation {
+
+    private final InstanceAffectation instance;
+    private final Etudiant[] etudiants;
+    private final Sujet[] sujets;
+    private final List<ChoixEtudiant> choix;
+    // Sujet actuellement affecté à chaque étudiant, ou AUCUN
+    private final int[] sujetsActuels;
+    // Index par identifiant
+    private final Map<Integer, Integer> indexEtudiants;
+    private final Map<Integer, Integer> indexSujets;
+    private volatile InstanceAffectation instanceVierge;
+
+    private DonneesAffectation(InstanceAffectation instance, Etudiant[] etudiants, Sujet[] sujets,
+                               List<ChoixEtudiant> choix, int[] sujetsActuels) {
+        this.instance = instance;
+        this.etudiants = etudiants;
+        this.sujets = sujets;
+        this.choix = choix;
+        this.sujetsActuels = sujetsActuels;
+        this.indexEtudiants = new HashMap<>(etudiants.length * 2);
+        for (int e = 0; e < etudiants.length; e++) {
+            indexEtudiants.put(etudiants[e].getIdEtudiant(), e);
+        }
+        this.indexSujets = new HashMap<>(sujets.length * 2);
+        for (int s = 0; s < sujets.length; s++) {
+            indexSujets.put(sujets[s].getId(), s);
+        }
+    }
+
+    /**
+     * @param charges étudiants déjà encadrés par enseignant (identifiant),
+     *                d'après les affectations existantes
+     */
+    public static DonneesAffectation depuis(List<Etudiant> etudiants, List<Sujet> sujets, List<ChoixEtudiant> choix,
+                                            Map<Integer, Integer> charges) {
+        InstanceAffectation.Builder builder = construire(etudiants, sujets, choix, true);
+        charges.forEach(builder::ajouterCharge);
+        InstanceAffectation instance = builder.build();
+
+        Etudiant[] tabEtudiants = new Etudiant[instance.nbEtudiants];
+        for (int e = 0; e < tabEtudiants.length; e++) {
+            tabEtudiants[e] = etudiants.get(e);
+        }
+        Sujet[] tabSujets = new Sujet[instance.nbSujets];
+        int[] sujetsActuels = new int[instance.nbEtudiants];
+        Arrays.fill(sujetsActuels, InstanceAffectation.AUCUN);
+        for (int s = 0; s < tabSujets.length; s++) {
+            tabSujets[s] = sujets.get(s);
+            if (tabSujets[s].getAffectation() != null) {
+                marquerSujetActuel(builder, sujetsActuels, tabSujets[s].getAffectation().getEtudiant1(), s);
+                marquerSujetActuel(builder, sujetsActuels, tabSujets[s].getAffectation().getEtudiant2(), s);
+            }
+        }
+        return new DonneesAffectation(instance, tabEtudiants, tabSujets, choix, sujetsActuels);
+    }
+
+    private static void marquerSujetActuel(InstanceAffectation.Builder builder, int[] sujetsActuels,
+                                           Etudiant etudiant, int sujet) {
+        if (etudiant != null) {
+            int e = builder.indexEtudiant(etudiant.getIdEtudiant());
+            if (e != InstanceAffectation.AUCUN) {
+                sujetsActuels[e] = sujet;
+            }
+        }
+    }
+
+    /**
+     * Les étudiants et sujets sont ajoutés dans l'ordre des listes : leurs
+     * index dans l'instance sont leurs positions dans ces listes. Sans les
+     * affectations existantes, les charges des encadrants partent de zéro.
+     */
+    private static InstanceAffectation.Builder construire(List<Etudiant> etudiants, List<Sujet> sujets,
+                                                          List<ChoixEtudiant> choix, boolean avecExistantes) {
+        InstanceAffectation.Builder builder = InstanceAffectation.builder();
+        for (Etudiant e : etudiants) {
+            builder.ajouterEtudiant(e.getIdEtudiant(), e.getMoyenne(), e.getOrdreMerite());
+        }
+
+        for (Sujet s : sujets) {
+            Integer encadrantId = s.getEncadrant() != null ? s.getEncadrant().getIdEnseignant() : null;
+            boolean valide = Boolean.TRUE.equals(s.getEstValide());
+            boolean affecte = avecExistantes && s.getAffectation() != null;
+            builder.ajouterSujet(s.getId(), encadrantId, valide, affecte);
+            if (affecte) {
+                if (s.getAffectation().getEtudiant1() != null) {
+                    builder.marquerEtudiantAffecte(s.getAffectation().getEtudiant1().getIdEtudiant());
+                }
+                if (s.getAffectation().getEtudiant2() != null) {
+                    builder.marquerEtudiantAffecte(s.getAffectation().getEtudiant2().getIdEtudiant());
+                }
+            }
+        }
+
+        for (ChoixEtudiant c : choix) {
+            if (c.getEtudiant() == null || c.getSujet() == null) {
+                continue;
+            }
+            builder.ajouterChoix(
+                    c.getEtudiant().getIdEtudiant(),
+                    c.getSujet().getId(),
+                    c.getOrdrePreference(),
+                    c.getBinome() != null ? c.getBinome().getIdEtudiant() : null,
+                    c.isEstPropose());
+        }
+        return builder;
+    }
+
+    public InstanceAffectation getInstance() {
+        return instance;
+    }
+
+    /**
+     * Même campagne sans tenir compte des affectations existantes, pour
+     * simuler une affectation complète. Construite au premier appel.
+     */
+    public InstanceAffectation getInstanceVierge() {
+        InstanceAffectation vierge = instanceVierge;
+        if (vierge == null) {
+            synchronized (this) {
+                vierge = instanceVierge;
+                if (vierge == null) {
+                    vierge = construire(Arrays.asList(etudiants), Arrays.asList(sujets), choix, false).build();
+                    instanceVierge = vierge;
+                }
+            }
+        }
+        return vierge;
+    }
+
+    /** Entité correspondant à un index d'étudiant, ou null pour {@link InstanceAffectation#AUCUN}. */
+    public Etudiant etudiant(int index) {
+        return index == InstanceAffectation.AUCUN ? null : etudiants[index];
+    }
+
+    public Sujet sujet(int index) {
+        return sujets[index];
+    }
+
+    /** Index de l'étudiant d'identifiant donné, ou {@link InstanceAffectation#AUCUN}. */
+    public int indexEtudiant(Integer id) {
+        return indexEtudiants.getOrDefault(id, InstanceAffectation.AUCUN);
+    }
+
+    /** Index du sujet d'identifiant donné, ou {@link InstanceAffectation#AUCUN}. */
+    public int indexSujet(Integer id) {
+        return indexSujets.getOrDefault(id, InstanceAffectation.AUCUN);
+    }
+
+    /** Index du sujet actuellement affecté à l'étudiant, ou {@link InstanceAffectation#AUCUN}. */
+    public int sujetActuel(int etudiant) {
+        return sujetsActuels[etudiant];
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.demo.services.affectation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Format d'échange des données d'une campagne d'affectation, pour exécuter
+ * le moteur hors du serveur (voir {@link AffectationHorsLigne}). Un fichier
+ * est une suite d'enregistrements lue et écrite en flux, sans tout charger
+ * en mémoire sous forme d'objets :
+ * <pre>
+ * E;idEtudiant;moyenne;ordreMerite;idEncadrantActuel;dejaAffecte
+ * S;idSujet;idEncadrant;valide;dejaAffecte
+ * C;idEtudiant;idSujet;ordrePreference;idBinome;propose
+ * A;idSujet;idEtudiant1;idEtudiant2;idEncadrant;ordrePreference
+ * </pre>
+ * Les enregistrements E, S et C décrivent la campagne, A le résultat. En CSV
+ * un champ facultatif absent est vide, les booléens valent 0 ou 1 et les
+ * lignes commençant par # sont ignorées. Le format binaire reprend les mêmes
+ * enregistrements : un octet de type puis les champs en entiers 32 bits (0
+ * pour un identifiant absent, -1 pour un ordre absent), la moyenne en double
+ * (NaN si absente), les booléens en un octet.
+ * <p>
+ * Les choix peuvent précéder les étudiants et sujets qu'ils référencent :
+ * ils sont ajoutés à l'instance une fois le fichier entièrement lu.
+ */
+public final class EchangeAffectation {
+
+    private static final int MAGIC = 0x41464631; // "AFF1"
+    private static final int AUCUN_ID = 0;
+    private static final int AUCUN_ORDRE = -1;
+
+    public enum Format {
+        CSV, BINAIRE;
+
+        /** Format déduit de l'extension : .bin pour le binaire, CSV sinon. */
+        public static Format depuisNomFichier(String nom) {
+            return nom.endsWith(".bin") ? BINAIRE : CSV;
+        }
+    }
+
+    /** Écriture en flux d'enregistrements ; {@link #close()} vide le tampon et ferme le flux. */
+    public interface Ecrivain extends Closeable {
+
+        void etudiant(int id, Double moyenne, Integer ordreMerite, Integer encadrantId, boolean dejaAffecte)
+                throws IOException;
+
+        void sujet(int id, Integer encadrantId, boolean valide, boolean dejaAffecte) throws IOException;
+
+        void choix(int etudiantId, int sujetId, Integer ordrePreference, Integer binomeId, boolean propose)
+                throws IOException;
+
+        void affectation(int sujetId, int etudiant1Id, Integer etudiant2Id, Integer encadrantId,
+                         Integer ordrePreference) throws IOException;
+    }
+
+    private EchangeAffectation() {
+    }
+
+    public static Ecrivain ecrivain(OutputStream sortie, Format format) throws IOException {
+        return format == Format.BINAIRE ? new EcrivainBinaire(sortie) : new EcrivainCsv(sortie);
+    }
+
+    /** Lit une campagne (enregistrements E, S et C) et construit l'instance du moteur. */
+    public static InstanceAffectation lire(InputStream entree, Format format) throws IOException {
+        Lecture lecture = new Lecture();
+        if (format == Format.BINAIRE) {
+            lireBinaire(entree, lecture);
+        } else {
+            lireCsv(entree, lecture);
+        }
+        return lecture.construire();
+    }
+
+    /** Écrit le résultat du moteur (enregistrements A), identifiants de la campagne. */
+    public static void ecrireResultat(Ecrivain ecrivain, InstanceAffectation instance,
+                                      ResultatAffectation resultat) throws IOException {
+        for (int i = 0; i < resultat.taille(); i++) {
+            int s = resultat.sujet(i);
+            int e2 = resultat.etudiant2(i);
+            int enc = instance.encadrant(s);
+            int c = resultat.choix(i);
+            ecrivain.affectation(
+                    instance.sujetId(s),
+                    instance.etudiantId(resultat.etudiant1(i)),
+                    e2 != InstanceAffectation.AUCUN ? instance.etudiantId(e2) : null,
+                    enc != InstanceAffectation.AUCUN ? instance.encadrantId(enc) : null,
+                    c != InstanceAffectation.AUCUN ? instance.choixOrdre[c] : null);
+        }
+    }
+
+    // Étudiants et sujets vont directement dans le builder, les choix attendent la fin du fichier
+    private static final class Lecture {
+        private final InstanceAffectation.Builder builder = InstanceAffectation.builder();
+        private int nbChoix;
+        private int[] choix = new int[1024 * 5];
+
+        void etudiant(int id, Double moyenne, Integer ordreMerite, int encadrantId, boolean dejaAffecte) {
+            builder.ajouterEtudiant(id, moyenne, ordreMerite);
+            if (encadrantId != AUCUN_ID) {
+                builder.ajouterCharge(encadrantId, 1);
+            }
+            if (dejaAffecte) {
+                builder.marquerEtudiantAffecte(id);
+            }
+        }
+
+        void sujet(int id, int encadrantId, boolean valide, boolean dejaAffecte) {
+            builder.ajouterSujet(id, encadrantId != AUCUN_ID ? encadrantId : null, valide, dejaAffecte);
+        }
+
+        void choix(int etudiantId, int sujetId, int ordre, int binomeId, boolean propose) {
+            if (nbChoix + 5 > choix.length) {
+                choix = Arrays.copyOf(choix, choix.length * 2);
+            }
+            choix[nbChoix++] = etudiantId;
+            choix[nbChoix++] = sujetId;
+            choix[nbChoix++] = ordre;
+            choix[nbChoix++] = binomeId;
+            choix[nbChoix++] = propose ? 1 : 0;
+        }
+
+        InstanceAffectation construire() {
+            for (int i = 0; i < nbChoix; i += 5) {
+                builder.ajouterChoix(choix[i], choix[i + 1],
+                        choix[i + 2] != AUCUN_ORDRE ? choix[i + 2] : null,
+                        choix[i + 3] != AUCUN_ID ? choix[i + 3] : null,
+                        choix[i + 4] == 1);
+            }
+            return builder.build();
+        }
+    }
+
+    // ---------------------------------------------------------------- CSV
+
+    private static void lireCsv(InputStream entree, Lecture lecture) throws IOException {
+        BufferedReader lecteur = new BufferedReader(new InputStreamReader(entree, StandardCharsets.UTF_8), 1 << 16);
+        ChampsCsv champs = new ChampsCsv();
+        String ligne;
+        int numero = 0;
+        while ((ligne = lecteur.readLine()) != null) {
+            numero++;
+            if (ligne.isEmpty() || ligne.charAt(0) == '#') {
+                continue;
+            }
+            try {
+                champs.decouper(ligne);
+                switch (ligne.charAt(0)) {
+                    case 'E' -> lecture.etudiant(champs.entier(1), champs.reel(2), champs.entierOuNull(3),
+                            champs.entier(4, AUCUN_ID), champs.booleen(5));
+                    case 'S' -> lecture.sujet(champs.entier(1), champs.entier(2, AUCUN_ID),
+                            champs.booleen(3), champs.booleen(4));
+                    case 'C' -> lecture.choix(champs.entier(1), champs.entier(2), champs.entier(3, AUCUN_ORDRE),
+                            champs.entier(4, AUCUN_ID), champs.booleen(5));
+                    case 'A' -> {
+                        // Résultat d'une exécution précédente : sans effet sur la campagne
+                    }
+                    default -> throw new IllegalArgumentException("type d'enregistrement inconnu");
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Ligne " + numero + " invalide (" + e.getMessage() + ") : " + ligne, e);
+            }
+        }
+    }
+
+    // Découpage d'une ligne sans allocation de sous-chaînes pour les entiers
+    private static final class ChampsCsv {
+        private String ligne;
+        private int nb;
+        private int[] debuts = new int[8];
+        private int[] fins = new int[8];
+
+        void decouper(String ligne) {
+            this.ligne = ligne;
+            nb = 0;
+            int debut = 0;
+            while (true) {
+                int fin = ligne.indexOf(';', debut);
+                if (nb == debuts.length) {
+                    debuts = Arrays.copyOf(debuts, nb * 2);
+                    fins = Arrays.copyOf(fins, nb * 2);
+                }
+                debuts[nb] = debut;
+                fins[nb++] = fin < 0 ? ligne.length() : fin;
+                if (fin < 0) {
+                    return;
+                }
+                debut = fin + 1;
+            }
+        }
+
+        boolean estVide(int i) {
+            return i >= nb || debuts[i] == fins[i];
+        }
+
+        int entier(int i) {
+            if (estVide(i)) {
+                throw new IllegalArgumentException("champ " + (i + 1) + " obligatoire");
+            }
+            return Integer.parseInt(ligne, debuts[i], fins[i], 10);
+        }
+
+        int entier(int i, int siVide) {
+            return estVide(i) ? siVide : entier(i);
+        }
+
+        Integer entierOuNull(int i) {
+            return estVide(i) ? null : entier(i);
+        }
+
+        Double reel(int i) {
+            return estVide(i) ? null : Double.parseDouble(ligne.substring(debuts[i], fins[i]));
+        }
+
+        boolean booleen(int i) {
+            return !estVide(i) && ligne.charAt(debuts[i]) == '1';
+        }
+    }
+
+    private static final class EcrivainCsv implements Ecrivain {
+        private final Writer sortie;
+
+        EcrivainCsv(OutputStream sortie) {
+            this.sortie = new BufferedWriter(new OutputStreamWriter(sortie, StandardCharsets.UTF_8), 1 << 16);
+        }
+
+        @Override
+        public void etudiant(int id, Double moyenne, Integer ordreMerite, Integer encadrantId, boolean dejaAffecte)
+                throws IOException {
+            ligne('E', id, moyenne, ordreMerite, encadrantId, dejaAffecte ? 1 : 0);
+        }
+
+        @Override
+        public void sujet(int id, Integer encadrantId, boolean valide, boolean dejaAffecte) throws IOException {
+            ligne('S', id, encadrantId, valide ? 1 : 0, dejaAffecte ? 1 : 0);
+        }
+
+        @Override
+        public void choix(int etudiantId, int sujetId, Integer ordrePreference, Integer binomeId, boolean propose)
+                throws IOException {
+            ligne('C', etudiantId, sujetId, ordrePreference, binomeId, propose ? 1 : 0);
+        }
+
+        @Override
+        public void affectation(int sujetId, int etudiant1Id, Integer etudiant2Id, Integer encadrantId,
+                                Integer ordrePreference) throws IOException {
+            ligne('A', sujetId, etudiant1Id, etudiant2Id, encadrantId, ordrePreference);
+        }
+
+        private void ligne(char type, Object... champs) throws IOException {
+            sortie.write(type);
+            for (Object champ : champs) {
+                sortie.write(';');
+                if (champ != null) {
+                    sortie.write(champ.toString());
+                }
+            }
+            sortie.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            sortie.close();
+        }
+    }
+
+    // ------------------------------------------------------------ binaire
+
+    private static void lireBinaire(InputStream entree, Lecture lecture) throws IOException {
+        DataInputStream donnees = new DataInputStream(new BufferedInputStream(entree, 1 << 16));
+        if (donnees.readInt() != MAGIC) {
+            throw new IOException("Fichier binaire d'affectation invalide");
+        }
+        while (true) {
+            int type = donnees.read();
+            switch (type) {
+                case -1 -> {
+                    return;
+                }
+                case 'E' -> {
+                    int id = donnees.readInt();
+                    double moyenne = donnees.readDouble();
+                    int ordreMerite = donnees.readInt();
+                    lecture.etudiant(id, Double.isNaN(moyenne) ? null : moyenne,
+                            ordreMerite != AUCUN_ORDRE ? ordreMerite : null,
+                            donnees.readInt(), donnees.readBoolean());
+                }
+                case 'S' -> lecture.sujet(donnees.readInt(), donnees.readInt(),
+                        donnees.readBoolean(), donnees.readBoolean());
+                case 'C' -> lecture.choix(donnees.readInt(), donnees.readInt(), donnees.readInt(),
+                        donnees.readInt(), donnees.readBoolean());
+                case 'A' -> donnees.skipNBytes(5 * Integer.BYTES);
+                default -> throw new IOException("Type d'enregistrement inconnu : " + type);
+            }
+        }
+    }
+
+    private static final class EcrivainBinaire implements Ecrivain {
+        private final DataOutputStream sortie;
+
+        EcrivainBinaire(OutputStream sortie) throws IOException {
+            this.sortie = new DataOutputStream(new BufferedOutputStream(sortie, 1 << 16));
+            this.sortie.writeInt(MAGIC);
+        }
+
+        @Override
+        public void etudiant(int id, Double moyenne, Integer ordreMerite, Integer encadrantId, boolean dejaAffecte)
+                throws IOException {
+            sortie.write('E');
+            sortie.writeInt(id);
+            sortie.writeDouble(moyenne != null ? moyenne : Double.NaN);
+            sortie.writeInt(ordreMerite != null ? ordreMerite : AUCUN_ORDRE);
+            sortie.writeInt(encadrantId != null ? encadrantId : AUCUN_ID);
+            sortie.writeBoolean(dejaAffecte);
+        }
+
+        @Override
+        public void sujet(int id, Integer encadrantId, boolean valide, boolean dejaAffecte) throws IOException {
+            sortie.write('S');
+            sortie.writeInt(id);
+            sortie.writeInt(encadrantId != null ? encadrantId : AUCUN_ID);
+            sortie.writeBoolean(valide);
+            sortie.writeBoolean(dejaAffecte);
+        }
+
+        @Override
+        public void choix(int etudiantId, int sujetId, Integer ordrePreference, Integer binomeId, boolean propose)
+                throws IOException {
+            sortie.write('C');
+            sortie.writeInt(etudiantId);
+            sortie.writeInt(sujetId);
+            sortie.writeInt(ordrePreference != null ? ordrePreference : AUCUN_ORDRE);
+            sortie.writeInt(binomeId != null ? binomeId : AUCUN_ID);
+            sortie.writeBoolean(propose);
+        }
+
+        @Override
+        public void affectation(int sujetId, int etudiant1Id, Integer etudiant2Id, Integer encadrantId,
+                                Integer ordrePreference) throws IOException {
+            sortie.write('A');
+            sortie.writeInt(sujetId);
+            sortie.writeInt(etudiant1Id);
+            sortie.writeInt(etudiant2Id != null ? etudiant2Id : AUCUN_ID);
+            sortie.writeInt(encadrantId != null ? encadrantId : AUCUN_ID);
+            sortie.writeInt(ordrePreference != null ? ordrePreference : AUCUN_ORDRE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            sortie.close();
+        }
+    }
+}
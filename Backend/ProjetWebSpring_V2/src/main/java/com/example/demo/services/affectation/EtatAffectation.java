@@ -0,0 +1,171 @@
+package com.example.demo.services.affectation;
+
+import java.util.BitSet;
+
+/**
+ * État mutable d'une exécution : étudiants déjà placés et sujets déjà pris
+ * (bitsets indexés comme l'{@link InstanceAffectation}), charge courante de
+ * chaque encadrant, plus le résultat en cours de construction. Le
+ * {@link SuiviAffectation} reçoit l'avancement et peut interrompre l'exécution.
+ */
+public final class EtatAffectation {
+
+    private final InstanceAffectation instance;
+    private final BitSet etudiantsAffectes;
+    private final BitSet sujetsPris;
+    private final ResultatAffectation resultat;
+    private final SuiviAffectation suivi;
+    // Étudiants encadrés par encadrant, charge initiale comprise
+    private final int[] charges;
+    private final int capaciteEncadrant;
+    private final boolean capaciteStricte;
+
+    public EtatAffectation(InstanceAffectation instance) {
+        this(instance, new SuiviAffectation());
+    }
+
+    public EtatAffectation(InstanceAffectation instance, SuiviAffectation suivi) {
+        this(instance, suivi, 0, true);
+    }
+
+    /**
+     * @param capaciteEncadrant nombre maximal d'étudiants par encadrant (0 = illimité)
+     * @param capaciteStricte   refuser toute affectation qui dépasserait la
+     *                          capacité ; sinon la capacité n'est qu'indicative
+     */
+    public EtatAffectation(InstanceAffectation instance, SuiviAffectation suivi,
+                           int capaciteEncadrant, boolean capaciteStricte) {
+        this.instance = instance;
+        this.suivi = suivi;
+        this.charges = instance.chargesEncadrants.clone();
+        this.capaciteEncadrant = capaciteEncadrant;
+        this.capaciteStricte = capaciteStricte;
+        this.etudiantsAffectes = (BitSet) instance.etudiantsDejaAffectes.clone();
+        this.sujetsPris = (BitSet) instance.sujetsDejaAffectes.clone();
+        this.resultat = new ResultatAffectation(Math.min(instance.nbSujets, instance.nbEtudiants));
+    }
+
+    // Même état courant, avec un résultat vide
+    private EtatAffectation(EtatAffectation source) {
+        this.instance = source.instance;
+        this.suivi = source.suivi;
+        this.charges = source.charges.clone();
+        this.capaciteEncadrant = source.capaciteEncadrant;
+        this.capaciteStricte = source.capaciteStricte;
+        this.etudiantsAffectes = (BitSet) source.etudiantsAffectes.clone();
+        this.sujetsPris = (BitSet) source.sujetsPris.clone();
+        this.resultat = new ResultatAffectation(Math.min(instance.nbSujets, instance.nbEtudiants));
+    }
+
+    /**
+     * Copie indépendante de l'état courant, dont le résultat ne contient que
+     * les affectations faites ensuite : permet d'évaluer une solution avant de
+     * la retenir.
+     */
+    EtatAffectation copie() {
+        return new EtatAffectation(this);
+    }
+
+    public InstanceAffectation getInstance() {
+        return instance;
+    }
+
+    public SuiviAffectation getSuivi() {
+        return suivi;
+    }
+
+    /** Signale qu'un sujet a été examiné, et interrompt l'exécution si elle a été annulée. */
+    public void sujetTraite() {
+        suivi.sujetTraite();
+        suivi.verifierAnnulation();
+    }
+
+    public void verifierAnnulation() {
+        suivi.verifierAnnulation();
+    }
+
+    public boolean estAffecte(int etudiant) {
+        return etudiantsAffectes.get(etudiant);
+    }
+
+    /** Vrai si l'étudiant du choix et son éventuel binôme sont tous deux encore libres. */
+    public boolean groupeLibre(int choix) {
+        int binome = instance.choixBinome[choix];
+        return !etudiantsAffectes.get(instance.choixEtudiant[choix])
+                && (binome == InstanceAffectation.AUCUN || !etudiantsAffectes.get(binome));
+    }
+
+    /** Vrai si le sujet est validé et n'a pas encore d'affectation. */
+    public boolean estDisponible(int sujet) {
+        return instance.sujetsValides.get(sujet) && !sujetsPris.get(sujet);
+    }
+
+    public int getCapaciteEncadrant() {
+        return capaciteEncadrant;
+    }
+
+    public boolean isCapaciteStricte() {
+        return capaciteStricte;
+    }
+
+    public int charge(int encadrant) {
+        return charges[encadrant];
+    }
+
+    /** Places libres chez l'encadrant (négatif en cas de dépassement, très grand sans capacité). */
+    public int placesRestantes(int encadrant) {
+        return capaciteEncadrant > 0 ? capaciteEncadrant - charges[encadrant] : Integer.MAX_VALUE / 2;
+    }
+
+    /** Vrai si le sujet peut recevoir {@code nbEtudiants} sans dépasser une capacité stricte. */
+    public boolean peutAccueillir(int sujet, int nbEtudiants) {
+        if (!capaciteStricte || capaciteEncadrant <= 0) {
+            return true;
+        }
+        int enc = instance.sujetEncadrant[sujet];
+        return enc == InstanceAffectation.AUCUN || charges[enc] + nbEtudiants <= capaciteEncadrant;
+    }
+
+    public boolean peutAccueillirChoix(int choix) {
+        return peutAccueillir(instance.choixSujet[choix], instance.tailleGroupe(choix));
+    }
+
+    /** Copie des charges courantes, indexées comme les encadrants de l'instance. */
+    public int[] getCharges() {
+        return charges.clone();
+    }
+
+    /** Affecte le sujet d'un choix à l'étudiant qui l'a fait et à son binôme. */
+    public void affecterChoix(int choix) {
+        affecter(instance.choixSujet[choix], instance.choixEtudiant[choix], instance.choixBinome[choix], choix);
+    }
+
+    public void affecter(int sujet, int etudiant1, int etudiant2, int choix) {
+        sujetsPris.set(sujet);
+        etudiantsAffectes.set(etudiant1);
+        if (etudiant2 != InstanceAffectation.AUCUN) {
+            etudiantsAffectes.set(etudiant2);
+        }
+        int enc = instance.sujetEncadrant[sujet];
+        if (enc != InstanceAffectation.AUCUN) {
+            charges[enc] += etudiant2 != InstanceAffectation.AUCUN ? 2 : 1;
+        }
+        resultat.ajouter(sujet, etudiant1, etudiant2, choix);
+    }
+
+    /**
+     * Rend un sujet disponible et retire ses étudiants de la charge de son
+     * encadrant, pour une réparation qui déplace un groupe déjà affecté.
+     */
+    void liberer(int sujet, int nbEtudiants) {
+        sujetsPris.clear(sujet);
+        int enc = instance.sujetEncadrant[sujet];
+        if (enc != InstanceAffectation.AUCUN) {
+            charges[enc] -= nbEtudiants;
+        }
+    }
+
+    public ResultatAffectation getResultat() {
+        return resultat;
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.demo.services.affectation;
+
+import java.util.Arrays;
+
+/**
+ * Flot de coût minimum sur tableaux primitifs, par plus courts chemins
+ * successifs (Dijkstra avec potentiels). Les arcs sont stockés par paires :
+ * l'arc {@code a} et son arc résiduel {@code a ^ 1}.
+ * Seuls les arcs de coût négatif doivent partir de la source ou de nœuds
+ * ajoutés dans un ordre topologique : les potentiels initiaux sont calculés
+ * en un seul passage sur les nœuds dans l'ordre de leur numérotation.
+ */
+final class FluxCoutMinimum {
+
+    private static final long INFINI = Long.MAX_VALUE / 4;
+
+    private final int nbNoeuds;
+    private final int[] tete;
+    private int nbArcs;
+    private int[] suivant;
+    private int[] destination;
+    private int[] capacite;
+    private long[] cout;
+
+    FluxCoutMinimum(int nbNoeuds, int arcsPrevus) {
+        this.nbNoeuds = nbNoeuds;
+        this.tete = new int[nbNoeuds];
+        Arrays.fill(tete, -1);
+        int c = Math.max(2, arcsPrevus * 2);
+        suivant = new int[c];
+        destination = new int[c];
+        capacite = new int[c];
+        cout = new long[c];
+    }
+
+    /** Ajoute l'arc {@code u -> v} et retourne son index. */
+    int ajouterArc(int u, int v, int cap, long c) {
+        if (nbArcs + 2 > destination.length) {
+            int taille = destination.length * 2;
+            suivant = Arrays.copyOf(suivant, taille);
+            destination = Arrays.copyOf(destination, taille);
+            capacite = Arrays.copyOf(capacite, taille);
+            cout = Arrays.copyOf(cout, taille);
+        }
+        int a = nbArcs;
+        relier(u, v, cap, c);
+        relier(v, u, 0, -c);
+        return a;
+    }
+
+    private void relier(int u, int v, int cap, long c) {
+        destination[nbArcs] = v;
+        capacite[nbArcs] = cap;
+        cout[nbArcs] = c;
+        suivant[nbArcs] = tete[u];
+        tete[u] = nbArcs++;
+    }
+
+    /** Flux passant actuellement par l'arc {@code a}. */
+    int flux(int a) {
+        return capacite[a ^ 1];
+    }
+
+    int destination(int a) {
+        return destination[a];
+    }
+
+    /**
+     * Augmente le flot de la source vers le puits tant que cela diminue le
+     * coût total (flot de coût minimum, de valeur quelconque).
+     *
+     * @param verification appelée avant chaque recherche de chemin, peut
+     *                     interrompre la résolution par une exception
+     * @return le coût total du flot
+     */
+    long resoudre(int source, int puits, Runnable verification) {
+        long[] potentiel = potentielsInitiaux(source);
+        long[] distance = new long[nbNoeuds];
+        int[] arcParent = new int[nbNoeuds];
+        boolean[] fixe = new boolean[nbNoeuds];
+        TasMin tas = new TasMin(nbNoeuds);
+        long total = 0;
+
+        while (true) {
+            verification.run();
+            Arrays.fill(distance, INFINI);
+            Arrays.fill(fixe, false);
+            distance[source] = 0;
+            tas.vider();
+            tas.ajouter(source, 0);
+            while (!tas.estVide()) {
+                int u = tas.extraire();
+                if (fixe[u]) {
+                    continue;
+                }
+                fixe[u] = true;
+                if (u == puits) {
+                    break;
+                }
+                for (int a = tete[u]; a != -1; a = suivant[a]) {
+                    int v = destination[a];
+                    if (capacite[a] == 0 || fixe[v] || potentiel[v] == INFINI) {
+                        continue;
+                    }
+                    long d = distance[u] + cout[a] + potentiel[u] - potentiel[v];
+                    if (d < distance[v]) {
+                        distance[v] = d;
+                        arcParent[v] = a;
+                        tas.ajouter(v, d);
+                    }
+                }
+            }
+            if (!fixe[puits]) {
+                return total;
+            }
+            long coutChemin = distance[puits] + potentiel[puits] - potentiel[source];
+            if (coutChemin >= 0) {
+                return total;
+            }
+            // Arrêt anticipé : les nœuds non fixés sont au moins à distance[puits]
+            long borne = distance[puits];
+            for (int v = 0; v < nbNoeuds; v++) {
+                if (potentiel[v] != INFINI) {
+                    potentiel[v] += fixe[v] ? distance[v] : borne;
+                }
+            }
+            int quantite = Integer.MAX_VALUE;
+            for (int v = puits; v != source; v = destination[arcParent[v] ^ 1]) {
+                quantite = Math.min(quantite, capacite[arcParent[v]]);
+            }
+            for (int v = puits; v != source; v = destination[arcParent[v] ^ 1]) {
+                capacite[arcParent[v]] -= quantite;
+                capacite[arcParent[v] ^ 1] += quantite;
+            }
+            total += coutChemin * quantite;
+        }
+    }
+
+    // Plus courts chemins depuis la source sur le graphe sans circuit initial
+    private long[] potentielsInitiaux(int source) {
+        long[] potentiel = new long[nbNoeuds];
+        Arrays.fill(potentiel, INFINI);
+        potentiel[source] = 0;
+        for (int u = 0; u < nbNoeuds; u++) {
+            if (potentiel[u] == INFINI) {
+                continue;
+            }
+            for (int a = tete[u]; a != -1; a = suivant[a]) {
+                if (capacite[a] > 0 && potentiel[u] + cout[a] < potentiel[destination[a]]) {
+                    potentiel[destination[a]] = potentiel[u] + cout[a];
+                }
+            }
+        }
+        return potentiel;
+    }
+
+    /** Tas binaire de paires (nœud, distance), avec entrées périmées tolérées. */
+    private static final class TasMin {
+        private int taille;
+        private int[] noeuds;
+        private long[] cles;
+
+        TasMin(int capacite) {
+            noeuds = new int[Math.max(capacite, 16)];
+            cles = new long[noeuds.length];
+        }
+
+        void vider() {
+            taille = 0;
+        }
+
+        boolean estVide() {
+            return taille == 0;
+        }
+
+        void ajouter(int noeud, long cle) {
+            if (taille == noeuds.length) {
+                noeuds = Arrays.copyOf(noeuds, taille * 2);
+                cles = Arrays.copyOf(cles, taille * 2);
+            }
+            int i = taille++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (cles[parent] <= cle) {
+                    break;
+                }
+                noeuds[i] = noeuds[parent];
+                cles[i] = cles[parent];
+                i = parent;
+            }
+            noeuds[i] = noeud;
+            cles[i] = cle;
+        }
+
+        int extraire() {
+            int racine = noeuds[0];
+            taille--;
+            if (taille > 0) {
+                int noeud = noeuds[taille];
+                long cle = cles[taille];
+                int i = 0;
+                while (true) {
+                    int fils = 2 * i + 1;
+                    if (fils >= taille) {
+                        break;
+                    }
+                    if (fils + 1 < taille && cles[fils + 1] < cles[fils]) {
+                        fils++;
+                    }
+                    if (cles[fils] >= cle) {
+                        break;
+                    }
+                    noeuds[i] = noeuds[fils];
+                    cles[i] = cles[fils];
+                    i = fils;
+                }
+                noeuds[i] = noeud;
+                cles[i] = cle;
+            }
+            return racine;
+        }
+    }
+}
@@ -0,0 +1,483 @@
+package com.example.demo.services.affectation;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Représentation compacte (tableaux primitifs) d'une campagne d'affectation :
+ * étudiants, sujets et choix sont indexés de 0 à n-1 et les choix sont rangés
+ * en listes d'adjacence (format CSR) par sujet et par étudiant.
+ * Une instance est immuable : les algorithmes travaillent sur des copies de
+ * leurs propres états, ce qui permet de la réutiliser pour plusieurs exécutions.
+ */
+public final class InstanceAffectation {
+
+    public static final int AUCUN = -1;
+
+    // Étudiants
+    final int nbEtudiants;
+    final int[] etudiantIds;
+    final double[] moyennes;
+    final int[] ordresMerite;
+    final BitSet etudiantsDejaAffectes;
+    // Rang de chaque étudiant du point de vue des sujets (0 = meilleur)
+    final int[] rangsMerite;
+    // Nombre d'étudiants classés (promotion entière, même pour une sous-instance)
+    final int effectifPromotion;
+
+    // Sujets
+    final int nbSujets;
+    final int[] sujetIds;
+    final int[] sujetEncadrant;
+    final BitSet sujetsValides;
+    final BitSet sujetsDejaAffectes;
+
+    // Enseignants
+    final int nbEncadrants;
+    final int[] encadrantIds;
+    // Nombre d'étudiants déjà encadrés par chaque enseignant
+    final int[] chargesEncadrants;
+
+    // Choix (dans l'ordre de chargement)
+    final int nbChoix;
+    final int[] choixEtudiant;
+    final int[] choixSujet;
+    final int[] choixBinome;
+    final int[] choixOrdre;
+    final BitSet choixProposes;
+    // Choix écartés par le regroupement des binômes (voir Binomes)
+    final int nbChoixEcartes;
+    final int ordreMax;
+
+    // Choix par sujet, triés par ordre de préférence
+    final int[] sujetChoixDebut;
+    final int[] sujetChoix;
+
+    // Choix par étudiant, triés par ordre de préférence
+    final int[] etudiantChoixDebut;
+    final int[] etudiantChoix;
+
+    private InstanceAffectation(Builder b) {
+        nbEtudiants = b.nbEtudiants;
+        etudiantIds = Arrays.copyOf(b.etudiantIds, nbEtudiants);
+        moyennes = Arrays.copyOf(b.moyennes, nbEtudiants);
+        ordresMerite = Arrays.copyOf(b.ordresMerite, nbEtudiants);
+        etudiantsDejaAffectes = (BitSet) b.etudiantsDejaAffectes.clone();
+        rangsMerite = classerParMerite();
+        effectifPromotion = nbEtudiants;
+
+        nbSujets = b.nbSujets;
+        sujetIds = Arrays.copyOf(b.sujetIds, nbSujets);
+        sujetsValides = (BitSet) b.sujetsValides.clone();
+        sujetsDejaAffectes = (BitSet) b.sujetsDejaAffectes.clone();
+
+        nbEncadrants = b.nbEncadrants;
+        encadrantIds = Arrays.copyOf(b.encadrantIds, nbEncadrants);
+        chargesEncadrants = Arrays.copyOf(b.chargesEncadrants, nbEncadrants);
+        sujetEncadrant = Arrays.copyOf(b.sujetEncadrant, nbSujets);
+
+        // Chaque binôme devient une unité portée par son membre le mieux classé
+        Binomes binomes = new Binomes(nbEtudiants, b.nbChoix, b.choixEtudiant, b.choixSujet,
+                b.choixBinome, b.choixOrdre, b.choixProposes, rangsMerite);
+        nbChoix = binomes.nbChoix;
+        choixEtudiant = Arrays.copyOf(binomes.choixEtudiant, nbChoix);
+        choixSujet = Arrays.copyOf(binomes.choixSujet, nbChoix);
+        choixBinome = Arrays.copyOf(binomes.choixBinome, nbChoix);
+        choixOrdre = Arrays.copyOf(binomes.choixOrdre, nbChoix);
+        choixProposes = binomes.choixProposes;
+        nbChoixEcartes = binomes.nbChoixEcartes;
+        int max = 1;
+        for (int c = 0; c < nbChoix; c++) {
+            if (choixOrdre[c] != Integer.MAX_VALUE) {
+                max = Math.max(max, choixOrdre[c]);
+            }
+        }
+        ordreMax = max;
+
+        int[] parOrdre = choixParOrdre();
+        sujetChoixDebut = new int[nbSujets + 1];
+        sujetChoix = indexer(choixSujet, nbSujets, sujetChoixDebut, parOrdre);
+        etudiantChoixDebut = new int[nbEtudiants + 1];
+        etudiantChoix = indexer(choixEtudiant, nbEtudiants, etudiantChoixDebut, parOrdre);
+    }
+
+    /**
+     * Sous-instance limitée à une partie des étudiants, sujets et choix (index
+     * de l'instance parente, triés), dans l'état courant d'une exécution.
+     * Les rangs de mérite restent ceux de la promotion entière ; seuls les
+     * encadrants des sujets retenus sont repris, {@code chargesEnCours}
+     * (indexé comme le parent) s'ajoutant à leurs charges.
+     * <p>
+     * {@code indexEtudiant} et {@code indexSujet} sont des tableaux de travail
+     * de la taille du parent, partagés entre sous-instances : seules les cases
+     * des étudiants et sujets retenus sont écrites puis lues, ce qui permet de
+     * les réutiliser pour des parties disjointes, y compris en parallèle.
+     */
+    private InstanceAffectation(InstanceAffectation parent, EtatAffectation etat, int[] etudiants,
+                                int[] sujets, int[] choix, int[] chargesEnCours,
+                                int[] indexEtudiant, int[] indexSujet) {
+        nbEtudiants = etudiants.length;
+        etudiantIds = new int[nbEtudiants];
+        moyennes = new double[nbEtudiants];
+        ordresMerite = new int[nbEtudiants];
+        rangsMerite = new int[nbEtudiants];
+        etudiantsDejaAffectes = new BitSet(nbEtudiants);
+        for (int i = 0; i < nbEtudiants; i++) {
+            int e = etudiants[i];
+            indexEtudiant[e] = i;
+            etudiantIds[i] = parent.etudiantIds[e];
+            moyennes[i] = parent.moyennes[e];
+            ordresMerite[i] = parent.ordresMerite[e];
+            rangsMerite[i] = parent.rangsMerite[e];
+            etudiantsDejaAffectes.set(i, etat.estAffecte(e));
+        }
+        effectifPromotion = parent.effectifPromotion;
+
+        nbSujets = sujets.length;
+        sujetIds = new int[nbSujets];
+        sujetEncadrant = new int[nbSujets];
+        sujetsValides = new BitSet(nbSujets);
+        sujetsDejaAffectes = new BitSet(nbSujets);
+        // Encadrants de la partie seulement, dans l'ordre de première apparition
+        Map<Integer, Integer> indexEncadrant = new HashMap<>();
+        for (int i = 0; i < nbSujets; i++) {
+            int s = sujets[i];
+            indexSujet[s] = i;
+            sujetIds[i] = parent.sujetIds[s];
+            int enc = parent.sujetEncadrant[s];
+            sujetEncadrant[i] = enc != AUCUN ? indexEncadrant.computeIfAbsent(enc, k -> indexEncadrant.size()) : AUCUN;
+            sujetsValides.set(i, parent.sujetsValides.get(s));
+            sujetsDejaAffectes.set(i, parent.sujetsValides.get(s) && !etat.estDisponible(s));
+        }
+
+        nbEncadrants = indexEncadrant.size();
+        encadrantIds = new int[nbEncadrants];
+        chargesEncadrants = new int[nbEncadrants];
+        for (Map.Entry<Integer, Integer> entree : indexEncadrant.entrySet()) {
+            int enc = entree.getKey();
+            encadrantIds[entree.getValue()] = parent.encadrantIds[enc];
+            chargesEncadrants[entree.getValue()] = parent.chargesEncadrants[enc] + chargesEnCours[enc];
+        }
+
+        nbChoix = choix.length;
+        choixEtudiant = new int[nbChoix];
+        choixSujet = new int[nbChoix];
+        choixBinome = new int[nbChoix];
+        choixOrdre = new int[nbChoix];
+        choixProposes = new BitSet(nbChoix);
+        for (int i = 0; i < nbChoix; i++) {
+            int c = choix[i];
+            choixEtudiant[i] = indexEtudiant[parent.choixEtudiant[c]];
+            choixSujet[i] = indexSujet[parent.choixSujet[c]];
+            choixBinome[i] = parent.choixBinome[c] != AUCUN ? indexEtudiant[parent.choixBinome[c]] : AUCUN;
+            choixOrdre[i] = parent.choixOrdre[c];
+            choixProposes.set(i, parent.choixProposes.get(c));
+        }
+        nbChoixEcartes = 0;
+        ordreMax = parent.ordreMax;
+
+        int[] parOrdre = choixParOrdre();
+        sujetChoixDebut = new int[nbSujets + 1];
+        sujetChoix = indexer(choixSujet, nbSujets, sujetChoixDebut, parOrdre);
+        etudiantChoixDebut = new int[nbEtudiants + 1];
+        etudiantChoix = indexer(choixEtudiant, nbEtudiants, etudiantChoixDebut, parOrdre);
+    }
+
+    InstanceAffectation extraire(EtatAffectation etat, int[] etudiants, int[] sujets, int[] choix,
+                                 int[] chargesEnCours, int[] indexEtudiant, int[] indexSujet) {
+        return new InstanceAffectation(this, etat, etudiants, sujets, choix, chargesEnCours,
+                indexEtudiant, indexSujet);
+    }
+
+    /**
+     * Moyenne décroissante, puis ordre de mérite croissant, puis ordre de chargement.
+     */
+    private int[] classerParMerite() {
+        Integer[] ordre = new Integer[nbEtudiants];
+        for (int e = 0; e < nbEtudiants; e++) {
+            ordre[e] = e;
+        }
+        Arrays.sort(ordre, (a, b) -> {
+            int cmp = Double.compare(moyennes[b], moyennes[a]);
+            if (cmp == 0) {
+                cmp = Integer.compare(ordresMerite[a], ordresMerite[b]);
+            }
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+        int[] rang = new int[nbEtudiants];
+        for (int i = 0; i < nbEtudiants; i++) {
+            rang[ordre[i]] = i;
+        }
+        return rang;
+    }
+
+    /**
+     * Construit les listes d'adjacence d'une relation choix -> cible par un tri
+     * par comptage. Les choix étant parcourus dans l'ordre {@code parOrdre},
+     * chaque liste est triée par ordre de préférence (à ordre égal, par index
+     * de choix), quelle que soit sa longueur : un sujet très demandé peut
+     * recevoir des milliers de choix.
+     */
+    private int[] indexer(int[] cible, int nbCibles, int[] debut, int[] parOrdre) {
+        for (int c = 0; c < nbChoix; c++) {
+            debut[cible[c] + 1]++;
+        }
+        for (int i = 0; i < nbCibles; i++) {
+            debut[i + 1] += debut[i];
+        }
+        int[] position = Arrays.copyOf(debut, nbCibles);
+        int[] liste = new int[nbChoix];
+        for (int c : parOrdre) {
+            liste[position[cible[c]]++] = c;
+        }
+        return liste;
+    }
+
+    /**
+     * Index des choix triés par ordre de préférence, tri stable. Tri par
+     * comptage pour les ordres usuels (1 à quelques dizaines), les ordres
+     * absents (MAX_VALUE) en dernier.
+     */
+    private int[] choixParOrdre() {
+        int min = ordreMax;
+        for (int c = 0; c < nbChoix; c++) {
+            min = Math.min(min, choixOrdre[c]);
+        }
+        int[] parOrdre = new int[nbChoix];
+        if (nbChoix == 0 || (long) ordreMax - min > 1024) {
+            Integer[] ordre = new Integer[nbChoix];
+            for (int c = 0; c < nbChoix; c++) {
+                ordre[c] = c;
+            }
+            Arrays.sort(ordre, (a, b) -> Integer.compare(choixOrdre[a], choixOrdre[b]));
+            for (int c = 0; c < nbChoix; c++) {
+                parOrdre[c] = ordre[c];
+            }
+            return parOrdre;
+        }
+        // Case k = ordre - min ; dernière case pour les ordres absents
+        int nbCases = ordreMax - min + 2;
+        int[] debut = new int[nbCases + 1];
+        for (int c = 0; c < nbChoix; c++) {
+            debut[caseOrdre(c, min, nbCases) + 1]++;
+        }
+        for (int k = 0; k < nbCases; k++) {
+            debut[k + 1] += debut[k];
+        }
+        for (int c = 0; c < nbChoix; c++) {
+            parOrdre[debut[caseOrdre(c, min, nbCases)]++] = c;
+        }
+        return parOrdre;
+    }
+
+    private int caseOrdre(int c, int min, int nbCases) {
+        return choixOrdre[c] == Integer.MAX_VALUE ? nbCases - 1 : choixOrdre[c] - min;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getNbEtudiants() {
+        return nbEtudiants;
+    }
+
+    public int getNbSujets() {
+        return nbSujets;
+    }
+
+    public int getNbChoix() {
+        return nbChoix;
+    }
+
+    /** Choix écartés car incompatibles avec les binômes retenus. */
+    public int getNbChoixEcartes() {
+        return nbChoixEcartes;
+    }
+
+    public int getNbEncadrants() {
+        return nbEncadrants;
+    }
+
+    /** Nombre de sujets validés sans affectation existante. */
+    public int getNbSujetsDisponibles() {
+        BitSet disponibles = (BitSet) sujetsValides.clone();
+        disponibles.andNot(sujetsDejaAffectes);
+        return disponibles.cardinality();
+    }
+
+    public int etudiantId(int etudiant) {
+        return etudiantIds[etudiant];
+    }
+
+    public int sujetId(int sujet) {
+        return sujetIds[sujet];
+    }
+
+    /** Index de l'encadrant du sujet, ou {@link #AUCUN}. */
+    public int encadrant(int sujet) {
+        return sujetEncadrant[sujet];
+    }
+
+    public int encadrantId(int encadrant) {
+        return encadrantIds[encadrant];
+    }
+
+    /** Nombre d'étudiants déjà encadrés par l'enseignant avant l'exécution. */
+    public int chargeEncadrant(int encadrant) {
+        return chargesEncadrants[encadrant];
+    }
+
+    /** Nombre d'étudiants placés par un choix : 2 pour un binôme, 1 sinon. */
+    int tailleGroupe(int choix) {
+        return choixBinome[choix] != AUCUN ? 2 : 1;
+    }
+
+    /**
+     * Construit une instance à partir d'identifiants métier. Les choix qui
+     * référencent un étudiant ou un sujet inconnu sont ignorés.
+     */
+    public static final class Builder {
+        private int nbEtudiants;
+        private int[] etudiantIds = new int[16];
+        private double[] moyennes = new double[16];
+        private int[] ordresMerite = new int[16];
+        private final BitSet etudiantsDejaAffectes = new BitSet();
+        private final Map<Integer, Integer> indexEtudiants = new HashMap<>();
+
+        private int nbSujets;
+        private int[] sujetIds = new int[16];
+        private int[] sujetEncadrant = new int[16];
+        private final BitSet sujetsValides = new BitSet();
+        private final BitSet sujetsDejaAffectes = new BitSet();
+        private final Map<Integer, Integer> indexSujets = new HashMap<>();
+
+        private int nbEncadrants;
+        private int[] encadrantIds = new int[16];
+        private int[] chargesEncadrants = new int[16];
+        private final Map<Integer, Integer> indexEncadrants = new HashMap<>();
+
+        private int nbChoix;
+        private int[] choixEtudiant = new int[16];
+        private int[] choixSujet = new int[16];
+        private int[] choixBinome = new int[16];
+        private int[] choixOrdre = new int[16];
+        private final BitSet choixProposes = new BitSet();
+
+        private Builder() {
+        }
+
+        /**
+         * Ajoute un étudiant. Une moyenne ou un ordre de mérite inconnus
+         * (null) le classent après tous les autres.
+         */
+        public int ajouterEtudiant(int id, Double moyenne, Integer ordreMerite) {
+            Integer existant = indexEtudiants.get(id);
+            if (existant != null) {
+                return existant;
+            }
+            if (nbEtudiants == etudiantIds.length) {
+                int taille = nbEtudiants * 2;
+                etudiantIds = Arrays.copyOf(etudiantIds, taille);
+                moyennes = Arrays.copyOf(moyennes, taille);
+                ordresMerite = Arrays.copyOf(ordresMerite, taille);
+            }
+            etudiantIds[nbEtudiants] = id;
+            moyennes[nbEtudiants] = moyenne != null ? moyenne : Double.NEGATIVE_INFINITY;
+            ordresMerite[nbEtudiants] = ordreMerite != null ? ordreMerite : Integer.MAX_VALUE;
+            indexEtudiants.put(id, nbEtudiants);
+            return nbEtudiants++;
+        }
+
+        /** Ajoute un enseignant pouvant encadrer des sujets. */
+        public int ajouterEncadrant(int id) {
+            Integer existant = indexEncadrants.get(id);
+            if (existant != null) {
+                return existant;
+            }
+            if (nbEncadrants == encadrantIds.length) {
+                encadrantIds = Arrays.copyOf(encadrantIds, nbEncadrants * 2);
+                chargesEncadrants = Arrays.copyOf(chargesEncadrants, nbEncadrants * 2);
+            }
+            encadrantIds[nbEncadrants] = id;
+            indexEncadrants.put(id, nbEncadrants);
+            return nbEncadrants++;
+        }
+
+        /** Ajoute {@code nombre} étudiants à la charge actuelle d'un enseignant. */
+        public Builder ajouterCharge(int encadrantId, int nombre) {
+            chargesEncadrants[ajouterEncadrant(encadrantId)] += nombre;
+            return this;
+        }
+
+        /**
+         * Ajoute un sujet. {@code encadrantId} peut être null si le sujet n'a
+         * pas encore d'encadrant.
+         */
+        public int ajouterSujet(int id, Integer encadrantId, boolean valide, boolean dejaAffecte) {
+            Integer existant = indexSujets.get(id);
+            if (existant != null) {
+                return existant;
+            }
+            if (nbSujets == sujetIds.length) {
+                int taille = nbSujets * 2;
+                sujetIds = Arrays.copyOf(sujetIds, taille);
+                sujetEncadrant = Arrays.copyOf(sujetEncadrant, taille);
+            }
+            sujetIds[nbSujets] = id;
+            sujetEncadrant[nbSujets] = encadrantId != null ? ajouterEncadrant(encadrantId) : AUCUN;
+            sujetsValides.set(nbSujets, valide);
+            sujetsDejaAffectes.set(nbSujets, dejaAffecte);
+            indexSujets.put(id, nbSujets);
+            return nbSujets++;
+        }
+
+        /** Index d'un étudiant déjà ajouté, ou {@link InstanceAffectation#AUCUN}. */
+        public int indexEtudiant(int etudiantId) {
+            Integer index = indexEtudiants.get(etudiantId);
+            return index != null ? index : AUCUN;
+        }
+
+        /** Indique qu'un étudiant (déjà ajouté) possède une affectation existante. */
+        public Builder marquerEtudiantAffecte(int etudiantId) {
+            Integer index = indexEtudiants.get(etudiantId);
+            if (index != null) {
+                etudiantsDejaAffectes.set(index);
+            }
+            return this;
+        }
+
+        /**
+         * Ajoute le choix d'un étudiant (et de son éventuel binôme) pour un sujet.
+         * Retourne l'index du choix, ou {@link InstanceAffectation#AUCUN} s'il a été ignoré.
+         */
+        public int ajouterChoix(int etudiantId, int sujetId, Integer ordrePreference,
+                                Integer binomeId, boolean propose) {
+            Integer etudiant = indexEtudiants.get(etudiantId);
+            Integer sujet = indexSujets.get(sujetId);
+            if (etudiant == null || sujet == null) {
+                return AUCUN;
+            }
+            Integer binome = binomeId != null ? indexEtudiants.get(binomeId) : null;
+            if (nbChoix == choixEtudiant.length) {
+                int taille = nbChoix * 2;
+                choixEtudiant = Arrays.copyOf(choixEtudiant, taille);
+                choixSujet = Arrays.copyOf(choixSujet, taille);
+                choixBinome = Arrays.copyOf(choixBinome, taille);
+                choixOrdre = Arrays.copyOf(choixOrdre, taille);
+            }
+            choixEtudiant[nbChoix] = etudiant;
+            choixSujet[nbChoix] = sujet;
+            choixBinome[nbChoix] = binome != null && !binome.equals(etudiant) ? binome : AUCUN;
+            choixOrdre[nbChoix] = ordrePreference != null ? ordrePreference : Integer.MAX_VALUE;
+            choixProposes.set(nbChoix, propose);
+            return nbChoix++;
+        }
+
+        public InstanceAffectation build() {
+            return new InstanceAffectation(this);
+        }
+    }
+}
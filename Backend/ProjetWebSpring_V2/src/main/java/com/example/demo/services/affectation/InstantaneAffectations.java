@@ -0,0 +1,143 @@
+package com.example.demo.services.affectation;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * État complet des affectations à un instant donné, sous forme de tuples
+ * d'identifiants (sujet, étudiant 1, étudiant 2, encadrant) rangés par
+ * sujet. Un identifiant absent (projet en solo, sujet sans encadrant) vaut 0.
+ * <p>
+ * Encodage binaire compact, stocké dans une seule ligne d'historique : un
+ * octet de version du format, le nombre de tuples, puis 4 entiers par tuple.
+ * Environ 16 octets par affectation.
+ */
+public final class InstantaneAffectations {
+
+    public static final int AUCUN = 0;
+    private static final byte VERSION_FORMAT = 1;
+    private static final int CHAMPS = 4;
+
+    // CHAMPS entiers par tuple, triés par sujet
+    private final int[] tuples;
+
+    private InstantaneAffectations(int[] tuples) {
+        this.tuples = tuples;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int taille() {
+        return tuples.length / CHAMPS;
+    }
+
+    public int sujet(int i) {
+        return tuples[i * CHAMPS];
+    }
+
+    public int etudiant1(int i) {
+        return tuples[i * CHAMPS + 1];
+    }
+
+    public int etudiant2(int i) {
+        return tuples[i * CHAMPS + 2];
+    }
+
+    public int encadrant(int i) {
+        return tuples[i * CHAMPS + 3];
+    }
+
+    /** Index du tuple du sujet donné, ou -1. */
+    public int indexSujet(int sujet) {
+        int bas = 0;
+        int haut = taille() - 1;
+        while (bas <= haut) {
+            int milieu = (bas + haut) >>> 1;
+            int s = sujet(milieu);
+            if (s < sujet) {
+                bas = milieu + 1;
+            } else if (s > sujet) {
+                haut = milieu - 1;
+            } else {
+                return milieu;
+            }
+        }
+        return -1;
+    }
+
+    /** Vrai si l'instantané contient exactement ce tuple. */
+    public boolean contient(int sujet, int etudiant1, int etudiant2, int encadrant) {
+        int i = indexSujet(sujet);
+        return i >= 0
+                && etudiant1(i) == etudiant1
+                && etudiant2(i) == etudiant2
+                && encadrant(i) == encadrant;
+    }
+
+    public byte[] encoder() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Integer.BYTES * (1 + tuples.length));
+        buffer.put(VERSION_FORMAT);
+        buffer.putInt(taille());
+        for (int v : tuples) {
+            buffer.putInt(v);
+        }
+        return buffer.array();
+    }
+
+    public static InstantaneAffectations decoder(byte[] donnees) {
+        ByteBuffer buffer = ByteBuffer.wrap(donnees);
+        byte version = buffer.get();
+        if (version != VERSION_FORMAT) {
+            throw new IllegalArgumentException("Format d'instantané inconnu : " + version);
+        }
+        int[] tuples = new int[buffer.getInt() * CHAMPS];
+        for (int i = 0; i < tuples.length; i++) {
+            tuples[i] = buffer.getInt();
+        }
+        return new InstantaneAffectations(tuples);
+    }
+
+    public static final class Builder {
+
+        private int[] tuples = new int[64 * CHAMPS];
+        private int n;
+
+        private Builder() {
+        }
+
+        /** Les identifiants null sont enregistrés comme {@link #AUCUN}. */
+        public Builder ajouter(Integer sujet, Integer etudiant1, Integer etudiant2, Integer encadrant) {
+            if (n + CHAMPS > tuples.length) {
+                tuples = Arrays.copyOf(tuples, tuples.length * 2);
+            }
+            tuples[n++] = sujet;
+            tuples[n++] = etudiant1 != null ? etudiant1 : AUCUN;
+            tuples[n++] = etudiant2 != null ? etudiant2 : AUCUN;
+            tuples[n++] = encadrant != null ? encadrant : AUCUN;
+            return this;
+        }
+
+        public Builder ajouterTout(InstantaneAffectations autre) {
+            for (int i = 0; i < autre.taille(); i++) {
+                ajouter(autre.sujet(i), autre.etudiant1(i), autre.etudiant2(i), autre.encadrant(i));
+            }
+            return this;
+        }
+
+        public InstantaneAffectations build() {
+            int taille = n / CHAMPS;
+            Integer[] ordre = new Integer[taille];
+            for (int i = 0; i < taille; i++) {
+                ordre[i] = i;
+            }
+            Arrays.sort(ordre, (a, b) -> Integer.compare(tuples[a * CHAMPS], tuples[b * CHAMPS]));
+            int[] tries = new int[n];
+            for (int i = 0; i < taille; i++) {
+                System.arraycopy(tuples, ordre[i] * CHAMPS, tries, i * CHAMPS, CHAMPS);
+            }
+            return new InstantaneAffectations(tries);
+        }
+    }
+}
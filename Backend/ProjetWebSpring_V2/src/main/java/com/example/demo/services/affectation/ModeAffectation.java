@@ -0,0 +1,14 @@
+package com.example.demo.services.affectation;
+
+/**
+ * Algorithme utilisé pour affecter les sujets qui ne sont pas des
+ * propositions d'étudiants.
+ */
+public enum ModeAffectation {
+    /** Sujet par sujet, au candidat libre de meilleure moyenne. */
+    GLOUTON,
+    /** Mariage stable (Gale-Shapley) optimal pour les étudiants. */
+    STABLE,
+    /** Satisfaction totale maximale, capacité des encadrants respectée (flot de coût minimum). */
+    OPTIMAL
+}
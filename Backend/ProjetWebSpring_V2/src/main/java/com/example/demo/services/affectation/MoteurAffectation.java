@@ -0,0 +1,81 @@
+package com.example.demo.services.affectation;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Point d'entrée du moteur d'affectation en mémoire. Le calcul ne fait aucun
+ * accès à la base : il travaille uniquement sur l'{@link InstanceAffectation}.
+ */
+public class MoteurAffectation {
+
+    private final StrategieAffectation strategie;
+    private final int capaciteEncadrant;
+    private final boolean capaciteStricte;
+
+    public MoteurAffectation() {
+        this(new AffectationGloutonne());
+    }
+
+    public MoteurAffectation(StrategieAffectation strategie) {
+        this(strategie, 0, true);
+    }
+
+    public MoteurAffectation(StrategieAffectation strategie, int capaciteEncadrant, boolean capaciteStricte) {
+        this.strategie = strategie;
+        this.capaciteEncadrant = capaciteEncadrant;
+        this.capaciteStricte = capaciteStricte;
+    }
+
+    public static MoteurAffectation pour(ModeAffectation mode) {
+        return pour(ParametresAffectation.builder().mode(mode).build());
+    }
+
+    public static MoteurAffectation pour(ParametresAffectation parametres) {
+        StrategieAffectation strategie = strategie(parametres);
+        boolean stricte = parametres.getPolitiqueCapacite() == PolitiqueCapacite.STRICTE;
+        if (parametres.isParallele()) {
+            // Une capacité (stricte ou pénalisée) relie les sujets d'un même encadrant
+            boolean lierEncadrants = parametres.getCapaciteEncadrant() > 0
+                    && (stricte || parametres.getMode() == ModeAffectation.OPTIMAL);
+            strategie = new AffectationPartitionnee(strategie, lierEncadrants, ForkJoinPool.commonPool());
+        }
+        return new MoteurAffectation(strategie, parametres.getCapaciteEncadrant(), stricte);
+    }
+
+    private static StrategieAffectation strategie(ParametresAffectation parametres) {
+        switch (parametres.getMode()) {
+            case STABLE:
+                return new AffectationStable();
+            case OPTIMAL:
+                return new AffectationOptimale(parametres.getPenaliteDepassement());
+            case GLOUTON:
+            default:
+                return new AffectationGloutonne();
+        }
+    }
+
+    public ResultatAffectation executer(InstanceAffectation instance) {
+        return executer(instance, new SuiviAffectation());
+    }
+
+    public ResultatAffectation executer(InstanceAffectation instance, SuiviAffectation suivi) {
+        long debut = System.nanoTime();
+        EtatAffectation etat = new EtatAffectation(instance, suivi, capaciteEncadrant, capaciteStricte);
+        // 1. Traiter d'abord les sujets proposés par les étudiants
+        traiterPropositionsEtudiants(instance, etat);
+        // 2. Affecter les sujets restants
+        strategie.affecter(instance, etat);
+        etat.getResultat().setDureeNanos(System.nanoTime() - debut);
+        etat.getResultat().setChargesEncadrants(etat.getCharges());
+        return etat.getResultat();
+    }
+
+    private void traiterPropositionsEtudiants(InstanceAffectation instance, EtatAffectation etat) {
+        for (int c = instance.choixProposes.nextSetBit(0); c >= 0; c = instance.choixProposes.nextSetBit(c + 1)) {
+            int s = instance.choixSujet[c];
+            if (etat.estDisponible(s) && etat.groupeLibre(c) && etat.peutAccueillirChoix(c)) {
+                etat.affecterChoix(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.services.affectation;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Réglages d'une exécution du moteur d'affectation.
+ */
+@Data
+@Builder
+public class ParametresAffectation {
+
+    @Builder.Default
+    private ModeAffectation mode = ModeAffectation.GLOUTON;
+
+    /**
+     * Nombre maximal d'étudiants encadrés par enseignant, charge actuelle
+     * comprise (0 = illimité).
+     */
+    private int capaciteEncadrant;
+
+    @Builder.Default
+    private PolitiqueCapacite politiqueCapacite = PolitiqueCapacite.STRICTE;
+
+    /**
+     * Coût, en points de satisfaction, de chaque étudiant au-delà de la
+     * capacité avec la politique {@link PolitiqueCapacite#PENALITE}.
+     */
+    @Builder.Default
+    private long penaliteDepassement = Satisfaction.ECHELLE;
+
+    /**
+     * Résoudre séparément, en parallèle, chaque composante indépendante du
+     * graphe des choix.
+     */
+    private boolean parallele;
+}
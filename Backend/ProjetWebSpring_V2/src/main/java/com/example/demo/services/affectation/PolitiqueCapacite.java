@@ -0,0 +1,15 @@
+package com.example.demo.services.affectation;
+
+/**
+ * Traitement de la capacité des encadrants pendant une exécution.
+ */
+public enum PolitiqueCapacite {
+    /** Aucune affectation ne fait dépasser la capacité d'un encadrant. */
+    STRICTE,
+    /**
+     * La capacité peut être dépassée, chaque étudiant en trop coûtant une
+     * pénalité dans l'objectif du mode {@link ModeAffectation#OPTIMAL}. Les
+     * modes GLOUTON et STABLE n'ayant pas d'objectif, ils ignorent la capacité.
+     */
+    PENALITE
+}
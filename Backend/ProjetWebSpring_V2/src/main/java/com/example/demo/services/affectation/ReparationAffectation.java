@@ -0,0 +1,215 @@
+package com.example.demo.services.affectation;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+
+/**
+ * Réparation locale après la suppression d'une affectation : au lieu de
+ * relancer tout le moteur, seules les chaînes de préférences touchées sont
+ * parcourues.
+ * <ul>
+ * <li>Un sujet libéré est proposé, selon la règle du mode glouton (meilleure
+ * moyenne), aux candidats libres et aux groupes déjà affectés qui le classent
+ * strictement mieux que leur sujet actuel. Un groupe qui déménage libère à
+ * son tour son ancien sujet, qui est traité de la même façon.</li>
+ * <li>Les étudiants libérés sont ensuite placés sur leur premier choix encore
+ * disponible.</li>
+ * </ul>
+ * Les étudiants libérés ne retrouvent jamais le sujet libéré : la réparation
+ * ne recrée pas l'affectation qui vient d'être supprimée.
+ * Chaque déménagement améliore strictement le rang du groupe déplacé, la
+ * réparation se termine donc toujours. Les affectations sans choix associé
+ * (saisies manuellement) ne sont jamais déplacées. Avec une capacité stricte,
+ * un mouvement qui ferait dépasser la capacité de l'encadrant du sujet visé
+ * est écarté ; changer de sujet chez le même encadrant reste toujours permis.
+ * <p>
+ * Le résultat liste les mouvements dans l'ordre où ils ont eu lieu : chacun
+ * place un groupe sur un sujet libre à ce moment-là, ce qui permet de les
+ * rejouer un par un en base sans conflit sur le sujet.
+ */
+public final class ReparationAffectation {
+
+    private final InstanceAffectation instance;
+    // Sujets pris, charges des encadrants et mouvements effectués
+    private final EtatAffectation etat;
+    // Sujet occupé par chaque étudiant et occupants de chaque sujet
+    private final int[] sujetEtudiant;
+    private final int[] occupant1;
+    private final int[] occupant2;
+    private final Deque<Integer> sujetsLibres = new ArrayDeque<>();
+    // Affectation supprimée : son sujet et ses étudiants
+    private final BitSet etudiantsLiberes = new BitSet();
+    private int sujetLibere = InstanceAffectation.AUCUN;
+
+    public ReparationAffectation(DonneesAffectation donnees) {
+        this(donnees, 0, true);
+    }
+
+    /**
+     * @param capaciteEncadrant nombre maximal d'étudiants par encadrant (0 = illimité)
+     * @param capaciteStricte   refuser tout mouvement qui dépasserait la capacité
+     */
+    public ReparationAffectation(DonneesAffectation donnees, int capaciteEncadrant, boolean capaciteStricte) {
+        this.instance = donnees.getInstance();
+        this.etat = new EtatAffectation(instance, new SuiviAffectation(), capaciteEncadrant, capaciteStricte);
+        this.sujetEtudiant = new int[instance.nbEtudiants];
+        this.occupant1 = new int[instance.nbSujets];
+        this.occupant2 = new int[instance.nbSujets];
+        Arrays.fill(occupant1, InstanceAffectation.AUCUN);
+        Arrays.fill(occupant2, InstanceAffectation.AUCUN);
+        for (int e = 0; e < instance.nbEtudiants; e++) {
+            int s = donnees.sujetActuel(e);
+            sujetEtudiant[e] = s;
+            if (s == InstanceAffectation.AUCUN) {
+                continue;
+            }
+            if (occupant1[s] == InstanceAffectation.AUCUN) {
+                occupant1[s] = e;
+            } else {
+                occupant2[s] = e;
+            }
+        }
+    }
+
+    /**
+     * @param sujet      index du sujet libéré, ou {@link InstanceAffectation#AUCUN}
+     * @param etudiants  index des étudiants libérés
+     */
+    public ResultatAffectation reparer(int sujet, int... etudiants) {
+        long debut = System.nanoTime();
+        sujetLibere = sujet;
+        for (int e : etudiants) {
+            if (e != InstanceAffectation.AUCUN) {
+                etudiantsLiberes.set(e);
+            }
+        }
+        if (sujet != InstanceAffectation.AUCUN) {
+            sujetsLibres.add(sujet);
+        }
+        while (!sujetsLibres.isEmpty()) {
+            remplir(sujetsLibres.poll());
+        }
+        for (int e : etudiants) {
+            if (e != InstanceAffectation.AUCUN) {
+                placer(e);
+            }
+        }
+        ResultatAffectation resultat = etat.getResultat();
+        resultat.setDureeNanos(System.nanoTime() - debut);
+        return resultat;
+    }
+
+    private void remplir(int s) {
+        if (!estDisponible(s)) {
+            return;
+        }
+        int meilleur = InstanceAffectation.AUCUN;
+        double meilleureMoyenne = 0;
+        for (int k = instance.sujetChoixDebut[s]; k < instance.sujetChoixDebut[s + 1]; k++) {
+            int c = instance.sujetChoix[k];
+            int e = instance.choixEtudiant[c];
+            if (recreeSuppression(c) || !estCandidat(c) || !peutDemenager(c)) {
+                continue;
+            }
+            if (meilleur == InstanceAffectation.AUCUN || instance.moyennes[e] > meilleureMoyenne) {
+                meilleur = c;
+                meilleureMoyenne = instance.moyennes[e];
+            }
+        }
+        if (meilleur != InstanceAffectation.AUCUN) {
+            deplacer(s, instance.choixEtudiant[meilleur], instance.choixBinome[meilleur], meilleur);
+        }
+    }
+
+    private void placer(int e) {
+        if (sujetEtudiant[e] != InstanceAffectation.AUCUN) {
+            return;
+        }
+        for (int k = instance.etudiantChoixDebut[e]; k < instance.etudiantChoixDebut[e + 1]; k++) {
+            int c = instance.etudiantChoix[k];
+            int s = instance.choixSujet[c];
+            int binome = instance.choixBinome[c];
+            if (estDisponible(s) && !recreeSuppression(c)
+                    && (binome == InstanceAffectation.AUCUN || estLibre(binome)) && peutDemenager(c)) {
+                deplacer(s, e, binome, c);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Le choix peut être satisfait si l'étudiant et son binôme sont libres, ou
+     * s'ils occupent à eux seuls un sujet qu'ils classent moins bien.
+     */
+    private boolean estCandidat(int c) {
+        int e = instance.choixEtudiant[c];
+        int binome = instance.choixBinome[c];
+        if (estLibre(e)) {
+            return binome == InstanceAffectation.AUCUN || estLibre(binome);
+        }
+        int actuel = sujetEtudiant[e];
+        boolean memeGroupe = binome == InstanceAffectation.AUCUN
+                ? occupant2[actuel] == InstanceAffectation.AUCUN
+                : sujetEtudiant[binome] == actuel;
+        return memeGroupe && instance.choixOrdre[c] < rangActuel(e, actuel);
+    }
+
+    // Le choix rendrait le sujet libéré à un étudiant de l'affectation supprimée
+    private boolean recreeSuppression(int c) {
+        if (instance.choixSujet[c] != sujetLibere) {
+            return false;
+        }
+        int binome = instance.choixBinome[c];
+        return etudiantsLiberes.get(instance.choixEtudiant[c])
+                || (binome != InstanceAffectation.AUCUN && etudiantsLiberes.get(binome));
+    }
+
+    // Le groupe du choix quitte son sujet actuel : sa charge n'augmente que s'il change d'encadrant
+    private boolean peutDemenager(int c) {
+        int s = instance.choixSujet[c];
+        int actuel = sujetEtudiant[instance.choixEtudiant[c]];
+        if (actuel != InstanceAffectation.AUCUN && instance.sujetEncadrant[actuel] == instance.sujetEncadrant[s]) {
+            return true;
+        }
+        return etat.peutAccueillir(s, instance.tailleGroupe(c));
+    }
+
+    // Ordre de préférence du sujet occupé, ou MAX_VALUE s'il ne vient d'aucun choix
+    private int rangActuel(int e, int sujet) {
+        int rang = Integer.MAX_VALUE;
+        for (int k = instance.etudiantChoixDebut[e]; k < instance.etudiantChoixDebut[e + 1]; k++) {
+            int c = instance.etudiantChoix[k];
+            if (instance.choixSujet[c] == sujet) {
+                rang = Math.min(rang, instance.choixOrdre[c]);
+            }
+        }
+        return rang;
+    }
+
+    private void deplacer(int s, int e1, int e2, int choix) {
+        int ancien = sujetEtudiant[e1];
+        if (ancien != InstanceAffectation.AUCUN) {
+            etat.liberer(ancien, occupant2[ancien] != InstanceAffectation.AUCUN ? 2 : 1);
+            occupant1[ancien] = InstanceAffectation.AUCUN;
+            occupant2[ancien] = InstanceAffectation.AUCUN;
+            sujetsLibres.add(ancien);
+        }
+        occupant1[s] = e1;
+        occupant2[s] = e2;
+        sujetEtudiant[e1] = s;
+        if (e2 != InstanceAffectation.AUCUN) {
+            sujetEtudiant[e2] = s;
+        }
+        etat.affecter(s, e1, e2, choix);
+    }
+
+    private boolean estLibre(int e) {
+        return sujetEtudiant[e] == InstanceAffectation.AUCUN;
+    }
+
+    private boolean estDisponible(int s) {
+        return etat.estDisponible(s);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.services.affectation;
+
+import java.util.Arrays;
+
+/**
+ * Affectations calculées par le moteur, sous forme de tuples
+ * (sujet, étudiant 1, étudiant 2, choix) d'index de l'{@link InstanceAffectation}.
+ * L'étudiant 2 vaut {@link InstanceAffectation#AUCUN} pour un projet en solo,
+ * le choix vaut {@link InstanceAffectation#AUCUN} si l'affectation ne provient
+ * pas d'un choix d'étudiant.
+ */
+public final class ResultatAffectation {
+
+    private int taille;
+    private int[] sujets;
+    private int[] etudiants1;
+    private int[] etudiants2;
+    private int[] choix;
+    private long dureeNanos;
+    private int[] chargesEncadrants;
+
+    public ResultatAffectation() {
+        this(16);
+    }
+
+    public ResultatAffectation(int capacite) {
+        int c = Math.max(capacite, 1);
+        sujets = new int[c];
+        etudiants1 = new int[c];
+        etudiants2 = new int[c];
+        choix = new int[c];
+    }
+
+    public void ajouter(int sujet, int etudiant1, int etudiant2) {
+        ajouter(sujet, etudiant1, etudiant2, InstanceAffectation.AUCUN);
+    }
+
+    public void ajouter(int sujet, int etudiant1, int etudiant2, int choix) {
+        if (taille == sujets.length) {
+            int c = taille * 2;
+            sujets = Arrays.copyOf(sujets, c);
+            etudiants1 = Arrays.copyOf(etudiants1, c);
+            etudiants2 = Arrays.copyOf(etudiants2, c);
+            this.choix = Arrays.copyOf(this.choix, c);
+        }
+        sujets[taille] = sujet;
+        etudiants1[taille] = etudiant1;
+        etudiants2[taille] = etudiant2;
+        this.choix[taille] = choix;
+        taille++;
+    }
+
+    public int taille() {
+        return taille;
+    }
+
+    public int sujet(int i) {
+        return sujets[i];
+    }
+
+    public int etudiant1(int i) {
+        return etudiants1[i];
+    }
+
+    public int etudiant2(int i) {
+        return etudiants2[i];
+    }
+
+    public int choix(int i) {
+        return choix[i];
+    }
+
+    /** Durée du calcul en mémoire (hors chargement et écriture). */
+    public long getDureeNanos() {
+        return dureeNanos;
+    }
+
+    void setDureeNanos(long dureeNanos) {
+        this.dureeNanos = dureeNanos;
+    }
+
+    /**
+     * Charge finale de l'encadrant d'index donné (charge initiale comprise),
+     * renseignée par le {@link MoteurAffectation}.
+     */
+    public int chargeEncadrant(int encadrant) {
+        return chargesEncadrants[encadrant];
+    }
+
+    void setChargesEncadrants(int[] chargesEncadrants) {
+        this.chargesEncadrants = chargesEncadrants;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.services.affectation;
+
+/**
+ * Mesure de satisfaction d'une affectation, commune à tous les modes pour
+ * pouvoir les comparer. Un choix rapporte (ordreMax + 1 - ordrePreference)
+ * points, pondérés par le mérite de l'étudiant : de x1 pour le dernier de la
+ * promotion à x2 pour le premier. Les valeurs sont des entiers en millièmes
+ * de point, utilisables directement comme coûts par l'optimiseur.
+ */
+public final class Satisfaction {
+
+    static final int ECHELLE = 1000;
+
+    private Satisfaction() {
+    }
+
+    /** Satisfaction (en millièmes de point) obtenue si le choix est retenu. */
+    public static long choix(InstanceAffectation instance, int c) {
+        int points = instance.ordreMax + 1 - Math.min(instance.choixOrdre[c], instance.ordreMax + 1);
+        int n = instance.effectifPromotion;
+        int rang = instance.rangsMerite[instance.choixEtudiant[c]];
+        long poids = ECHELLE + (n > 1 ? (long) ECHELLE * (n - 1 - rang) / (n - 1) : ECHELLE);
+        return points * poids;
+    }
+
+    /** Satisfaction totale d'un résultat, en points. */
+    public static double totale(InstanceAffectation instance, ResultatAffectation resultat) {
+        long total = 0;
+        for (int i = 0; i < resultat.taille(); i++) {
+            if (resultat.choix(i) != InstanceAffectation.AUCUN) {
+                total += choix(instance, resultat.choix(i));
+            }
+        }
+        return (double) total / ECHELLE;
+    }
+
+    /** Nombre d'étudiants (binômes compris) affectés à leur premier choix. */
+    public static int nbPremierChoix(InstanceAffectation instance, ResultatAffectation resultat) {
+        int nb = 0;
+        for (int i = 0; i < resultat.taille(); i++) {
+            int s = resultat.sujet(i);
+            if (premierChoix(instance, resultat.etudiant1(i)) == s) {
+                nb++;
+            }
+            int e2 = resultat.etudiant2(i);
+            if (e2 != InstanceAffectation.AUCUN && premierChoix(instance, e2) == s) {
+                nb++;
+            }
+        }
+        return nb;
+    }
+
+    private static int premierChoix(InstanceAffectation instance, int e) {
+        int debut = instance.etudiantChoixDebut[e];
+        return debut < instance.etudiantChoixDebut[e + 1]
+                ? instance.choixSujet[instance.etudiantChoix[debut]]
+                : InstanceAffectation.AUCUN;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.services.affectation;
+
+/**
+ * Algorithme d'affectation des sujets restants, exécuté après le traitement
+ * des sujets proposés par les étudiants.
+ */
+public interface StrategieAffectation {
+
+    void affecter(InstanceAffectation instance, EtatAffectation etat);
+}
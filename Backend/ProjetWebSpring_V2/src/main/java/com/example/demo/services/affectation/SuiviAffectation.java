@@ -0,0 +1,70 @@
+package com.example.demo.services.affectation;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Avancement d'une exécution, lisible depuis un autre thread, et demande
+ * d'annulation coopérative : les algorithmes appellent régulièrement
+ * {@link #verifierAnnulation()}.
+ */
+public class SuiviAffectation {
+
+    private final long debutNanos = System.nanoTime();
+    private final AtomicInteger sujetsTraites = new AtomicInteger();
+    private final AtomicInteger affectationsCreees = new AtomicInteger();
+    private volatile int nbSujets;
+    private volatile String etape = "EN_ATTENTE";
+    private volatile boolean annulationDemandee;
+
+    public void demarrerEtape(String etape) {
+        this.etape = etape;
+    }
+
+    public void sujetTraite() {
+        sujetsTraites.incrementAndGet();
+    }
+
+    public void affectationsCreees(int nombre) {
+        affectationsCreees.addAndGet(nombre);
+    }
+
+    public void annuler() {
+        annulationDemandee = true;
+    }
+
+    /** Lève une {@link CancellationException} si l'annulation a été demandée. */
+    public void verifierAnnulation() {
+        if (annulationDemandee) {
+            throw new CancellationException("Affectation annulée à l'étape " + etape);
+        }
+    }
+
+    public boolean isAnnulationDemandee() {
+        return annulationDemandee;
+    }
+
+    public String getEtape() {
+        return etape;
+    }
+
+    public int getSujetsTraites() {
+        return sujetsTraites.get();
+    }
+
+    public int getNbSujets() {
+        return nbSujets;
+    }
+
+    public void setNbSujets(int nbSujets) {
+        this.nbSujets = nbSujets;
+    }
+
+    public int getAffectationsCreees() {
+        return affectationsCreees.get();
+    }
+
+    public long getDureeMs() {
+        return (System.nanoTime() - debutNanos) / 1_000_000;
+    }
+}
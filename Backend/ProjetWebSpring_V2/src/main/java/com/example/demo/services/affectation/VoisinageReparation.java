@@ -0,0 +1,110 @@
+package com.example.demo.services.affectation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Partie de la campagne qu'une {@link ReparationAffectation} peut toucher,
+ * calculée sur des tuples d'identifiants pour ne charger ensuite que les
+ * entités nécessaires.
+ * <p>
+ * Un sujet libéré est exploré : tous les étudiants qui l'ont choisi peuvent y
+ * déménager et libérer à leur tour leur sujet actuel, qui est exploré de la
+ * même façon. Pour chaque étudiant retenu, son binôme, son sujet actuel et
+ * tous les sujets qu'il a choisis sont ajoutés ; seuls les sujets explorés ont
+ * besoin de la liste complète de leurs candidats.
+ */
+public final class VoisinageReparation {
+
+    // Sujets choisis par étudiant, binômes déclarés, étudiants ayant choisi chaque sujet
+    private final Map<Integer, List<Integer>> sujetsChoisis = new HashMap<>();
+    private final Map<Integer, Set<Integer>> binomes = new HashMap<>();
+    private final Map<Integer, List<Integer>> candidats = new HashMap<>();
+    // Affectations existantes : sujet de chaque étudiant, étudiants de chaque sujet
+    private final Map<Integer, Integer> sujetActuel = new HashMap<>();
+    private final Map<Integer, List<Integer>> occupants = new HashMap<>();
+
+    private final Set<Integer> etudiants = new LinkedHashSet<>();
+    private final Set<Integer> sujets = new LinkedHashSet<>();
+    private final Set<Integer> sujetsExplores = new HashSet<>();
+    private final Deque<Integer> aExplorer = new ArrayDeque<>();
+
+    /**
+     * @param choix        tuples (id étudiant, id sujet, id binôme ou null)
+     * @param affectations tuples (id, id sujet, id étudiant 1, id étudiant 2, id encadrant)
+     */
+    public VoisinageReparation(List<Object[]> choix, List<Object[]> affectations) {
+        for (Object[] c : choix) {
+            Integer etudiant = (Integer) c[0];
+            Integer sujet = (Integer) c[1];
+            sujetsChoisis.computeIfAbsent(etudiant, k -> new ArrayList<>()).add(sujet);
+            candidats.computeIfAbsent(sujet, k -> new ArrayList<>()).add(etudiant);
+            if (c[2] != null) {
+                binomes.computeIfAbsent(etudiant, k -> new HashSet<>()).add((Integer) c[2]);
+                binomes.computeIfAbsent((Integer) c[2], k -> new HashSet<>()).add(etudiant);
+            }
+        }
+        for (Object[] a : affectations) {
+            Integer sujet = (Integer) a[1];
+            for (int i = 2; i <= 3; i++) {
+                if (a[i] != null) {
+                    sujetActuel.put((Integer) a[i], sujet);
+                    occupants.computeIfAbsent(sujet, k -> new ArrayList<>()).add((Integer) a[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param sujetLibere        identifiant du sujet libéré, ou null
+     * @param etudiantsLiberes   identifiants des étudiants libérés
+     */
+    public VoisinageReparation explorer(Integer sujetLibere, Collection<Integer> etudiantsLiberes) {
+        if (sujetLibere != null) {
+            explorerSujet(sujetLibere);
+        }
+        etudiantsLiberes.forEach(this::ajouterEtudiant);
+        while (!aExplorer.isEmpty()) {
+            candidats.getOrDefault(aExplorer.poll(), List.of()).forEach(this::ajouterEtudiant);
+        }
+        return this;
+    }
+
+    private void explorerSujet(Integer sujet) {
+        sujets.add(sujet);
+        if (sujetsExplores.add(sujet)) {
+            aExplorer.add(sujet);
+            occupants.getOrDefault(sujet, List.of()).forEach(this::ajouterEtudiant);
+        }
+    }
+
+    private void ajouterEtudiant(Integer etudiant) {
+        if (!etudiants.add(etudiant)) {
+            return;
+        }
+        Integer actuel = sujetActuel.get(etudiant);
+        if (actuel != null) {
+            explorerSujet(actuel);
+        }
+        sujets.addAll(sujetsChoisis.getOrDefault(etudiant, List.of()));
+        binomes.getOrDefault(etudiant, Set.of()).forEach(this::ajouterEtudiant);
+    }
+
+    /** Identifiants des étudiants à charger. */
+    public Set<Integer> getEtudiants() {
+        return etudiants;
+    }
+
+    /** Identifiants des sujets à charger. */
+    public Set<Integer> getSujets() {
+        return sujets;
+    }
+}
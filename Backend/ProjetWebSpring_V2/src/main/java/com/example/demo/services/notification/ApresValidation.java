@@ -0,0 +1,28 @@
+package com.example.demo.services.notification;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Reporte une action après la validation de la transaction courante (ou
+ * l'exécute tout de suite hors transaction) : une transaction annulée ne
+ * doit laisser aucune trace en mémoire ni chez les clients.
+ */
+final class ApresValidation {
+
+    private ApresValidation() {
+    }
+
+    static void executer(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
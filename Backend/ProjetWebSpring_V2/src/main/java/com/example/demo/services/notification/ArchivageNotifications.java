@@ -0,0 +1,142 @@
+package com.example.demo.services.notification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.repository.NotificationArchiveeRepository;
+import com.example.demo.repository.NotificationRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rétention de la table notification : les notifications lues de plus de
+ * {@code retention-jours} jours sont déplacées vers notification_archive.
+ * La table chaude ne garde ainsi que l'activité récente et les non lues,
+ * quelle que soit l'ancienneté du déploiement.
+ * <p>
+ * Le déplacement se fait par lots, chacun dans sa propre transaction courte
+ * (INSERT ... SELECT puis DELETE sur une liste d'id), avec une pause entre
+ * deux lots : les verrous ne portent jamais que sur un lot et les requêtes
+ * des utilisateurs passent entre deux.
+ * <p>
+ * Un seul archivage tourne à la fois ; lancé à la demande, il s'exécute sur
+ * un thread dédié pour ne pas retenir la requête HTTP.
+ */
+@Component
+@Slf4j
+public class ArchivageNotifications {
+
+    private final NotificationRepository notificationRepo;
+    private final NotificationArchiveeRepository archiveRepo;
+    private final TransactionTemplate transaction;
+    private final AtomicBoolean enCours = new AtomicBoolean();
+    private final ExecutorService executeur = Executors.newSingleThreadExecutor(tache -> {
+        Thread thread = new Thread(tache, "archivage-notifications");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${notification.archivage.retention-jours:180}")
+    private int retentionJours;
+
+    @Value("${notification.archivage.taille-lot:1000}")
+    private int tailleLot;
+
+    @Value("${notification.archivage.pause-ms:200}")
+    private long pauseMs;
+
+    public ArchivageNotifications(NotificationRepository notificationRepo,
+                                  NotificationArchiveeRepository archiveRepo,
+                                  PlatformTransactionManager transactionManager) {
+        this.notificationRepo = notificationRepo;
+        this.archiveRepo = archiveRepo;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Lance un archivage en tâche de fond ; faux si un archivage est déjà en
+     * cours.
+     */
+    public boolean lancer() {
+        if (!enCours.compareAndSet(false, true)) {
+            return false;
+        }
+        executeur.execute(() -> {
+            try {
+                archiverParLots();
+            } catch (Exception e) {
+                log.error("Échec de l'archivage des notifications", e);
+            } finally {
+                enCours.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Renvoie le nombre de notifications archivées, ou 0 sans rien faire si
+     * un archivage est déjà en cours.
+     */
+    @Scheduled(cron = "${notification.archivage.cron:0 30 3 * * *}")
+    public int archiver() {
+        if (!enCours.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            return archiverParLots();
+        } finally {
+            enCours.set(false);
+        }
+    }
+
+    private int archiverParLots() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(retentionJours);
+        long debut = System.nanoTime();
+        int total = 0;
+        Integer dernierId = 0;
+        while (true) {
+            List<Integer> ids = notificationRepo.idsAArchiver(dernierId, limite, PageRequest.of(0, tailleLot));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer nbArchivees = transaction.execute(status -> {
+                int copiees = archiveRepo.copier(ids);
+                notificationRepo.supprimerParIds(ids);
+                return copiees;
+            });
+            total += nbArchivees;
+            dernierId = ids.get(ids.size() - 1);
+            if (ids.size() < tailleLot) {
+                break;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                // Arrêt : le reste sera archivé au prochain passage
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("{} notifications archivées en {} ms", total, (System.nanoTime() - debut) / 1_000_000);
+        }
+        return total;
+    }
+
+    @PreDestroy
+    void arreter() {
+        executeur.shutdownNow();
+    }
+}
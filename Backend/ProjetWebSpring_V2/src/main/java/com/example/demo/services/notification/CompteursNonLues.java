@@ -0,0 +1,98 @@
+package com.example.demo.services.notification;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.repository.NotificationRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compteurs de notifications non lues par utilisateur, tenus en mémoire pour
+ * le badge interrogé en boucle par le frontend. Un compteur est chargé par
+ * un COUNT au premier accès, puis ajusté à chaque création ou lecture, une
+ * fois la transaction validée.
+ * <p>
+ * Un ajustement peut se perdre ou se compter deux fois s'il croise un
+ * chargement : les compteurs consultés sont donc recalculés périodiquement
+ * en une requête groupée, et ceux qui ne l'ont pas été sont oubliés.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CompteursNonLues {
+
+    private static final int TAILLE_LOT_RECONCILIATION = 500;
+
+    private final NotificationRepository notificationRepo;
+
+    private final Map<Integer, AtomicInteger> compteurs = new ConcurrentHashMap<>();
+    // Utilisateurs dont le compteur a été lu depuis la dernière réconciliation
+    private final Set<Integer> consultes = ConcurrentHashMap.newKeySet();
+
+    public int lire(Integer userId) {
+        consultes.add(userId);
+        return compteurs.computeIfAbsent(userId,
+                id -> new AtomicInteger(notificationRepo.countByUserIdAndLueFalse(id))).get();
+    }
+
+    /** Ajoute {@code delta} (négatif pour des lectures) au compteur, après validation. */
+    public void ajuster(Integer userId, int delta) {
+        if (delta != 0) {
+            ApresValidation.executer(() -> appliquer(userId, delta));
+        }
+    }
+
+    /** Ajustements groupés (userId -> delta), appliqués ensemble après validation. */
+    public void ajuster(Map<Integer, Integer> deltas) {
+        if (!deltas.isEmpty()) {
+            ApresValidation.executer(() -> deltas.forEach(this::appliquer));
+        }
+    }
+
+    public void remettreAZero(Integer userId) {
+        ApresValidation.executer(() -> {
+            AtomicInteger compteur = compteurs.get(userId);
+            if (compteur != null) {
+                compteur.set(0);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${notification.compteurs.reconciliation-ms:300000}")
+    public void reconcilier() {
+        compteurs.keySet().retainAll(consultes);
+        consultes.clear();
+        List<Integer> ids = new ArrayList<>(compteurs.keySet());
+        for (int debut = 0; debut < ids.size(); debut += TAILLE_LOT_RECONCILIATION) {
+            List<Integer> lot = ids.subList(debut, Math.min(debut + TAILLE_LOT_RECONCILIATION, ids.size()));
+            Map<Integer, Integer> valeurs = new HashMap<>();
+            for (Object[] ligne : notificationRepo.compterNonLues(lot)) {
+                valeurs.put((Integer) ligne[0], ((Number) ligne[1]).intValue());
+            }
+            for (Integer id : lot) {
+                AtomicInteger compteur = compteurs.get(id);
+                if (compteur != null) {
+                    compteur.set(valeurs.getOrDefault(id, 0));
+                }
+            }
+        }
+        log.debug("{} compteurs de notifications non lues réconciliés", ids.size());
+    }
+
+    private void appliquer(Integer userId, int delta) {
+        AtomicInteger compteur = compteurs.get(userId);
+        if (compteur != null) {
+            compteur.updateAndGet(valeur -> Math.max(0, valeur + delta));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.services.notification;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.dto.NotificationDTO;
+import com.example.demo.entity.Notification;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Canal SSE des notifications : chaque onglet connecté tient un
+ * {@link SseEmitter} (requête asynchrone, aucun thread bloqué pendant
+ * l'attente) et reçoit les notifications de son utilisateur dès la
+ * validation de la transaction qui les crée. Un onglet inactif ne coûte
+ * aucune requête SQL ; un commentaire périodique détecte les connexions
+ * coupées.
+ * <p>
+ * Les écritures vers les navigateurs partent d'un thread dédié : un client
+ * lent ne retarde jamais la transaction qui publie.
+ */
+@Component
+@Slf4j
+public class DiffuseurNotifications {
+
+    private final long timeoutMs;
+    private final Map<Integer, Set<SseEmitter>> abonnes = new ConcurrentHashMap<>();
+    private final ExecutorService diffusion = Executors.newSingleThreadExecutor(tache -> {
+        Thread thread = new Thread(tache, "diffusion-notifications");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DiffuseurNotifications(@Value("${notification.sse.timeout-ms:3600000}") long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Ouvre un flux pour l'utilisateur. À l'expiration, le navigateur se
+     * reconnecte de lui-même (EventSource).
+     *
+     * @param nbNonLues compteur envoyé à la connexion (événement "non-lues")
+     */
+    public SseEmitter abonner(Integer userId, int nbNonLues) {
+        SseEmitter emetteur = new SseEmitter(timeoutMs);
+        abonnes.compute(userId, (id, emetteurs) -> {
+            Set<SseEmitter> ensemble = emetteurs != null ? emetteurs : new CopyOnWriteArraySet<>();
+            ensemble.add(emetteur);
+            return ensemble;
+        });
+        Runnable retirer = () -> retirer(userId, emetteur);
+        emetteur.onCompletion(retirer);
+        emetteur.onTimeout(retirer);
+        emetteur.onError(erreur -> retirer.run());
+        envoyer(userId, emetteur, SseEmitter.event().name("non-lues").data(nbNonLues));
+        return emetteur;
+    }
+
+    /** Pousse les notifications à leurs destinataires connectés, après validation. */
+    public void publier(List<Notification> notifications) {
+        if (notifications.isEmpty() || abonnes.isEmpty()) {
+            return;
+        }
+        ApresValidation.executer(() -> diffusion.execute(() -> {
+            for (Notification notification : notifications) {
+                Set<SseEmitter> emetteurs = abonnes.get(notification.getUserId());
+                if (emetteurs == null) {
+                    continue;
+                }
+                NotificationDTO dto = new NotificationDTO(notification.getId(), notification.getTitre(),
+                        notification.getMessage(), notification.getLien(), notification.getDateCreation(),
+                        notification.isLue());
+                for (SseEmitter emetteur : emetteurs) {
+                    envoyer(notification.getUserId(), emetteur,
+                            SseEmitter.event().name("notification").id(String.valueOf(dto.getId())).data(dto));
+                }
+            }
+        }));
+    }
+
+    @Scheduled(fixedDelayString = "${notification.sse.battement-ms:30000}")
+    public void battement() {
+        abonnes.forEach((userId, emetteurs) -> {
+            for (SseEmitter emetteur : emetteurs) {
+                envoyer(userId, emetteur, SseEmitter.event().comment("battement"));
+            }
+        });
+    }
+
+    public int getNbConnexions() {
+        return abonnes.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    void arreter() {
+        diffusion.shutdownNow();
+        abonnes.values().forEach(emetteurs -> emetteurs.forEach(SseEmitter::complete));
+        abonnes.clear();
+    }
+
+    private void envoyer(Integer userId, SseEmitter emetteur, SseEmitter.SseEventBuilder evenement) {
+        try {
+            emetteur.send(evenement);
+        } catch (IOException | IllegalStateException e) {
+            // Onglet fermé : la connexion est libérée
+            log.debug("Flux de notifications fermé pour l'utilisateur {} : {}", userId, e.getMessage());
+            retirer(userId, emetteur);
+            emetteur.completeWithError(e);
+        }
+    }
+
+    private void retirer(Integer userId, SseEmitter emetteur) {
+        abonnes.computeIfPresent(userId, (id, emetteurs) -> {
+            emetteurs.remove(emetteur);
+            return emetteurs.isEmpty() ? null : emetteurs;
+        });
+    }
+}
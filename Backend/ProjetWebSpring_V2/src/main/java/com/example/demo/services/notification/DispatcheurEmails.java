@@ -0,0 +1,189 @@
+package com.example.demo.services.notification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.dto.StatistiquesEmailsDTO;
+import com.example.demo.entity.EmailSortant;
+import com.example.demo.entity.StatutEmail;
+import com.example.demo.repository.EmailSortantRepository;
+
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Vide la table email_sortant en tâche de fond. Les emails sont lus par lots
+ * hors transaction : aucun verrou n'est tenu pendant les appels SMTP.
+ * <p>
+ * Chaque lot est découpé en sessions d'au plus {@code messages-par-connexion}
+ * emails : une session ouvre une seule connexion SMTP pour tous ses emails.
+ * Les sessions partent en parallèle sur le {@link PoolEnvoiEmails} et le lot
+ * est enregistré une fois toutes ses sessions terminées. Un envoi en échec
+ * est retenté avec un délai doublé à chaque tentative, puis abandonné
+ * (statut ECHEC) après le nombre maximal de tentatives.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DispatcheurEmails {
+
+    private final JavaMailSender mailSender;
+    private final EmailSortantRepository emailRepo;
+    private final PoolEnvoiEmails pool;
+
+    @Value("${notification.email.taille-lot:50}")
+    private int tailleLot;
+
+    @Value("${notification.email.messages-par-connexion:20}")
+    private int messagesParConnexion;
+
+    @Value("${notification.email.tentatives-max:8}")
+    private int tentativesMax;
+
+    @Value("${notification.email.delai-initial-ms:30000}")
+    private long delaiInitialMs;
+
+    @Value("${notification.email.delai-max-ms:3600000}")
+    private long delaiMaxMs;
+
+    @Scheduled(fixedDelayString = "${notification.email.intervalle-ms:2000}")
+    public void envoyerEmailsEnAttente() {
+        List<EmailSortant> lot;
+        do {
+            lot = emailRepo.findByStatutAndProchaineTentativeLessThanEqualOrderByIdAsc(
+                    StatutEmail.EN_ATTENTE, LocalDateTime.now(), PageRequest.of(0, tailleLot));
+            List<CompletableFuture<Void>> envois = new ArrayList<>(lot.size());
+            boolean interrompu = false;
+            try {
+                for (int debut = 0; debut < lot.size(); debut += messagesParConnexion) {
+                    List<EmailSortant> session = lot.subList(debut, Math.min(debut + messagesParConnexion, lot.size()));
+                    envois.add(pool.soumettre(() -> envoyer(session), session.size()));
+                }
+            } catch (InterruptedException e) {
+                // Arrêt : les emails non soumis restent en attente
+                Thread.currentThread().interrupt();
+                interrompu = true;
+            }
+            try {
+                CompletableFuture.allOf(envois.toArray(new CompletableFuture<?>[0])).join();
+            } finally {
+                // Même si une session a levé : ses emails repartiraient sinon tels quels au lot suivant
+                emailRepo.saveAll(lot);
+            }
+            if (interrompu) {
+                return;
+            }
+            // Les emails traités changent de statut ou de date : ils ne reviennent pas dans le lot suivant
+        } while (lot.size() == tailleLot);
+    }
+
+    public StatistiquesEmailsDTO statistiques() {
+        return StatistiquesEmailsDTO.builder()
+                .nbEnAttente(emailRepo.countByStatut(StatutEmail.EN_ATTENTE))
+                .nbARegrouper(emailRepo.countByStatut(StatutEmail.A_REGROUPER))
+                .nbAbandonnes(emailRepo.countByStatut(StatutEmail.ECHEC))
+                .nbThreads(pool.getNbThreads())
+                .nbSessions(pool.getNbSessions())
+                .tailleFile(pool.getTailleFile())
+                .nbEnCours(pool.getNbEnCours())
+                .nbEnvoyes(pool.getNbEnvoyes())
+                .nbEchecs(pool.getNbEchecs())
+                .latenceMoyenneMs(pool.getLatenceMoyenneMs())
+                .latenceMaxMs(pool.getLatenceMaxMs())
+                .build();
+    }
+
+    /**
+     * Exécuté sur un thread du pool : envoie les emails sur une seule
+     * connexion SMTP et renvoie le nombre d'emails partis. Un échec de
+     * connexion fait échouer toute la session ; un email impossible à
+     * construire (adresse invalide, champ manquant) ou un destinataire refusé,
+     * seulement l'email concerné.
+     */
+    private int envoyer(List<EmailSortant> emails) {
+        // MimeMessage plutôt que SimpleMailMessage : les échecs sont indexés par identité
+        MimeMessage[] messages = new MimeMessage[emails.size()];
+        List<MimeMessage> prets = new ArrayList<>(messages.length);
+        for (int i = 0; i < messages.length; i++) {
+            EmailSortant email = emails.get(i);
+            try {
+                MimeMessage mime = mailSender.createMimeMessage();
+                MimeMailMessage message = new MimeMailMessage(mime);
+                message.setTo(email.getDestinataires().split(","));
+                message.setSubject(email.getTitre());
+                message.setText(email.getMessage());
+                messages[i] = mime;
+                prets.add(mime);
+            } catch (RuntimeException e) {
+                marquerEchec(email, e);
+            }
+        }
+
+        Map<Object, Exception> echecs = Map.of();
+        RuntimeException erreurSession = null;
+        try {
+            if (!prets.isEmpty()) {
+                mailSender.send(prets.toArray(new MimeMessage[0]));
+            }
+        } catch (MailSendException e) {
+            echecs = e.getFailedMessages();
+            if (echecs.isEmpty()) {
+                erreurSession = e;
+            }
+        } catch (RuntimeException e) {
+            // MailException ou erreur inattendue : toute la session est en échec
+            erreurSession = e;
+        }
+
+        int nbEnvoyes = 0;
+        for (int i = 0; i < messages.length; i++) {
+            if (messages[i] == null) {
+                continue;
+            }
+            EmailSortant email = emails.get(i);
+            Exception erreur = erreurSession != null ? erreurSession : echecs.get(messages[i]);
+            if (erreur == null) {
+                email.setStatut(StatutEmail.ENVOYE);
+                email.setDateEnvoi(LocalDateTime.now());
+                nbEnvoyes++;
+            } else {
+                marquerEchec(email, erreur);
+            }
+        }
+        return nbEnvoyes;
+    }
+
+    private void marquerEchec(EmailSortant email, Exception e) {
+        int tentatives = email.getTentatives() + 1;
+        email.setTentatives(tentatives);
+        email.setDerniereErreur(tronquer(e.getMessage()));
+        if (tentatives >= tentativesMax) {
+            email.setStatut(StatutEmail.ECHEC);
+            log.error("Abandon de l'email {} après {} tentatives : {}", email.getId(), tentatives, e.getMessage());
+        } else {
+            long delai = Math.min(delaiMaxMs, delaiInitialMs << Math.min(tentatives - 1, 20));
+            email.setProchaineTentative(LocalDateTime.now().plusNanos(delai * 1_000_000));
+            log.warn("Échec d'envoi de l'email {} (tentative {}), nouvel essai dans {} ms",
+                    email.getId(), tentatives, delai);
+        }
+    }
+
+    private static String tronquer(String message) {
+        if (message == null || message.length() <= 500) {
+            return message;
+        }
+        return message.substring(0, 500);
+    }
+}
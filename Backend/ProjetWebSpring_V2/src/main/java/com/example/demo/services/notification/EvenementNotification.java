@@ -0,0 +1,20 @@
+package com.example.demo.services.notification;
+
+import java.util.List;
+
+/**
+ * Événement adressé à plusieurs destinataires : chacun reçoit sa
+ * notification, et l'email est commun à tous (ou, en mode récapitulatif, un
+ * événement à regrouper par destinataire).
+ *
+ * @param messageEmail email complet, envoyé tel quel hors mode récapitulatif
+ * @param detailEmail  partie propre à l'événement, reprise dans un récapitulatif
+ * @param cleFusion    clé de fusion des événements de récapitulatif rapprochés
+ */
+public record EvenementNotification(String titreEmail, String messageEmail, String detailEmail,
+                                    String cleFusion, List<Destinataire> destinataires) {
+
+    /** Destinataire et texte de sa notification ; l'email est résolu par id. */
+    public record Destinataire(Integer id, boolean enseignant, String titre, String message, String lien) {
+    }
+}
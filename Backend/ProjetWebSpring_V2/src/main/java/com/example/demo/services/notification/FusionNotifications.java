@@ -0,0 +1,134 @@
+package com.example.demo.services.notification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.entity.EmailSortant;
+import com.example.demo.entity.Notification;
+import com.example.demo.entity.StatutEmail;
+import com.example.demo.repository.EmailSortantRepository;
+import com.example.demo.repository.NotificationRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Fusion des notifications rapprochées : une notification non lue de même
+ * clé (utilisateur, lien) créée dans la fenêtre est réécrite avec le dernier
+ * état au lieu d'ajouter une ligne. Le lien distingue déjà le type
+ * (/projets/ pour un étudiant, /encadrement/ pour un encadrant) ; une
+ * affectation suivie d'une annulation ne laisse ainsi qu'un message, celui de
+ * l'effet net.
+ * <p>
+ * Les emails ne sont fusionnés qu'en mode récapitulatif : un événement
+ * A_REGROUPER n'est pas encore parti, alors qu'un email EN_ATTENTE peut être
+ * en cours d'envoi par le DispatcheurEmails. Les événements à réécrire sont
+ * verrouillés jusqu'à la fin de la transaction ; ceux déjà réservés par le
+ * {@link RegroupeurEmails} sont ignorés et l'événement est ajouté comme
+ * nouveau.
+ */
+@Component
+@RequiredArgsConstructor
+public class FusionNotifications {
+
+    private static final int TAILLE_LOT_IN = 1000;
+
+    private final NotificationRepository notificationRepo;
+    private final EmailSortantRepository emailRepo;
+
+    @Value("${notification.fusion.fenetre-ms:300000}")
+    private long fenetreMs;
+
+    /**
+     * @param aEnregistrer nouvelles notifications et notifications existantes réécrites
+     * @param nouvelles    lignes réellement ajoutées (pour les compteurs de non lues)
+     */
+    public record Resultat(List<Notification> aEnregistrer, List<Notification> nouvelles) {
+    }
+
+    public Resultat fusionner(List<Notification> notifications) {
+        if (fenetreMs <= 0 || notifications.isEmpty()) {
+            return new Resultat(notifications, notifications);
+        }
+        Set<Integer> userIds = new LinkedHashSet<>();
+        for (Notification notification : notifications) {
+            userIds.add(notification.getUserId());
+        }
+        LocalDateTime debutFenetre = LocalDateTime.now().minusNanos(fenetreMs * 1_000_000);
+        Map<String, Notification> parCle = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(userIds);
+        for (int debut = 0; debut < ids.size(); debut += TAILLE_LOT_IN) {
+            List<Integer> lot = ids.subList(debut, Math.min(debut + TAILLE_LOT_IN, ids.size()));
+            // Triées par date croissante : la plus récente de chaque clé l'emporte
+            for (Notification recente : notificationRepo.findRecentesNonLues(lot, debutFenetre)) {
+                parCle.put(recente.getUserId() + " " + recente.getLien(), recente);
+            }
+        }
+
+        Map<String, Notification> aEnregistrer = new LinkedHashMap<>();
+        List<Notification> nouvelles = new ArrayList<>();
+        for (Notification notification : notifications) {
+            String cle = notification.getUserId() + " " + notification.getLien();
+            Notification cible = parCle.get(cle);
+            if (cible == null) {
+                parCle.put(cle, notification);
+                nouvelles.add(notification);
+                aEnregistrer.put(cle, notification);
+            } else {
+                cible.setTitre(notification.getTitre());
+                cible.setMessage(notification.getMessage());
+                cible.setDateCreation(notification.getDateCreation());
+                aEnregistrer.put(cle, cible);
+            }
+        }
+        return new Resultat(new ArrayList<>(aEnregistrer.values()), nouvelles);
+    }
+
+    /**
+     * Même fusion pour les événements d'un récapitulatif, par clé
+     * (destinataire, cleFusion). Renvoie les lignes à enregistrer.
+     */
+    public List<EmailSortant> fusionnerEvenements(List<EmailSortant> evenements) {
+        if (fenetreMs <= 0 || evenements.isEmpty()) {
+            return evenements;
+        }
+        Set<String> cles = new LinkedHashSet<>();
+        for (EmailSortant evenement : evenements) {
+            cles.add(evenement.getCleFusion());
+        }
+        LocalDateTime debutFenetre = LocalDateTime.now().minusNanos(fenetreMs * 1_000_000);
+        Map<String, EmailSortant> parCle = new HashMap<>();
+        List<String> listeCles = new ArrayList<>(cles);
+        for (int debut = 0; debut < listeCles.size(); debut += TAILLE_LOT_IN) {
+            List<String> lot = listeCles.subList(debut, Math.min(debut + TAILLE_LOT_IN, listeCles.size()));
+            for (EmailSortant recent : emailRepo.findByStatutAndCleFusionInAndDateCreationGreaterThanEqualOrderByIdAsc(
+                    StatutEmail.A_REGROUPER, lot, debutFenetre)) {
+                parCle.put(recent.getDestinataires() + " " + recent.getCleFusion(), recent);
+            }
+        }
+
+        Map<String, EmailSortant> resultat = new LinkedHashMap<>();
+        for (EmailSortant evenement : evenements) {
+            String cle = evenement.getDestinataires() + " " + evenement.getCleFusion();
+            EmailSortant cible = parCle.get(cle);
+            if (cible == null) {
+                parCle.put(cle, evenement);
+                resultat.put(cle, evenement);
+            } else {
+                cible.setTitre(evenement.getTitre());
+                cible.setMessage(evenement.getMessage());
+                cible.setDateCreation(evenement.getDateCreation());
+                resultat.put(cle, cible);
+            }
+        }
+        return new ArrayList<>(resultat.values());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.services.notification;
+
+import com.example.demo.entity.Affectation;
+
+/**
+ * Corps des emails d'affectation et d'annulation, sans accès aux
+ * repositories : le détail d'une affectation sert aussi de ligne dans les
+ * emails récapitulatifs.
+ */
+public final class MessagesAffectation {
+
+    private MessagesAffectation() {
+    }
+
+    public static String affectation(Affectation affectation) {
+        StringBuilder message = new StringBuilder("Bonjour,\n\n");
+        message.append("Vous êtes concerné par l'affectation suivante :\n\n");
+        decrire(message, affectation, true);
+        message.append("\nCordialement,\nL'équipe de gestion des projets");
+        return message.toString();
+    }
+
+    public static String annulation(Affectation affectation) {
+        StringBuilder message = new StringBuilder("Bonjour,\n\n");
+        message.append("L'affectation suivante a été annulée :\n\n");
+        decrire(message, affectation, false);
+        message.append("\nCordialement,\nL'équipe de gestion des projets");
+        return message.toString();
+    }
+
+    /** Détail d'une affectation, partagé par les emails unitaires et les récapitulatifs. */
+    public static String detail(Affectation affectation, boolean avecDescription) {
+        return decrire(new StringBuilder(), affectation, avecDescription).toString();
+    }
+
+    private static StringBuilder decrire(StringBuilder message, Affectation affectation, boolean avecDescription) {
+        message.append("Projet : ").append(affectation.getSujet().getTitre()).append("\n");
+        if (avecDescription) {
+            message.append("Description : ").append(affectation.getSujet().getDescription()).append("\n\n");
+        }
+        message.append("Étudiant principal : ").append(affectation.getEtudiant1().getPrenom()).append(" ").append(affectation.getEtudiant1().getNom()).append("\n");
+        if (affectation.getEtudiant2() != null) {
+            message.append("Binôme : ").append(affectation.getEtudiant2().getPrenom()).append(" ").append(affectation.getEtudiant2().getNom()).append("\n");
+        }
+        if (affectation.getEncadrant() != null) {
+            message.append("Encadrant : Dr. ").append(affectation.getEncadrant().getPrenom()).append(" ").append(affectation.getEncadrant().getNom()).append("\n");
+        } else {
+            message.append("Encadrant : Non assigné\n");
+        }
+        return message;
+    }
+}
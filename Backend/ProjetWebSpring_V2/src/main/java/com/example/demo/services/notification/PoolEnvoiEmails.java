@@ -0,0 +1,169 @@
+package com.example.demo.services.notification;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pool d'envoi SMTP utilisé par le {@link DispatcheurEmails} : plusieurs
+ * sessions SMTP (chacune envoyant plusieurs emails sur la même connexion)
+ * tournent en parallèle, de sorte que la lenteur du serveur de mail ne
+ * s'additionne plus email par email.
+ * <p>
+ * La file d'attente est bornée. Quand elle est pleine, {@link #soumettre}
+ * bloque le dispatcheur (jamais une requête HTTP, qui ne fait qu'écrire
+ * dans la table email_sortant) jusqu'à ce qu'une place se libère. Un débit
+ * maximal (emails par seconde, tous threads confondus) peut être imposé pour
+ * ménager le serveur de mail.
+ */
+@Component
+@Slf4j
+public class PoolEnvoiEmails {
+
+    private final int nbThreads;
+    private final int debitMax;
+    private final ThreadPoolExecutor executeur;
+    // Envois en cours + en file ; acquis avant chaque soumission
+    private final Semaphore places;
+
+    private final AtomicLong nbSessions = new AtomicLong();
+    private final AtomicLong nbEnvoyes = new AtomicLong();
+    private final AtomicLong nbEchecs = new AtomicLong();
+    private final LongAdder latenceTotaleNanos = new LongAdder();
+    private final LongAccumulator latenceMaxNanos = new LongAccumulator(Math::max, 0);
+    // Instant à partir duquel la prochaine session peut partir (débit maximal)
+    private long prochainDepartNanos;
+
+    public PoolEnvoiEmails(@Value("${notification.email.threads:4}") int nbThreads,
+                           @Value("${notification.email.file-max:100}") int capaciteFile,
+                           @Value("${notification.email.debit-max:0}") int debitMax) {
+        this.nbThreads = nbThreads;
+        this.debitMax = debitMax;
+        this.places = new Semaphore(nbThreads + capaciteFile);
+        AtomicInteger numero = new AtomicInteger();
+        // La borne effective est le sémaphore : une place est rendue juste avant que
+        // le thread ne reprenne une tâche, la file doit donc pouvoir tout contenir
+        this.executeur = new ThreadPoolExecutor(nbThreads, nbThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(nbThreads + capaciteFile), tache -> {
+                    Thread thread = new Thread(tache, "envoi-email-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Soumet une session d'envoi, en attendant une place si la file est pleine.
+     *
+     * @param envoi      envoie les emails et renvoie le nombre d'emails partis
+     * @param nbMessages nombre d'emails de la session
+     */
+    public CompletableFuture<Void> soumettre(IntSupplier envoi, int nbMessages) throws InterruptedException {
+        places.acquire();
+        try {
+            return CompletableFuture.runAsync(() -> executer(envoi, nbMessages), executeur);
+        } catch (RejectedExecutionException e) {
+            places.release();
+            throw e;
+        }
+    }
+
+    private void executer(IntSupplier envoi, int nbMessages) {
+        try {
+            respecterDebit(nbMessages);
+        } catch (InterruptedException e) {
+            // Arrêt : la session n'est pas envoyée, ses emails restent en attente
+            Thread.currentThread().interrupt();
+            places.release();
+            return;
+        }
+        long debut = System.nanoTime();
+        int envoyes = 0;
+        try {
+            envoyes = envoi.getAsInt();
+        } finally {
+            long duree = System.nanoTime() - debut;
+            latenceTotaleNanos.add(duree);
+            latenceMaxNanos.accumulate(duree);
+            nbSessions.incrementAndGet();
+            nbEnvoyes.addAndGet(envoyes);
+            nbEchecs.addAndGet(nbMessages - envoyes);
+            places.release();
+        }
+    }
+
+    // Réserve le créneau de la session puis attend son heure de départ
+    private void respecterDebit(int nbMessages) throws InterruptedException {
+        if (debitMax <= 0) {
+            return;
+        }
+        long attente;
+        synchronized (this) {
+            long maintenant = System.nanoTime();
+            long depart = Math.max(maintenant, prochainDepartNanos);
+            prochainDepartNanos = depart + nbMessages * 1_000_000_000L / debitMax;
+            attente = depart - maintenant;
+        }
+        if (attente > 0) {
+            TimeUnit.NANOSECONDS.sleep(attente);
+        }
+    }
+
+    public int getNbThreads() {
+        return nbThreads;
+    }
+
+    /** Envois en attente d'un thread du pool. */
+    public int getTailleFile() {
+        return executeur.getQueue().size();
+    }
+
+    public int getNbEnCours() {
+        return executeur.getActiveCount();
+    }
+
+    /** Sessions SMTP (connexions) ouvertes depuis le démarrage. */
+    public long getNbSessions() {
+        return nbSessions.get();
+    }
+
+    public long getNbEnvoyes() {
+        return nbEnvoyes.get();
+    }
+
+    /** Tentatives d'envoi en échec (un email retenté compte à chaque tentative). */
+    public long getNbEchecs() {
+        return nbEchecs.get();
+    }
+
+    /** Durée moyenne d'une session SMTP (connexion, envois, fermeture). */
+    public double getLatenceMoyenneMs() {
+        long sessions = nbSessions.get();
+        return sessions == 0 ? 0 : latenceTotaleNanos.sum() / 1e6 / sessions;
+    }
+
+    public double getLatenceMaxMs() {
+        return latenceMaxNanos.get() / 1e6;
+    }
+
+    @PreDestroy
+    public void arreter() throws InterruptedException {
+        executeur.shutdown();
+        if (!executeur.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Envois d'emails encore en cours à l'arrêt : {}", executeur.shutdownNow().size());
+        }
+    }
+}
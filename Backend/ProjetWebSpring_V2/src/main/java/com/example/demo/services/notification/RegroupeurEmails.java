@@ -0,0 +1,84 @@
+package com.example.demo.services.notification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.entity.EmailSortant;
+import com.example.demo.entity.StatutEmail;
+import com.example.demo.repository.EmailSortantRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mode récapitulatif : en fin de fenêtre, les événements en attente
+ * (statut A_REGROUPER, un par destinataire et par événement) sont fusionnés
+ * en un seul email par destinataire, mis en file pour le DispatcheurEmails.
+ * Un encadrant de vingt étudiants reçoit ainsi un email par fenêtre au lieu
+ * de vingt.
+ * <p>
+ * Les événements sont réservés par un verrou en écriture avant d'être
+ * supprimés ; ceux qu'une fusion en cours a déjà verrouillés
+ * ({@link FusionNotifications}) sont laissés pour la fenêtre suivante au lieu
+ * d'être supprimés sous une transaction d'affectation.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RegroupeurEmails {
+
+    private final EmailSortantRepository emailRepo;
+
+    @Scheduled(fixedDelayString = "${notification.email.resume.fenetre-ms:600000}")
+    @Transactional
+    public void envoyerRecapitulatifs() {
+        // Réservés et triés par destinataire : les événements d'un même destinataire sont contigus
+        List<EmailSortant> evenements = emailRepo.findByStatutOrderByDestinatairesAscIdAsc(StatutEmail.A_REGROUPER);
+        if (evenements.isEmpty()) {
+            return;
+        }
+        List<EmailSortant> recapitulatifs = new ArrayList<>();
+        int debut = 0;
+        for (int i = 1; i <= evenements.size(); i++) {
+            if (i == evenements.size()
+                    || !evenements.get(i).getDestinataires().equals(evenements.get(debut).getDestinataires())) {
+                recapitulatifs.add(fusionner(evenements.subList(debut, i)));
+                debut = i;
+            }
+        }
+        emailRepo.saveAll(recapitulatifs);
+        emailRepo.deleteAllInBatch(evenements);
+        log.info("{} événements regroupés en {} emails récapitulatifs", evenements.size(), recapitulatifs.size());
+    }
+
+    private EmailSortant fusionner(List<EmailSortant> evenements) {
+        StringBuilder message = new StringBuilder("Bonjour,\n\n");
+        if (evenements.size() == 1) {
+            message.append("Vous êtes concerné par la notification suivante :\n\n");
+        } else {
+            message.append("Vous êtes concerné par les ").append(evenements.size())
+                    .append(" notifications suivantes :\n\n");
+        }
+        for (EmailSortant evenement : evenements) {
+            message.append("== ").append(evenement.getTitre()).append(" ==\n");
+            message.append(evenement.getMessage()).append("\n");
+        }
+        message.append("Cordialement,\nL'équipe de gestion des projets");
+
+        EmailSortant email = new EmailSortant();
+        email.setDestinataires(evenements.get(0).getDestinataires());
+        email.setTitre(evenements.size() == 1
+                ? evenements.get(0).getTitre()
+                : "Récapitulatif : " + evenements.size() + " notifications");
+        email.setMessage(message.toString());
+        email.setStatut(StatutEmail.EN_ATTENTE);
+        email.setDateCreation(LocalDateTime.now());
+        email.setProchaineTentative(email.getDateCreation());
+        return email;
+    }
+}
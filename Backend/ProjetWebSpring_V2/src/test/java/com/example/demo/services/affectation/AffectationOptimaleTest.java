@@ -0,0 +1,126 @@
+package com.example.demo.services.affectation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AffectationOptimaleTest {
+
+    @Test
+    public void satisfactionAuMoinsEgaleAuxAutresModes() {
+        for (long graine = 1; graine <= 20; graine++) {
+            InstanceAffectation instance = new InstancesAleatoires(graine)
+                    .etudiants(60).sujets(45).choixParEtudiant(5).sujetsValides(0.9)
+                    .generer();
+            double optimale = satisfaction(instance, ModeAffectation.OPTIMAL, 0);
+            assertTrue("graine " + graine, optimale >= satisfaction(instance, ModeAffectation.GLOUTON, 0));
+            assertTrue("graine " + graine, optimale >= satisfaction(instance, ModeAffectation.STABLE, 0));
+        }
+    }
+
+    @Test
+    public void satisfactionAuMoinsEgaleAvecCapacite() {
+        for (long graine = 1; graine <= 20; graine++) {
+            InstanceAffectation instance = new InstancesAleatoires(graine)
+                    .etudiants(60).sujets(45).encadrants(8).choixParEtudiant(5)
+                    .generer();
+            double optimale = satisfaction(instance, ModeAffectation.OPTIMAL, 6);
+            assertTrue("graine " + graine, optimale >= satisfaction(instance, ModeAffectation.GLOUTON, 6));
+        }
+    }
+
+    @Test
+    public void capaciteStricteRespectee() {
+        for (long graine = 1; graine <= 10; graine++) {
+            InstanceAffectation instance = new InstancesAleatoires(graine)
+                    .etudiants(80).sujets(60).encadrants(5).binomes(0.4)
+                    .generer();
+            ResultatAffectation resultat = MoteurAffectation.pour(parametres(ModeAffectation.OPTIMAL, 7))
+                    .executer(instance);
+            for (int enc = 0; enc < instance.nbEncadrants; enc++) {
+                assertTrue("encadrant " + enc, resultat.chargeEncadrant(enc) <= 7);
+            }
+        }
+    }
+
+    @Test
+    public void satisfactionAuMoinsEgaleAvecBinomesEtCapaciteStricte() {
+        for (long graine = 1; graine <= 20; graine++) {
+            InstanceAffectation instance = new InstancesAleatoires(graine)
+                    .etudiants(80).sujets(60).encadrants(11).binomes(0.5)
+                    .generer();
+            for (int capacite = 3; capacite <= 5; capacite++) {
+                String contexte = "graine " + graine + ", capacité " + capacite;
+                double optimale = satisfaction(instance, ModeAffectation.OPTIMAL, capacite);
+                assertTrue(contexte, optimale >= satisfaction(instance, ModeAffectation.GLOUTON, capacite));
+                assertTrue(contexte, optimale >= satisfaction(instance, ModeAffectation.STABLE, capacite));
+            }
+        }
+    }
+
+    @Test
+    public void binomeRetirePourCapaciteReplaceAilleurs() {
+        // Les deux binômes veulent l'encadrant 100, qui n'a que trois places
+        InstanceAffectation.Builder builder = InstanceAffectation.builder();
+        for (int e = 1; e <= 4; e++) {
+            builder.ajouterEtudiant(e, 15.0 - e, e);
+        }
+        builder.ajouterSujet(10, 100, true, false);
+        builder.ajouterSujet(11, 100, true, false);
+        builder.ajouterSujet(12, 200, true, false);
+        builder.ajouterChoix(1, 10, 1, 2, false);
+        builder.ajouterChoix(1, 12, 2, 2, false);
+        builder.ajouterChoix(3, 11, 1, 4, false);
+        builder.ajouterChoix(3, 12, 2, 4, false);
+        InstanceAffectation instance = builder.build();
+
+        ResultatAffectation resultat = MoteurAffectation.pour(parametres(ModeAffectation.OPTIMAL, 3))
+                .executer(instance);
+
+        assertEquals(2, resultat.taille());
+        for (int enc = 0; enc < instance.nbEncadrants; enc++) {
+            assertEquals(2, resultat.chargeEncadrant(enc));
+        }
+    }
+
+    @Test
+    public void prefereDeuxSecondsChoixAUnPremier() {
+        // Glouton donne le sujet 10 au meilleur étudiant et laisse l'autre sans sujet
+        InstanceAffectation.Builder builder = InstanceAffectation.builder();
+        builder.ajouterEtudiant(1, 16.0, 1);
+        builder.ajouterEtudiant(2, 11.0, 2);
+        builder.ajouterSujet(10, null, true, false);
+        builder.ajouterSujet(11, null, true, false);
+        builder.ajouterSujet(12, null, true, false);
+        builder.ajouterChoix(1, 10, 1, null, false);
+        builder.ajouterChoix(1, 11, 2, null, false);
+        builder.ajouterChoix(1, 12, 3, null, false);
+        builder.ajouterChoix(2, 10, 1, null, false);
+        InstanceAffectation instance = builder.build();
+
+        ResultatAffectation resultat = MoteurAffectation.pour(ModeAffectation.OPTIMAL).executer(instance);
+
+        assertEquals(2, resultat.taille());
+        assertEquals(11, instance.sujetId(resultat.sujet(indexEtudiant(resultat, 0))));
+        assertEquals(1, MoteurAffectation.pour(ModeAffectation.GLOUTON).executer(instance).taille());
+    }
+
+    private static int indexEtudiant(ResultatAffectation resultat, int etudiant) {
+        for (int i = 0; i < resultat.taille(); i++) {
+            if (resultat.etudiant1(i) == etudiant) {
+                return i;
+            }
+        }
+        throw new AssertionError("étudiant " + etudiant + " non affecté");
+    }
+
+    private static double satisfaction(InstanceAffectation instance, ModeAffectation mode, int capacite) {
+        ResultatAffectation resultat = MoteurAffectation.pour(parametres(mode, capacite)).executer(instance);
+        return Satisfaction.totale(instance, resultat);
+    }
+
+    private static ParametresAffectation parametres(ModeAffectation mode, int capacite) {
+        return ParametresAffectation.builder().mode(mode).capaciteEncadrant(capacite).build();
+    }
+}
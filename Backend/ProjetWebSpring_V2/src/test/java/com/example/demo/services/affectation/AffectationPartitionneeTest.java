@@ -0,0 +1,70 @@
+package com.example.demo.services.affectation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AffectationPartitionneeTest {
+
+    @Test
+    public void memeResultatQueLaResolutionGlobale() {
+        for (ModeAffectation mode : ModeAffectation.values()) {
+            for (int capacite : new int[] {0, 5}) {
+                for (long graine = 1; graine <= 10; graine++) {
+                    InstanceAffectation instance = new InstancesAleatoires(graine)
+                            .etudiants(120).sujets(90).encadrants(24).domaines(6).binomes(0.3).sujetsValides(0.9)
+                            .generer();
+                    String contexte = mode + ", capacité " + capacite + ", graine " + graine;
+                    ResultatAffectation global = executer(instance, mode, capacite, false);
+                    ResultatAffectation partitionne = executer(instance, mode, capacite, true);
+                    if (mode == ModeAffectation.OPTIMAL && capacite > 0) {
+                        // Binômes et capacité stricte : chaque composante garde sa meilleure solution
+                        assertTrue(contexte, Satisfaction.totale(instance, partitionne)
+                                >= Satisfaction.totale(instance, global));
+                    } else {
+                        assertEquals(contexte, affectations(instance, global), affectations(instance, partitionne));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void composantesIndependantesResoluesSeparement() {
+        // Six domaines sans choix croisés : au moins six composantes
+        InstanceAffectation instance = new InstancesAleatoires(3)
+                .etudiants(60).sujets(60).encadrants(12).domaines(6)
+                .generer();
+        ResultatAffectation resultat = executer(instance, ModeAffectation.OPTIMAL, 4, true);
+        assertTrue(resultat.taille() > 0);
+        for (int enc = 0; enc < instance.nbEncadrants; enc++) {
+            assertTrue(resultat.chargeEncadrant(enc) <= 4);
+        }
+    }
+
+    private static ResultatAffectation executer(InstanceAffectation instance, ModeAffectation mode,
+                                                int capacite, boolean parallele) {
+        return MoteurAffectation.pour(ParametresAffectation.builder()
+                .mode(mode)
+                .capaciteEncadrant(capacite)
+                .parallele(parallele)
+                .build()).executer(instance);
+    }
+
+    // Affectations en identifiants métier, triées : l'ordre de fusion n'est pas significatif
+    static List<String> affectations(InstanceAffectation instance, ResultatAffectation resultat) {
+        List<String> affectations = new ArrayList<>();
+        for (int i = 0; i < resultat.taille(); i++) {
+            int e2 = resultat.etudiant2(i);
+            affectations.add(instance.sujetId(resultat.sujet(i)) + ":" + instance.etudiantId(resultat.etudiant1(i))
+                    + (e2 != InstanceAffectation.AUCUN ? "+" + instance.etudiantId(e2) : ""));
+        }
+        Collections.sort(affectations);
+        return affectations;
+    }
+}
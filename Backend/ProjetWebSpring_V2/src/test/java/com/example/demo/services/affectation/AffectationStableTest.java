@@ -0,0 +1,125 @@
+package com.example.demo.services.affectation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class AffectationStableTest {
+
+    @Test
+    public void aucunePaireBloquante() {
+        for (long graine = 1; graine <= 20; graine++) {
+            InstanceAffectation instance = new InstancesAleatoires(graine)
+                    .etudiants(60).sujets(45).choixParEtudiant(5).sujetsValides(0.9)
+                    .generer();
+            ResultatAffectation resultat = MoteurAffectation.pour(ModeAffectation.STABLE).executer(instance);
+            verifierStabilite(instance, resultat);
+        }
+    }
+
+    @Test
+    public void optimalPourLesEtudiants() {
+        // Deux étudiants veulent le même sujet en premier : le mieux classé l'obtient
+        InstanceAffectation.Builder builder = InstanceAffectation.builder();
+        builder.ajouterEtudiant(1, 12.0, 2);
+        builder.ajouterEtudiant(2, 15.0, 1);
+        builder.ajouterSujet(10, null, true, false);
+        builder.ajouterSujet(11, null, true, false);
+        builder.ajouterChoix(1, 10, 1, null, false);
+        builder.ajouterChoix(1, 11, 2, null, false);
+        builder.ajouterChoix(2, 10, 1, null, false);
+        builder.ajouterChoix(2, 11, 2, null, false);
+        InstanceAffectation instance = builder.build();
+
+        ResultatAffectation resultat = MoteurAffectation.pour(ModeAffectation.STABLE).executer(instance);
+
+        int[] sujets = sujetsParEtudiant(instance, resultat);
+        assertEquals(10, instance.sujetId(sujets[1]));
+        assertEquals(11, instance.sujetId(sujets[0]));
+    }
+
+    @Test
+    public void independantDeLOrdreDesSujets() {
+        InstanceAffectation instance = new InstancesAleatoires(7).etudiants(50).sujets(40).generer();
+        InstanceAffectation inverse = inverserSujets(instance);
+
+        int[] attendu = sujetIdsParEtudiant(instance,
+                MoteurAffectation.pour(ModeAffectation.STABLE).executer(instance));
+        int[] obtenu = sujetIdsParEtudiant(inverse,
+                MoteurAffectation.pour(ModeAffectation.STABLE).executer(inverse));
+        assertTrue(Arrays.equals(attendu, obtenu));
+    }
+
+    /**
+     * Aucun étudiant ne préfère un sujet validé qui est libre, ou tenu par un
+     * étudiant moins bien classé.
+     */
+    static void verifierStabilite(InstanceAffectation instance, ResultatAffectation resultat) {
+        int[] sujets = sujetsParEtudiant(instance, resultat);
+        int[] occupant = new int[instance.nbSujets];
+        Arrays.fill(occupant, InstanceAffectation.AUCUN);
+        for (int e = 0; e < instance.nbEtudiants; e++) {
+            if (sujets[e] != InstanceAffectation.AUCUN) {
+                assertEquals("sujet attribué deux fois", InstanceAffectation.AUCUN, occupant[sujets[e]]);
+                occupant[sujets[e]] = e;
+            }
+        }
+        for (int e = 0; e < instance.nbEtudiants; e++) {
+            for (int k = instance.etudiantChoixDebut[e]; k < instance.etudiantChoixDebut[e + 1]; k++) {
+                int s = instance.choixSujet[instance.etudiantChoix[k]];
+                if (s == sujets[e]) {
+                    break;
+                }
+                if (!instance.sujetsValides.get(s)) {
+                    continue;
+                }
+                int autre = occupant[s];
+                assertFalse("paire bloquante : étudiant " + e + ", sujet " + s,
+                        autre == InstanceAffectation.AUCUN || instance.rangsMerite[autre] > instance.rangsMerite[e]);
+            }
+        }
+    }
+
+    private static int[] sujetsParEtudiant(InstanceAffectation instance, ResultatAffectation resultat) {
+        int[] sujets = new int[instance.nbEtudiants];
+        Arrays.fill(sujets, InstanceAffectation.AUCUN);
+        for (int i = 0; i < resultat.taille(); i++) {
+            sujets[resultat.etudiant1(i)] = resultat.sujet(i);
+            if (resultat.etudiant2(i) != InstanceAffectation.AUCUN) {
+                sujets[resultat.etudiant2(i)] = resultat.sujet(i);
+            }
+        }
+        return sujets;
+    }
+
+    private static int[] sujetIdsParEtudiant(InstanceAffectation instance, ResultatAffectation resultat) {
+        int[] sujets = sujetsParEtudiant(instance, resultat);
+        int[] ids = new int[sujets.length];
+        for (int e = 0; e < sujets.length; e++) {
+            ids[e] = sujets[e] != InstanceAffectation.AUCUN ? instance.sujetId(sujets[e]) : InstanceAffectation.AUCUN;
+        }
+        return ids;
+    }
+
+    // Même campagne, sujets chargés dans l'ordre inverse
+    private static InstanceAffectation inverserSujets(InstanceAffectation instance) {
+        InstanceAffectation.Builder builder = InstanceAffectation.builder();
+        for (int e = 0; e < instance.nbEtudiants; e++) {
+            builder.ajouterEtudiant(instance.etudiantId(e), instance.moyennes[e], instance.ordresMerite[e]);
+        }
+        for (int s = instance.nbSujets - 1; s >= 0; s--) {
+            int enc = instance.encadrant(s);
+            builder.ajouterSujet(instance.sujetId(s), enc != InstanceAffectation.AUCUN ? instance.encadrantId(enc) : null,
+                    instance.sujetsValides.get(s), false);
+        }
+        for (int c = 0; c < instance.nbChoix; c++) {
+            builder.ajouterChoix(instance.etudiantId(instance.choixEtudiant[c]), instance.sujetId(instance.choixSujet[c]),
+                    instance.choixOrdre[c], null, false);
+        }
+        return builder.build();
+    }
+}
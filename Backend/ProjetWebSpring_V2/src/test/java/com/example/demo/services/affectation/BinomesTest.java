@@ -0,0 +1,105 @@
+package com.example.demo.services.affectation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class BinomesTest {
+
+    @Test
+    public void binomeJamaisSepare() {
+        for (ModeAffectation mode : ModeAffectation.values()) {
+            for (boolean parallele : new boolean[] {false, true}) {
+                for (long graine = 1; graine <= 10; graine++) {
+                    InstanceAffectation instance = new InstancesAleatoires(graine)
+                            .etudiants(80).sujets(50).encadrants(8).domaines(parallele ? 4 : 1).binomes(0.5)
+                            .generer();
+                    ResultatAffectation resultat = executer(instance, mode, 6, parallele);
+                    verifierBinomes(mode + (parallele ? " parallèle" : "") + ", graine " + graine, instance, resultat);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void liensContradictoiresResolusSansSeparation() {
+        // 1 désigne 2, 2 désigne 3, 3 désigne 1 ; 2 et 3 ont aussi un choix en solo
+        InstanceAffectation.Builder builder = InstanceAffectation.builder();
+        builder.ajouterEtudiant(1, 15.0, 1);
+        builder.ajouterEtudiant(2, 14.0, 2);
+        builder.ajouterEtudiant(3, 13.0, 3);
+        for (int s = 10; s <= 14; s++) {
+            builder.ajouterSujet(s, null, true, false);
+        }
+        builder.ajouterChoix(1, 10, 1, 2, false);
+        builder.ajouterChoix(2, 11, 1, 3, false);
+        builder.ajouterChoix(2, 12, 2, null, false);
+        builder.ajouterChoix(3, 13, 1, 1, false);
+        builder.ajouterChoix(3, 14, 2, null, false);
+        InstanceAffectation instance = builder.build();
+
+        for (ModeAffectation mode : ModeAffectation.values()) {
+            ResultatAffectation resultat = executer(instance, mode, 0, false);
+            verifierBinomes(mode.toString(), instance, resultat);
+            // Un seul binôme retenu : deux étudiants placés ensemble, le troisième seul
+            assertEquals(mode.toString(), 2, resultat.taille());
+        }
+    }
+
+    @Test
+    public void binomeNonPlaceSiUnMembreEstDejaAffecte() {
+        InstanceAffectation.Builder builder = InstanceAffectation.builder();
+        builder.ajouterEtudiant(1, 15.0, 1);
+        builder.ajouterEtudiant(2, 14.0, 2);
+        builder.ajouterSujet(10, null, true, true);
+        builder.ajouterSujet(11, null, true, false);
+        builder.marquerEtudiantAffecte(2);
+        builder.ajouterChoix(1, 11, 1, 2, false);
+        InstanceAffectation instance = builder.build();
+
+        for (ModeAffectation mode : ModeAffectation.values()) {
+            assertEquals(mode.toString(), 0, executer(instance, mode, 0, false).taille());
+        }
+    }
+
+    /**
+     * Chaque étudiant est placé au plus une fois, et un membre de binôme ne
+     * l'est jamais sans son binôme.
+     */
+    static void verifierBinomes(String contexte, InstanceAffectation instance, ResultatAffectation resultat) {
+        int[] partenaire = new int[instance.nbEtudiants];
+        Arrays.fill(partenaire, InstanceAffectation.AUCUN);
+        for (int c = 0; c < instance.nbChoix; c++) {
+            int b = instance.choixBinome[c];
+            if (b != InstanceAffectation.AUCUN) {
+                partenaire[instance.choixEtudiant[c]] = b;
+                partenaire[b] = instance.choixEtudiant[c];
+            }
+        }
+        int[] place = new int[instance.nbEtudiants];
+        for (int i = 0; i < resultat.taille(); i++) {
+            int e1 = resultat.etudiant1(i);
+            int e2 = resultat.etudiant2(i);
+            assertEquals(contexte + " : binôme de " + e1, partenaire[e1], e2);
+            place[e1]++;
+            if (e2 != InstanceAffectation.AUCUN) {
+                place[e2]++;
+            }
+        }
+        for (int e = 0; e < instance.nbEtudiants; e++) {
+            assertTrue(contexte + " : étudiant " + e + " placé " + place[e] + " fois", place[e] <= 1);
+        }
+    }
+
+    private static ResultatAffectation executer(InstanceAffectation instance, ModeAffectation mode,
+                                                int capacite, boolean parallele) {
+        return MoteurAffectation.pour(ParametresAffectation.builder()
+                .mode(mode)
+                .capaciteEncadrant(capacite)
+                .parallele(parallele)
+                .build()).executer(instance);
+    }
+}
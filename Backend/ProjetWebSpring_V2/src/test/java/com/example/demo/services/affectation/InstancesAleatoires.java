@@ -0,0 +1,110 @@
+package com.example.demo.services.affectation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Campagnes aléatoires reproductibles pour les tests du moteur : chaque
+ * étudiant classe quelques sujets distincts (ordres 1, 2, ...), une partie
+ * des étudiants peut former des binômes déclarés dans les choix du premier
+ * membre.
+ */
+final class InstancesAleatoires {
+
+    private final Random random;
+    private int nbEtudiants = 40;
+    private int nbSujets = 30;
+    private int nbEncadrants = 6;
+    private int nbChoix = 4;
+    private double partBinomes;
+    private double partSujetsValides = 1.0;
+    // Sujets répartis en domaines : un étudiant ne choisit que dans le sien
+    private int nbDomaines = 1;
+
+    InstancesAleatoires(long graine) {
+        this.random = new Random(graine);
+    }
+
+    InstancesAleatoires etudiants(int nb) {
+        this.nbEtudiants = nb;
+        return this;
+    }
+
+    InstancesAleatoires sujets(int nb) {
+        this.nbSujets = nb;
+        return this;
+    }
+
+    InstancesAleatoires encadrants(int nb) {
+        this.nbEncadrants = nb;
+        return this;
+    }
+
+    InstancesAleatoires choixParEtudiant(int nb) {
+        this.nbChoix = nb;
+        return this;
+    }
+
+    InstancesAleatoires binomes(double part) {
+        this.partBinomes = part;
+        return this;
+    }
+
+    InstancesAleatoires sujetsValides(double part) {
+        this.partSujetsValides = part;
+        return this;
+    }
+
+    InstancesAleatoires domaines(int nb) {
+        this.nbDomaines = nb;
+        return this;
+    }
+
+    InstanceAffectation generer() {
+        InstanceAffectation.Builder builder = InstanceAffectation.builder();
+        for (int e = 0; e < nbEtudiants; e++) {
+            // Moyennes distinctes : le classement par mérite ne dépend pas des égalités
+            builder.ajouterEtudiant(100 + e, 8 + random.nextInt(12_000) / 1000.0 + e * 1e-6, e + 1);
+        }
+        for (int s = 0; s < nbSujets; s++) {
+            int domaine = s % nbDomaines;
+            // Encadrants propres au domaine, pour que les domaines restent indépendants
+            int encadrant = 1000 + domaine + nbDomaines * random.nextInt(Math.max(1, nbEncadrants / nbDomaines));
+            builder.ajouterSujet(500 + s, encadrant, random.nextDouble() < partSujetsValides, false);
+        }
+
+        List<Integer> ordre = new ArrayList<>();
+        for (int e = 0; e < nbEtudiants; e++) {
+            ordre.add(e);
+        }
+        Collections.shuffle(ordre, random);
+        int nbEnBinome = (int) (nbEtudiants * partBinomes) & ~1;
+        int[] binome = new int[nbEtudiants];
+        Arrays.fill(binome, InstanceAffectation.AUCUN);
+        for (int i = 0; i < nbEnBinome; i += 2) {
+            binome[ordre.get(i)] = ordre.get(i + 1);
+            binome[ordre.get(i + 1)] = ordre.get(i);
+        }
+
+        for (int e = 0; e < nbEtudiants; e++) {
+            // Le second membre d'un binôme ne déclare aucun choix
+            if (binome[e] != InstanceAffectation.AUCUN && binome[e] < e) {
+                continue;
+            }
+            int domaine = e % nbDomaines;
+            List<Integer> candidats = new ArrayList<>();
+            for (int s = domaine; s < nbSujets; s += nbDomaines) {
+                candidats.add(s);
+            }
+            Collections.shuffle(candidats, random);
+            for (int k = 0; k < Math.min(nbChoix, candidats.size()); k++) {
+                builder.ajouterChoix(100 + e, 500 + candidats.get(k), k + 1,
+                        binome[e] != InstanceAffectation.AUCUN ? 100 + binome[e] : null, false);
+            }
+        }
+        return builder.build();
+    }
+}
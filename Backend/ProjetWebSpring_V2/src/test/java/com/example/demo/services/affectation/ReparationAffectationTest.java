@@ -0,0 +1,242 @@
+package com.example.demo.services.affectation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.example.demo.entity.Affectation;
+import com.example.demo.entity.ChoixEtudiant;
+import com.example.demo.entity.Enseignant;
+import com.example.demo.entity.Etudiant;
+import com.example.demo.entity.Sujet;
+
+public class ReparationAffectationTest {
+
+    private static final int CAPACITE = 4;
+
+    @Test
+    public void capaciteRespecteeApresReparation() {
+        for (long graine = 1; graine <= 30; graine++) {
+            Campagne campagne = new Campagne(graine);
+            Affectation supprimee = campagne.supprimerAuHasard();
+            DonneesAffectation donnees = DonneesAffectation.depuis(campagne.etudiants, campagne.sujets,
+                    campagne.choix, campagne.charges());
+
+            ResultatAffectation mouvements = new ReparationAffectation(donnees, CAPACITE, true)
+                    .reparer(donnees.indexSujet(supprimee.getSujet().getId()), liberes(donnees, supprimee));
+
+            Map<Integer, Integer> charges = chargesApres(donnees, mouvements);
+            charges.forEach((encadrant, charge) ->
+                    assertTrue("encadrant " + encadrant + " : " + charge, charge <= CAPACITE));
+        }
+    }
+
+    @Test
+    public void affectationSupprimeeJamaisRecreee() {
+        for (long graine = 1; graine <= 200; graine++) {
+            Campagne campagne = new Campagne(graine);
+            Affectation supprimee = campagne.supprimerAuHasard();
+            DonneesAffectation donnees = DonneesAffectation.depuis(campagne.etudiants, campagne.sujets,
+                    campagne.choix, campagne.charges());
+
+            ResultatAffectation mouvements = new ReparationAffectation(donnees, CAPACITE, true)
+                    .reparer(donnees.indexSujet(supprimee.getSujet().getId()), liberes(donnees, supprimee));
+
+            for (int i = 0; i < mouvements.taille(); i++) {
+                if (donnees.sujet(mouvements.sujet(i)) != supprimee.getSujet()) {
+                    continue;
+                }
+                Etudiant e2 = donnees.etudiant(mouvements.etudiant2(i));
+                List<Integer> places = new ArrayList<>(List.of(donnees.etudiant(mouvements.etudiant1(i)).getIdEtudiant()));
+                if (e2 != null) {
+                    places.add(e2.getIdEtudiant());
+                }
+                places.retainAll(idsLiberes(supprimee));
+                assertTrue("graine " + graine + " : " + mouvements(donnees, mouvements), places.isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void voisinageDonneLesMemesMouvements() {
+        for (long graine = 1; graine <= 30; graine++) {
+            Campagne campagne = new Campagne(graine);
+            Affectation supprimee = campagne.supprimerAuHasard();
+            Integer sujetLibere = supprimee.getSujet().getId();
+
+            DonneesAffectation complet = DonneesAffectation.depuis(campagne.etudiants, campagne.sujets,
+                    campagne.choix, campagne.charges());
+            VoisinageReparation voisinage = new VoisinageReparation(campagne.tuplesChoix(), campagne.tuplesAffectations())
+                    .explorer(sujetLibere, idsLiberes(supprimee));
+            Set<Integer> etudiants = voisinage.getEtudiants();
+            Set<Integer> sujets = voisinage.getSujets();
+            DonneesAffectation partiel = DonneesAffectation.depuis(
+                    campagne.etudiants.stream().filter(e -> etudiants.contains(e.getIdEtudiant())).collect(Collectors.toList()),
+                    campagne.sujets.stream().filter(s -> sujets.contains(s.getId())).collect(Collectors.toList()),
+                    campagne.choix.stream().filter(c -> etudiants.contains(c.getEtudiant().getIdEtudiant()))
+                            .collect(Collectors.toList()),
+                    campagne.charges());
+            assertTrue(partiel.getInstance().nbEtudiants <= complet.getInstance().nbEtudiants);
+
+            assertEquals("graine " + graine,
+                    mouvements(complet, new ReparationAffectation(complet, CAPACITE, true)
+                            .reparer(complet.indexSujet(sujetLibere), liberes(complet, supprimee))),
+                    mouvements(partiel, new ReparationAffectation(partiel, CAPACITE, true)
+                            .reparer(partiel.indexSujet(sujetLibere), liberes(partiel, supprimee))));
+        }
+    }
+
+    private static List<Integer> idsLiberes(Affectation supprimee) {
+        List<Integer> ids = new ArrayList<>();
+        ids.add(supprimee.getEtudiant1().getIdEtudiant());
+        if (supprimee.getEtudiant2() != null) {
+            ids.add(supprimee.getEtudiant2().getIdEtudiant());
+        }
+        return ids;
+    }
+
+    private static int[] liberes(DonneesAffectation donnees, Affectation supprimee) {
+        return idsLiberes(supprimee).stream().mapToInt(donnees::indexEtudiant).toArray();
+    }
+
+    // Mouvements dans leur ordre, en identifiants métier
+    private static List<String> mouvements(DonneesAffectation donnees, ResultatAffectation resultat) {
+        List<String> mouvements = new ArrayList<>();
+        for (int i = 0; i < resultat.taille(); i++) {
+            Etudiant e2 = donnees.etudiant(resultat.etudiant2(i));
+            mouvements.add(donnees.sujet(resultat.sujet(i)).getId() + ":"
+                    + donnees.etudiant(resultat.etudiant1(i)).getIdEtudiant()
+                    + (e2 != null ? "+" + e2.getIdEtudiant() : ""));
+        }
+        return mouvements;
+    }
+
+    // Charge de chaque encadrant une fois les mouvements rejoués sur les affectations existantes
+    private static Map<Integer, Integer> chargesApres(DonneesAffectation donnees, ResultatAffectation mouvements) {
+        InstanceAffectation instance = donnees.getInstance();
+        int[] sujetEtudiant = new int[instance.nbEtudiants];
+        for (int e = 0; e < instance.nbEtudiants; e++) {
+            sujetEtudiant[e] = donnees.sujetActuel(e);
+        }
+        for (int i = 0; i < mouvements.taille(); i++) {
+            sujetEtudiant[mouvements.etudiant1(i)] = mouvements.sujet(i);
+            if (mouvements.etudiant2(i) != InstanceAffectation.AUCUN) {
+                sujetEtudiant[mouvements.etudiant2(i)] = mouvements.sujet(i);
+            }
+        }
+        Map<Integer, Integer> charges = new HashMap<>();
+        for (int s : sujetEtudiant) {
+            if (s != InstanceAffectation.AUCUN) {
+                charges.merge(donnees.sujet(s).getEncadrant().getIdEnseignant(), 1, Integer::sum);
+            }
+        }
+        return charges;
+    }
+
+    /**
+     * Campagne en entités, affectée par le mode glouton avec une capacité
+     * stricte : toutes les charges respectent la capacité au départ.
+     */
+    private static final class Campagne {
+
+        private final Random random;
+        private final List<Etudiant> etudiants = new ArrayList<>();
+        private final List<Sujet> sujets = new ArrayList<>();
+        private final List<ChoixEtudiant> choix = new ArrayList<>();
+        private final List<Affectation> affectations = new ArrayList<>();
+
+        Campagne(long graine) {
+            this.random = new Random(graine);
+            InstanceAffectation instance = new InstancesAleatoires(graine)
+                    .etudiants(60).sujets(50).encadrants(10).binomes(0.3)
+                    .generer();
+            for (int e = 0; e < instance.nbEtudiants; e++) {
+                Etudiant etudiant = new Etudiant();
+                etudiant.setIdEtudiant(instance.etudiantId(e));
+                etudiant.setMoyenne(instance.moyennes[e]);
+                etudiant.setOrdreMerite(instance.ordresMerite[e]);
+                etudiants.add(etudiant);
+            }
+            Map<Integer, Enseignant> enseignants = new HashMap<>();
+            for (int s = 0; s < instance.nbSujets; s++) {
+                Sujet sujet = new Sujet();
+                sujet.setId(instance.sujetId(s));
+                sujet.setEstValide(instance.sujetsValides.get(s));
+                sujet.setEncadrant(enseignants.computeIfAbsent(instance.encadrantId(instance.encadrant(s)), id -> {
+                    Enseignant enseignant = new Enseignant();
+                    enseignant.setIdEnseignant(id);
+                    return enseignant;
+                }));
+                sujets.add(sujet);
+            }
+            for (int c = 0; c < instance.nbChoix; c++) {
+                ChoixEtudiant choixEtudiant = new ChoixEtudiant();
+                choixEtudiant.setEtudiant(etudiants.get(instance.choixEtudiant[c]));
+                choixEtudiant.setSujet(sujets.get(instance.choixSujet[c]));
+                choixEtudiant.setOrdrePreference(instance.choixOrdre[c]);
+                if (instance.choixBinome[c] != InstanceAffectation.AUCUN) {
+                    choixEtudiant.setBinome(etudiants.get(instance.choixBinome[c]));
+                }
+                choix.add(choixEtudiant);
+            }
+
+            ResultatAffectation initial = MoteurAffectation.pour(ParametresAffectation.builder()
+                    .mode(ModeAffectation.GLOUTON)
+                    .capaciteEncadrant(CAPACITE)
+                    .build()).executer(instance);
+            for (int i = 0; i < initial.taille(); i++) {
+                Affectation affectation = new Affectation();
+                affectation.setId(i + 1);
+                affectation.setSujet(sujets.get(initial.sujet(i)));
+                affectation.setEtudiant1(etudiants.get(initial.etudiant1(i)));
+                if (initial.etudiant2(i) != InstanceAffectation.AUCUN) {
+                    affectation.setEtudiant2(etudiants.get(initial.etudiant2(i)));
+                }
+                affectation.setEncadrant(affectation.getSujet().getEncadrant());
+                affectation.getSujet().setAffectation(affectation);
+                affectations.add(affectation);
+            }
+        }
+
+        Affectation supprimerAuHasard() {
+            Affectation affectation = affectations.remove(random.nextInt(affectations.size()));
+            affectation.getSujet().setAffectation(null);
+            return affectation;
+        }
+
+        // Comme AffectationRepository.compterEtudiantsParEncadrant
+        Map<Integer, Integer> charges() {
+            Map<Integer, Integer> charges = new HashMap<>();
+            for (Affectation a : affectations) {
+                charges.merge(a.getEncadrant().getIdEnseignant(), a.getEtudiant2() != null ? 2 : 1, Integer::sum);
+            }
+            return charges;
+        }
+
+        // Comme ChoixEtudiantRepository.listerTuples
+        List<Object[]> tuplesChoix() {
+            return choix.stream()
+                    .map(c -> new Object[] {c.getEtudiant().getIdEtudiant(), c.getSujet().getId(),
+                            c.getBinome() != null ? c.getBinome().getIdEtudiant() : null})
+                    .collect(Collectors.toList());
+        }
+
+        // Comme AffectationRepository.listerTuples
+        List<Object[]> tuplesAffectations() {
+            return affectations.stream()
+                    .map(a -> new Object[] {a.getId(), a.getSujet().getId(), a.getEtudiant1().getIdEtudiant(),
+                            a.getEtudiant2() != null ? a.getEtudiant2().getIdEtudiant() : null,
+                            a.getEncadrant().getIdEnseignant()})
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.demo.services.notification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.example.demo.entity.EmailSortant;
+import com.example.demo.entity.StatutEmail;
+import com.example.demo.repository.EmailSortantRepository;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
+public class DispatcheurEmailsTest {
+
+    private final List<EmailSortant> table = new ArrayList<>();
+    private final ServeurFactice serveur = new ServeurFactice();
+    private PoolEnvoiEmails pool;
+    private DispatcheurEmails dispatcheur;
+    private int nbEnregistrements;
+
+    @Before
+    public void preparer() throws Exception {
+        pool = new PoolEnvoiEmails(2, 10, 0);
+        creerDispatcheur(serveur);
+    }
+
+    private void creerDispatcheur(JavaMailSender mailSender) throws ReflectiveOperationException {
+        dispatcheur = new DispatcheurEmails(mailSender, depot(), pool);
+        configurer("tailleLot", 50);
+        configurer("messagesParConnexion", 20);
+        configurer("tentativesMax", 3);
+        configurer("delaiInitialMs", 60_000L);
+        configurer("delaiMaxMs", 3_600_000L);
+    }
+
+    @After
+    public void arreter() throws InterruptedException {
+        pool.arreter();
+    }
+
+    @Test
+    public void emailsEnvoyesSurUneSeuleConnexion() {
+        EmailSortant a = email(1, "a@enicar.tn");
+        EmailSortant b = email(2, "b@enicar.tn");
+
+        dispatcheur.envoyerEmailsEnAttente();
+
+        assertEquals(StatutEmail.ENVOYE, a.getStatut());
+        assertEquals(StatutEmail.ENVOYE, b.getStatut());
+        assertNotNull(a.getDateEnvoi());
+        assertEquals(1, serveur.nbSessions);
+        assertEquals(1, nbEnregistrements);
+    }
+
+    @Test
+    public void delaiDoubleAChaqueTentativePuisAbandon() {
+        serveur.erreurSession = () -> new MailSendException("Connexion refusée");
+        EmailSortant email = email(1, "a@enicar.tn");
+
+        LocalDateTime avant = LocalDateTime.now();
+        dispatcheur.envoyerEmailsEnAttente();
+        assertEquals(StatutEmail.EN_ATTENTE, email.getStatut());
+        assertEquals(1, email.getTentatives());
+        assertEquals("Connexion refusée", email.getDerniereErreur());
+        assertDelai(avant, email, 60_000);
+
+        // Pas encore l'heure du nouvel essai : l'email n'est pas repris
+        dispatcheur.envoyerEmailsEnAttente();
+        assertEquals(1, email.getTentatives());
+
+        email.setProchaineTentative(LocalDateTime.now());
+        avant = LocalDateTime.now();
+        dispatcheur.envoyerEmailsEnAttente();
+        assertEquals(2, email.getTentatives());
+        assertDelai(avant, email, 120_000);
+
+        email.setProchaineTentative(LocalDateTime.now());
+        dispatcheur.envoyerEmailsEnAttente();
+        assertEquals(3, email.getTentatives());
+        assertEquals(StatutEmail.ECHEC, email.getStatut());
+        assertEquals(3, serveur.nbSessions);
+    }
+
+    @Test
+    public void delaiPlafonne() throws Exception {
+        configurer("tentativesMax", 10);
+        configurer("delaiMaxMs", 100_000L);
+        serveur.erreurSession = () -> new MailSendException("Connexion refusée");
+        EmailSortant email = email(1, "a@enicar.tn");
+        email.setTentatives(4);
+
+        LocalDateTime avant = LocalDateTime.now();
+        dispatcheur.envoyerEmailsEnAttente();
+
+        assertEquals(5, email.getTentatives());
+        assertDelai(avant, email, 100_000);
+    }
+
+    @Test
+    public void destinataireRefuseNEchoueQueSonEmail() {
+        // Le serveur refuse un destinataire : seul le message concerné est en échec
+        serveur.refuses.add("refuse@enicar.tn");
+        EmailSortant a = email(1, "a@enicar.tn");
+        EmailSortant refuse = email(2, "refuse@enicar.tn");
+        EmailSortant c = email(3, "c@enicar.tn");
+
+        dispatcheur.envoyerEmailsEnAttente();
+
+        assertEquals(StatutEmail.ENVOYE, a.getStatut());
+        assertEquals(StatutEmail.EN_ATTENTE, refuse.getStatut());
+        assertEquals(1, refuse.getTentatives());
+        assertEquals(StatutEmail.ENVOYE, c.getStatut());
+        assertEquals(1, serveur.nbSessions);
+        assertEquals(2, pool.getNbEnvoyes());
+        assertEquals(1, pool.getNbEchecs());
+    }
+
+    @Test
+    public void emailMalFormeNEmpechePasLaSession() {
+        EmailSortant a = email(1, "a@enicar.tn");
+        EmailSortant invalide = email(2, "adresse invalide@@");
+        EmailSortant sansDestinataire = email(3, null);
+        EmailSortant d = email(4, "d@enicar.tn");
+
+        dispatcheur.envoyerEmailsEnAttente();
+
+        assertEquals(StatutEmail.ENVOYE, a.getStatut());
+        assertEquals(StatutEmail.ENVOYE, d.getStatut());
+        assertEquals(1, invalide.getTentatives());
+        assertEquals(StatutEmail.EN_ATTENTE, invalide.getStatut());
+        assertEquals(1, sansDestinataire.getTentatives());
+        assertEquals(2, serveur.envoyes.size());
+        assertEquals(1, nbEnregistrements);
+    }
+
+    @Test
+    public void erreurInattendueMarqueLaSessionEtEnregistreLeLot() {
+        serveur.erreurSession = () -> new IllegalStateException("Transport fermé");
+        EmailSortant a = email(1, "a@enicar.tn");
+        EmailSortant b = email(2, "b@enicar.tn");
+
+        dispatcheur.envoyerEmailsEnAttente();
+
+        assertEquals(1, a.getTentatives());
+        assertEquals(1, b.getTentatives());
+        assertEquals("Transport fermé", b.getDerniereErreur());
+        assertTrue(a.getProchaineTentative().isAfter(LocalDateTime.now()));
+        assertEquals(1, nbEnregistrements);
+    }
+
+    @Test
+    public void lotDecoupeEnSessions() throws Exception {
+        configurer("messagesParConnexion", 2);
+        for (int i = 1; i <= 5; i++) {
+            email(i, "e" + i + "@enicar.tn");
+        }
+
+        dispatcheur.envoyerEmailsEnAttente();
+
+        assertEquals(3, serveur.nbSessions);
+        assertTrue(table.stream().allMatch(e -> e.getStatut() == StatutEmail.ENVOYE));
+    }
+
+    @Test
+    public void emailsRecusParUnServeurSmtp() throws Exception {
+        GreenMail greenMail = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+        greenMail.start();
+        try {
+            ServeurSmtpCompte smtp = new ServeurSmtpCompte(greenMail.getSmtp().getPort());
+            creerDispatcheur(smtp);
+            configurer("tailleLot", 100);
+            for (int i = 1; i <= 95; i++) {
+                email(i, "e" + i + "@enicar.tn");
+            }
+
+            dispatcheur.envoyerEmailsEnAttente();
+
+            assertEquals(95, greenMail.getReceivedMessages().length);
+            // 95 emails en sessions de 20 : 5 connexions SMTP
+            assertEquals(5, smtp.nbConnexions.get());
+            assertTrue(table.stream().allMatch(e -> e.getStatut() == StatutEmail.ENVOYE));
+            assertEquals("Affectation", greenMail.getReceivedMessages()[0].getSubject());
+        } finally {
+            greenMail.stop();
+        }
+    }
+
+    private static void assertDelai(LocalDateTime avant, EmailSortant email, long delaiMs) {
+        LocalDateTime prochaine = email.getProchaineTentative();
+        assertTrue("trop tôt : " + prochaine, !prochaine.isBefore(avant.plusNanos(delaiMs * 1_000_000)));
+        assertTrue("trop tard : " + prochaine, prochaine.isBefore(LocalDateTime.now().plusNanos(delaiMs * 1_000_000)
+                .plusSeconds(1)));
+    }
+
+    private EmailSortant email(int id, String destinataires) {
+        EmailSortant email = new EmailSortant();
+        email.setId(id);
+        email.setDestinataires(destinataires);
+        email.setTitre("Affectation");
+        email.setMessage("Votre sujet a été affecté.");
+        email.setStatut(StatutEmail.EN_ATTENTE);
+        email.setDateCreation(LocalDateTime.now());
+        email.setProchaineTentative(LocalDateTime.now());
+        table.add(email);
+        return email;
+    }
+
+    private void configurer(String champ, Object valeur) throws ReflectiveOperationException {
+        Field field = DispatcheurEmails.class.getDeclaredField(champ);
+        field.setAccessible(true);
+        field.set(dispatcheur, valeur);
+    }
+
+    // Table email_sortant en mémoire : seules les méthodes utilisées par le dispatcheur
+    private EmailSortantRepository depot() {
+        return (EmailSortantRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {EmailSortantRepository.class}, (proxy, methode, args) -> {
+                    switch (methode.getName()) {
+                        case "findByStatutAndProchaineTentativeLessThanEqualOrderByIdAsc":
+                            LocalDateTime date = (LocalDateTime) args[1];
+                            return table.stream()
+                                    .filter(e -> e.getStatut() == args[0] && !e.getProchaineTentative().isAfter(date))
+                                    .limit(((Pageable) args[2]).getPageSize())
+                                    .collect(Collectors.toList());
+                        case "saveAll":
+                            nbEnregistrements++;
+                            return args[0];
+                        default:
+                            throw new UnsupportedOperationException(methode.getName());
+                    }
+                });
+    }
+
+    /** Envoi SMTP réel vers GreenMail, en comptant les connexions ouvertes. */
+    private static final class ServeurSmtpCompte extends JavaMailSenderImpl {
+
+        private final AtomicInteger nbConnexions = new AtomicInteger();
+
+        ServeurSmtpCompte(int port) {
+            setHost("localhost");
+            setPort(port);
+        }
+
+        @Override
+        protected void doSend(MimeMessage[] messages, Object[] originaux) {
+            nbConnexions.incrementAndGet();
+            super.doSend(messages, originaux);
+        }
+    }
+
+    /**
+     * Serveur SMTP factice : chaque appel à {@code send(MimeMessage...)} est
+     * une session. Les destinataires refusés donnent une MailSendException
+     * indexée par message, comme JavaMailSenderImpl.
+     */
+    private static final class ServeurFactice implements JavaMailSender {
+
+        private final Session session = Session.getInstance(new Properties());
+        private final List<String> refuses = new ArrayList<>();
+        private final List<MimeMessage> envoyes = new ArrayList<>();
+        private Supplier<RuntimeException> erreurSession;
+        private int nbSessions;
+
+        @Override
+        public MimeMessage createMimeMessage() {
+            return new MimeMessage(session);
+        }
+
+        @Override
+        public MimeMessage createMimeMessage(InputStream contenu) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized void send(MimeMessage... messages) {
+            nbSessions++;
+            if (erreurSession != null) {
+                throw erreurSession.get();
+            }
+            Map<Object, Exception> echecs = new LinkedHashMap<>();
+            for (MimeMessage message : messages) {
+                try {
+                    String destinataire = message.getAllRecipients()[0].toString();
+                    if (refuses.contains(destinataire)) {
+                        echecs.put(message, new MessagingException("550 Destinataire inconnu : " + destinataire));
+                    } else {
+                        envoyes.add(message);
+                    }
+                } catch (MessagingException e) {
+                    echecs.put(message, e);
+                }
+            }
+            if (!echecs.isEmpty()) {
+                throw new MailSendException(echecs);
+            }
+        }
+
+        @Override
+        public void send(SimpleMailMessage... messages) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
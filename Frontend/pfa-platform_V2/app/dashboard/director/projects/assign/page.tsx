@@ -226,10 +226,31 @@ export default function AssignProjects() {
         },
       });
   
-      if (response.ok) {
-        const data = await response.text();
-        setAutoAssignStatus(data);
-        
+      if (response.ok || response.status === 409) {
+        // The assignment runs as a background job: poll its status until it ends
+        let job = await response.json();
+        while (job.etat === "EN_ATTENTE" || job.etat === "EN_COURS") {
+          setAutoAssignStatus(
+            `Attribution en cours (${job.etape}) : ${job.sujetsTraites}/${job.nbSujets} sujets traités, ${job.affectationsCreees} affectations enregistrées...`
+          );
+          await new Promise((resolve) => setTimeout(resolve, 1000));
+          const statusResponse = await fetch(`${backendUrl}/api/affectations/automatique/${job.id}`);
+          if (!statusResponse.ok) {
+            throw new Error(`statut de la tâche indisponible (${statusResponse.status})`);
+          }
+          job = await statusResponse.json();
+        }
+
+        if (job.etat === "TERMINEE") {
+          setAutoAssignStatus(
+            `L'affectation automatique a été exécutée avec succès (${job.rapport.nbAffectations} affectations, ${job.rapport.nbPremierChoix} premiers choix, calcul en ${job.rapport.dureeCalculMs} ms)`
+          );
+        } else if (job.etat === "ANNULEE") {
+          setAutoAssignStatus("L'affectation automatique a été annulée.");
+        } else {
+          setAutoAssignStatus(`Erreur lors de l'affectation automatique: ${job.erreur}`);
+        }
+
         // Refresh assignments after auto-assign
         const assignmentsResponse = await fetch(`${backendUrl}/api/affectations`);
         if (assignmentsResponse.ok) {